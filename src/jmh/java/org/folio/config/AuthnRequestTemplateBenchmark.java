@@ -0,0 +1,69 @@
+package org.folio.config;
+
+import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
+
+import io.vertx.core.Vertx;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.context.session.MockSessionStore;
+import org.pac4j.core.exception.http.RedirectionAction;
+import org.pac4j.saml.client.SAML2Client;
+
+/**
+ * Unsigned POST binding login: AuthnRequest rendered from the per tenant template
+ * versus built, marshalled and serialized by OpenSAML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthnRequestTemplateBenchmark {
+
+  private Vertx vertx;
+  private JsonReponseSaml2RedirectActionBuilder templateBuilder;
+  private JsonReponseSaml2RedirectActionBuilder openSamlBuilder;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    SAML2Client client = BenchmarkClients.client(vertx, "benchmark", "POST", false);
+    templateBuilder = new JsonReponseSaml2RedirectActionBuilder(client, true);
+    openSamlBuilder = new JsonReponseSaml2RedirectActionBuilder(client, false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Optional<RedirectionAction> template() {
+    return login(templateBuilder);
+  }
+
+  @Benchmark
+  public Optional<RedirectionAction> openSaml() {
+    return login(openSamlBuilder);
+  }
+
+  static Optional<RedirectionAction> login(JsonReponseSaml2RedirectActionBuilder builder) {
+    MockWebContext webContext = MockWebContext.create();
+    MockSessionStore sessionStore = new MockSessionStore();
+    sessionStore.set(webContext, SAML_RELAY_STATE_ATTRIBUTE, BenchmarkClients.RELAY_STATE);
+    return builder.getRedirectionAction(webContext, sessionStore);
+  }
+}
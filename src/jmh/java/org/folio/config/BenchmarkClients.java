@@ -0,0 +1,74 @@
+package org.folio.config;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.apache.commons.io.IOUtils;
+import org.pac4j.saml.client.SAML2Client;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.UrlResource;
+
+/**
+ * Creates SAML clients for benchmarks from the test fixtures: keystore of mock_content.json and
+ * IdP metadata meta-idp.xml.
+ */
+public final class BenchmarkClients {
+
+  public static final String OKAPI_URL = "http://localhost:9130";
+  public static final String RELAY_STATE = "http://localhost:3000/?csrfToken=a9b2c8c0-7f7e-4b6a-9c3a-0a1d2e3f4a5b";
+
+  private BenchmarkClients() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class");
+  }
+
+  /**
+   * @param samlBinding "POST" or "REDIRECT"
+   * @param signed whether AuthnRequests are signed
+   * @return initialized client
+   */
+  public static SAML2Client client(Vertx vertx, String tenantId, String samlBinding, boolean signed) {
+    try {
+      JsonArray configs = readJson("mock_content.json").getJsonArray("mocks").getJsonObject(0)
+        .getJsonObject("receivedData").getJsonArray("configs");
+      byte[] keystore = Base64.getDecoder().decode(configValue(configs, "keystore.file"));
+      String password = configValue(configs, "keystore.password");
+      String privateKeyPassword = configValue(configs, "keystore.privatekey.password");
+      SAML2Client client = SamlClientLoader.configureSaml2Client(OKAPI_URL, tenantId, password, privateKeyPassword,
+        new UrlResource("https://idp.ssocircle.com"), new ByteArrayResource(keystore), samlBinding,
+        new ByteArrayResource(readBytes("meta-idp.xml")), vertx.getOrCreateContext());
+      client.getConfiguration().setAuthnRequestSigned(signed);
+      client.init();
+      return client;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static byte[] readBytes(String resource) throws IOException {
+    try (InputStream inputStream = BenchmarkClients.class.getClassLoader().getResourceAsStream(resource)) {
+      if (inputStream == null) {
+        throw new IOException("Resource not found: " + resource);
+      }
+      return IOUtils.toByteArray(inputStream);
+    }
+  }
+
+  private static JsonObject readJson(String resource) throws IOException {
+    return new JsonObject(new String(readBytes(resource), StandardCharsets.UTF_8));
+  }
+
+  private static String configValue(JsonArray configs, String code) {
+    for (int i = 0; i < configs.size(); i++) {
+      JsonObject config = configs.getJsonObject(i);
+      if (code.equals(config.getString("code"))) {
+        return config.getString("value");
+      }
+    }
+    throw new IllegalArgumentException("Missing config entry " + code);
+  }
+}
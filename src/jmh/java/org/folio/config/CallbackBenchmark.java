@@ -0,0 +1,78 @@
+package org.folio.config;
+
+import io.vertx.core.Vertx;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.context.session.MockSessionStore;
+import org.pac4j.saml.client.SAML2Client;
+import org.pac4j.saml.credentials.SAML2Credentials;
+
+/**
+ * {@link SAML2Client#getCredentials} as used by /saml/callback: Base64 decoding, XML parsing, signature
+ * verification, decryption if the assertion is encrypted, and attribute extraction.
+ *
+ * <p>The signed SAMLResponses come from {@link SamlResponseFactory}, a new one per invocation because pac4j
+ * rejects replayed message IDs. {@code attributes} is the number of attributes besides UserID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallbackBenchmark {
+
+  @Param({"false", "true"})
+  private boolean encrypted;
+
+  @Param({"5", "200"})
+  private int attributes;
+
+  private Vertx vertx;
+  private SamlResponseFactory factory;
+  private SAML2Client client;
+  private String samlResponse;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    factory = SamlResponseFactory.create();
+    client = factory.client(vertx.getOrCreateContext(), "benchmark");
+    // fail fast on a broken fixture instead of measuring exceptions
+    nextResponse();
+    if (getCredentials().getUserProfile().getAttribute(SamlResponseFactory.USER_ID_ATTRIBUTE) == null) {
+      throw new IllegalStateException("No UserID for encrypted=" + encrypted + " attributes=" + attributes);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void nextResponse() {
+    samlResponse = factory.response("benchmark-user", attributes, encrypted);
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public SAML2Credentials getCredentials() {
+    MockWebContext webContext = MockWebContext.create()
+      .setRequestMethod("POST")
+      .addRequestParameter("SAMLResponse", samlResponse);
+    return (SAML2Credentials) client.getCredentials(webContext, new MockSessionStore()).get();
+  }
+}
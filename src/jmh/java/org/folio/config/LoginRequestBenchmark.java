@@ -0,0 +1,65 @@
+package org.folio.config;
+
+import io.vertx.core.Vertx;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.core.exception.http.RedirectionAction;
+import org.pac4j.saml.client.SAML2Client;
+
+/**
+ * {@link JsonReponseSaml2RedirectActionBuilder#getRedirectionAction} as used by /saml/login, for
+ * POST and REDIRECT binding, unsigned and signed AuthnRequests.
+ *
+ * <p>Unsigned requests are rendered from the template, signed ones are built and signed by OpenSAML
+ * each time. Run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginRequestBenchmark {
+
+  @Param({"POST", "REDIRECT"})
+  private String binding;
+
+  @Param({"false", "true"})
+  private boolean signed;
+
+  private Vertx vertx;
+  private JsonReponseSaml2RedirectActionBuilder builder;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    SAML2Client client = BenchmarkClients.client(vertx, "benchmark", binding, signed);
+    builder = new JsonReponseSaml2RedirectActionBuilder(client);
+    // fail fast on a broken fixture instead of measuring exceptions
+    if (AuthnRequestTemplateBenchmark.login(builder).isEmpty()) {
+      throw new IllegalStateException("No redirection action for " + binding + " signed=" + signed);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Optional<RedirectionAction> getRedirectionAction() {
+    return AuthnRequestTemplateBenchmark.login(builder);
+  }
+}
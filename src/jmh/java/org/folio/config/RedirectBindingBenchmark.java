@@ -0,0 +1,58 @@
+package org.folio.config;
+
+import io.vertx.core.Vertx;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.core.exception.http.RedirectionAction;
+import org.pac4j.saml.client.SAML2Client;
+
+/**
+ * Unsigned REDIRECT binding login: AuthnRequest rendered from the template and encoded by
+ * {@link org.folio.util.RedirectBindingEncoder} versus pac4j's redirect deflate encoder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectBindingBenchmark {
+
+  private Vertx vertx;
+  private JsonReponseSaml2RedirectActionBuilder encoderBuilder;
+  private JsonReponseSaml2RedirectActionBuilder pac4jBuilder;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    SAML2Client client = BenchmarkClients.client(vertx, "benchmark", "REDIRECT", false);
+    encoderBuilder = new JsonReponseSaml2RedirectActionBuilder(client, true);
+    pac4jBuilder = new JsonReponseSaml2RedirectActionBuilder(client, false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Optional<RedirectionAction> encoder() {
+    return AuthnRequestTemplateBenchmark.login(encoderBuilder);
+  }
+
+  @Benchmark
+  public Optional<RedirectionAction> pac4j() {
+    return AuthnRequestTemplateBenchmark.login(pac4jBuilder);
+  }
+}
@@ -0,0 +1,175 @@
+package org.folio.config;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.folio.config.model.SamlClientComposite;
+import org.folio.config.model.SamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.saml.client.SAML2Client;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.UrlResource;
+
+/**
+ * Heap retained by the SAML clients of many tenants in {@link SamlConfigHolder}.
+ *
+ * <p>Each tenant gets its own copy of the IdP metadata meta-idp.xml and of the keystore of mock_content.json,
+ * as separate configurations would, and logs in once so that lazily built state is included. The retained
+ * heap is the used heap after full GCs with the clients loaded minus the used heap before. The score is the
+ * time to load all tenants.
+ *
+ * <p>The iteration fails if the retained heap per tenant exceeds {@code budgetKb}; run with {@code -foe true}
+ * to turn that into a non-zero exit code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class TenantFootprintBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int tenants;
+
+  /** maximum retained heap per tenant */
+  @Param({"1024"})
+  private long budgetKb;
+
+  private Vertx vertx;
+  private Context context;
+  private byte[] idpMetadata;
+  private byte[] keystore;
+  private String password;
+  private String privateKeyPassword;
+  private long baselineBytes;
+
+  @Setup(Level.Iteration)
+  public void setup() throws IOException {
+    vertx = Vertx.vertx();
+    context = vertx.getOrCreateContext();
+    idpMetadata = BenchmarkClients.readBytes("meta-idp.xml");
+    // the keystore of mock_content.json, as BenchmarkClients uses it
+    SAML2Client fixture = BenchmarkClients.client(vertx, "fixture", "POST", false);
+    keystore = ((ByteArrayResource) fixture.getConfiguration().getKeystoreResource()).getByteArray();
+    password = fixture.getConfiguration().getKeystorePassword();
+    privateKeyPassword = fixture.getConfiguration().getPrivateKeyPassword();
+    clear();
+    baselineBytes = usedHeapAfterGc();
+  }
+
+  @TearDown(Level.Iteration)
+  public void checkBudget() {
+    long retainedBytes = usedHeapAfterGc() - baselineBytes;
+    long perTenantKb = retainedBytes / tenants / 1024;
+    long estimateKb = estimatedRetainedSize() / tenants / 1024;
+    System.out.println();
+    System.out.println(String.format("tenants=%d retained=%d KB per tenant=%d KB (raw copies of metadata and "
+      + "keystore %d KB) budget=%d KB", tenants, retainedBytes / 1024, perTenantKb, estimateKb, budgetKb));
+    clear();
+    vertx.close();
+    if (perTenantKb > budgetKb) {
+      throw new IllegalStateException("Retained heap per tenant " + perTenantKb + " KB exceeds budget "
+        + budgetKb + " KB with " + tenants + " tenants");
+    }
+  }
+
+  @Benchmark
+  public int load() {
+    SamlConfigHolder holder = SamlConfigHolder.getInstance();
+    for (int i = 0; i < tenants; i++) {
+      String tenantId = "footprint" + i;
+      holder.putClient(tenantId, composite(tenantId));
+    }
+    return holder.getConfig().size();
+  }
+
+  /**
+   * Client and configuration of a tenant as {@link SamlClientLoader} creates them, with copies of the
+   * fixtures, after one login.
+   */
+  private SamlClientComposite composite(String tenantId) {
+    try {
+      String metadata = new String(idpMetadata, StandardCharsets.UTF_8);
+      String keystoreBase64 = Base64.getEncoder().encodeToString(keystore);
+      SamlConfiguration configuration = new SamlConfiguration();
+      configuration.setIdpUrl("https://idp.ssocircle.com");
+      configuration.setIdpMetadata(metadata);
+      configuration.setKeystore(keystoreBase64);
+      configuration.setKeystorePassword(password);
+      configuration.setPrivateKeyPassword(privateKeyPassword);
+      configuration.setSamlBinding("POST");
+      configuration.setOkapiUrl(BenchmarkClients.OKAPI_URL);
+
+      SAML2Client client = SamlClientLoader.configureSaml2Client(BenchmarkClients.OKAPI_URL, tenantId, password,
+        privateKeyPassword, new UrlResource(configuration.getIdpUrl()),
+        new ByteArrayResource(Base64.getDecoder().decode(keystoreBase64)), "POST",
+        new ByteArrayResource(metadata.getBytes(StandardCharsets.UTF_8)), context);
+      client.init();
+      if (AuthnRequestTemplateBenchmark.login(
+          (JsonReponseSaml2RedirectActionBuilder) client.getRedirectionActionBuilder()).isEmpty()) {
+        throw new IllegalStateException("No redirection action for " + tenantId);
+      }
+      return new SamlClientComposite(client, configuration);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return sum of the estimatedRetainedSize of all clients, see {@link SamlClientDiagnostics}
+   */
+  private static long estimatedRetainedSize() {
+    Instant now = Instant.now();
+    long bytes = 0;
+    for (String tenantId : SamlConfigHolder.getInstance().getConfig().keySet()) {
+      Integer size = SamlClientDiagnostics.of(tenantId, now).getEstimatedRetainedSize();
+      bytes += size == null ? 0 : size;
+    }
+    return bytes;
+  }
+
+  private static void clear() {
+    SamlConfigHolder holder = SamlConfigHolder.getInstance();
+    for (String tenantId : new ArrayList<>(holder.getConfig().keySet())) {
+      holder.removeClient(tenantId);
+    }
+  }
+
+  /**
+   * @return used heap once full GCs don't reduce it any further
+   */
+  static long usedHeapAfterGc() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long now = memory.getHeapMemoryUsage().getUsed();
+      if (now >= used) {
+        return now;
+      }
+      used = now;
+    }
+    return used;
+  }
+}
@@ -0,0 +1,81 @@
+package org.folio.rest.impl;
+
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.config.SamlResponseFactory;
+import org.folio.users.UserMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.context.session.MockSessionStore;
+import org.pac4j.core.profile.UserProfile;
+import org.pac4j.saml.client.SAML2Client;
+import org.pac4j.saml.credentials.SAML2Credentials;
+
+/**
+ * User mapping of /saml/callback after the SAMLResponse is validated: lookup of the mapped SAML attributes
+ * in the user profile and build of the /users query with {@link SamlAPI#getUserQuery}.
+ *
+ * <p>{@code attributes} is the number of attributes of the profile besides UserID, {@code mappings} the
+ * number of user mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMappingBenchmark {
+
+  @Param({"5", "200"})
+  private int attributes;
+
+  @Param({"1", "2"})
+  private int mappings;
+
+  private UserProfile userProfile;
+  private List<UserMapping> userMappings;
+
+  @Setup
+  public void setup() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      SamlResponseFactory factory = SamlResponseFactory.create();
+      SAML2Client client = factory.client(vertx.getOrCreateContext(), "benchmark");
+      MockWebContext webContext = MockWebContext.create()
+        .setRequestMethod("POST")
+        .addRequestParameter("SAMLResponse", factory.response("benchmark-user", attributes, false));
+      userProfile = ((SAML2Credentials) client.getCredentials(webContext, new MockSessionStore()).get())
+        .getUserProfile();
+    } finally {
+      vertx.close();
+    }
+    userMappings = new ArrayList<>(List.of(new UserMapping(SamlResponseFactory.USER_ID_ATTRIBUTE, "externalSystemId"),
+      new UserMapping("attribute" + (attributes - 1), "personal.email")).subList(0, mappings));
+  }
+
+  @Benchmark
+  public String userQuery() {
+    List<UserMapping> presentMappings = new ArrayList<>(userMappings.size());
+    List<String> samlAttributeValues = new ArrayList<>(userMappings.size());
+    for (UserMapping userMapping : userMappings) {
+      List<?> samlAttributeList = (List<?>) userProfile.getAttribute(userMapping.getSamlAttribute());
+      if (samlAttributeList != null && !samlAttributeList.isEmpty()) {
+        presentMappings.add(userMapping);
+        samlAttributeValues.add(samlAttributeList.get(0).toString());
+      }
+    }
+    return SamlAPI.getUserQuery(presentMappings, samlAttributeValues);
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.session;
+
+import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.auth.PRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.folio.util.CsrfTokenGenerator;
+import org.folio.util.DummySessionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pac4j.core.context.session.SessionStore;
+
+/**
+ * Per request setup of /saml/login: CSRF token, relay state session and session store.
+ *
+ * <p>Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LoginSetupBenchmark {
+
+  private static final String STRIPES_URL = "http://localhost:3000/?csrfToken=";
+
+  private Vertx vertx;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  /** Previous setup: SharedDataSessionImpl with its own PRNG, UUID from the shared SecureRandom. */
+  @Benchmark
+  public SessionStore sharedDataSession() {
+    String relayState = STRIPES_URL + UUID.randomUUID().toString();
+    PRNG prng = new PRNG(vertx);
+    try {
+      Session session = new SharedDataSessionImpl(prng);
+      session.put(SAML_RELAY_STATE_ATTRIBUTE, relayState);
+      return new DummySessionStore(vertx, session);
+    } finally {
+      prng.close();
+    }
+  }
+
+  @Benchmark
+  public SessionStore relayStateSession() {
+    String relayState = STRIPES_URL + CsrfTokenGenerator.generate();
+    return new DummySessionStore(vertx, new RelayStateSession(relayState));
+  }
+}
@@ -0,0 +1,109 @@
+package org.folio.loadtest;
+
+import io.vertx.core.json.JsonObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cold start and time to first login: runs {@link ColdStartProbe} in {@code forks} fresh JVMs for each
+ * number of tenants and prints the median, minimum and maximum of every phase in milliseconds.
+ *
+ * <p>{@code mvn -Ploadtest test-compile exec:exec -Dloadtest.main=org.folio.loadtest.ColdStart
+ * -Dloadtest.args="forks=5 tenants=1,10 jvmArgs=-Xmx512m"}
+ *
+ * <p>Options: {@code forks} (5), {@code tenants} (comma separated, 1,10), {@code jvmArgs} (space separated
+ * arguments of the forked JVMs, none). Exits with 1 if a fork fails.
+ */
+public class ColdStart {
+
+  public static void main(String[] args) throws Exception {
+    int forks = 5;
+    String tenants = "1,10";
+    List<String> jvmArgs = new ArrayList<>();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      String key = equals < 0 ? arg : arg.substring(0, equals);
+      String value = arg.substring(equals + 1);
+      switch (key) {
+        case "forks":
+          forks = Integer.parseInt(value);
+          break;
+        case "tenants":
+          tenants = value;
+          break;
+        case "jvmArgs":
+          jvmArgs.addAll(Arrays.asList(value.trim().split("\\s+")));
+          break;
+        default:
+          System.err.println("Unknown option " + arg + ", known options: forks, tenants, jvmArgs");
+          System.exit(2);
+          return;
+      }
+    }
+
+    for (String tenantCount : tenants.split(",")) {
+      Map<String, List<Long>> phases = new LinkedHashMap<>();
+      for (int fork = 0; fork < forks; fork++) {
+        JsonObject result = fork(jvmArgs, tenantCount.trim());
+        if (result == null) {
+          System.exit(1);
+          return;
+        }
+        result.forEach(entry -> phases.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+          .add(((Number) entry.getValue()).longValue()));
+      }
+      System.out.println();
+      System.out.println(String.format("tenants=%s forks=%d", tenantCount.trim(), forks));
+      System.out.println(String.format("%-18s %9s %9s %9s", "phase", "median ms", "min ms", "max ms"));
+      phases.forEach((phase, millis) -> {
+        Collections.sort(millis);
+        System.out.println(String.format("%-18s %9d %9d %9d",
+          phase, millis.get(millis.size() / 2), millis.get(0), millis.get(millis.size() - 1)));
+      });
+    }
+  }
+
+  /**
+   * @return phases of the fork, null if it failed
+   */
+  private static JsonObject fork(List<String> jvmArgs, String tenants) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmArgs);
+    command.add("-classpath");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ColdStartProbe.class.getName());
+    command.add("tenants=" + tenants);
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    JsonObject result = null;
+    List<String> output = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(ColdStartProbe.PREFIX)) {
+          result = new JsonObject(line.substring(ColdStartProbe.PREFIX.length()));
+        } else {
+          output.add(line);
+        }
+      }
+    }
+    int exitCode = process.waitFor();
+    if (exitCode != 0 || result == null) {
+      // the module's log explains the failure
+      output.forEach(System.err::println);
+      System.err.println("Fork with tenants=" + tenants + " failed with exit code " + exitCode);
+      return null;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,188 @@
+package org.folio.loadtest;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.folio.config.SamlResponseFactory;
+import org.folio.jfr.BootstrapEvent;
+import org.folio.jfr.ClientInitEvent;
+import org.folio.jfr.ClientLoadEvent;
+import org.folio.jfr.MetadataFetchEvent;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.rest.RestVerticle;
+import org.folio.rest.tools.utils.NetworkUtils;
+
+/**
+ * One cold start, run in a fresh JVM by {@link ColdStart}: times the startup phases in order and prints them
+ * as a JSON line prefixed with {@link #PREFIX}, in milliseconds.
+ *
+ * <ol>
+ * <li>jvmToMain: JVM start to main</li>
+ * <li>rmbReady: deployment of the Okapi stand-in and of the module; includes samlBootstrap (Santuario and OpenSAML
+ * initialization by the module, -1 if {@code SAML_EAGER_BOOTSTRAP} is {@code false} and the first client pays for
+ * it instead)</li>
+ * <li>firstCheck: /saml/check of the first tenant, which loads its client; includes firstClientLoad
+ * (configuration fetch and client creation)</li>
+ * <li>firstLogin: login and callback of the first tenant; includes firstClientInit (pac4j init on the first use of
+ * the client), which includes firstMetadataLoad (IdP metadata resolver)</li>
+ * <li>otherChecks, otherLogins: the same for the other tenants, all at once</li>
+ * <li>total: JVM start to the end of the last login</li>
+ * </ol>
+ *
+ * <p>Argument: {@code tenants=N} (default 1).
+ */
+public class ColdStartProbe {
+
+  static final String PREFIX = "COLDSTART ";
+
+  private final JsonObject phases = new JsonObject();
+  private long phaseStart = System.nanoTime();
+
+  public static void main(String[] args) throws Exception {
+    long jvmToMain = ManagementFactory.getRuntimeMXBean().getUptime();
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    ColdStartProbe probe = new ColdStartProbe();
+    probe.phases.put("jvmToMain", jvmToMain);
+    Vertx vertx = null;
+    int exitCode = 1;
+    try {
+      vertx = Vertx.vertx();
+      exitCode = probe.run(vertx, options);
+    } finally {
+      if (vertx != null) {
+        vertx.close();
+      }
+    }
+    System.exit(exitCode);
+  }
+
+  private void start() {
+    phaseStart = System.nanoTime();
+  }
+
+  private void end(String name) {
+    phases.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart));
+  }
+
+  private int run(Vertx vertx, LoadTestOptions options) throws Exception {
+    SamlResponseFactory idp = SamlResponseFactory.create();
+    List<String> tenants = new ArrayList<>();
+    for (int i = 1; i <= options.getTenants(); i++) {
+      tenants.add("coldstart" + i);
+    }
+    int modulePort = NetworkUtils.nextFreePort();
+    OkapiStandIn okapi = new OkapiStandIn(options, idp);
+    WebClient webClient = WebClient.create(vertx);
+    Path jfrFile = Files.createTempFile("coldstart", ".jfr");
+    try (Recording recording = new Recording()) {
+      // JFR's own startup is not part of any phase
+      recording.enable(BootstrapEvent.class).withThreshold(Duration.ZERO);
+      recording.enable(ClientLoadEvent.class).withThreshold(Duration.ZERO);
+      recording.enable(ClientInitEvent.class).withThreshold(Duration.ZERO);
+      recording.enable(MetadataFetchEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+
+      start();
+      await(vertx.deployVerticle(okapi)
+        .compose(x -> vertx.deployVerticle(new RestVerticle(),
+          new DeploymentOptions().setConfig(new JsonObject().put("http.port", modulePort)))));
+      end("rmbReady");
+
+      String okapiUrl = "http://localhost:" + okapi.getPort();
+      start();
+      await(check(webClient, modulePort, okapiUrl, tenants.get(0)));
+      end("firstCheck");
+      String first = tenants.get(0);
+
+      LoadDriver driver = new LoadDriver(vertx, modulePort, 1, okapiUrl, idp, List.of(first), 5, false);
+      start();
+      await(driver.run(1, 1));
+      end("firstLogin");
+      driver.close();
+
+      List<String> others = tenants.subList(1, tenants.size());
+      LoadDriver othersDriver = null;
+      if (!others.isEmpty()) {
+        start();
+        await(CompositeFuture.all(others.stream()
+          .map(tenant -> check(webClient, modulePort, okapiUrl, tenant))
+          .collect(Collectors.toList())));
+        end("otherChecks");
+
+        othersDriver = new LoadDriver(vertx, modulePort, others.size(), okapiUrl, idp, others, 5, false);
+        start();
+        await(othersDriver.run(others.size(), others.size()));
+        end("otherLogins");
+        othersDriver.close();
+      }
+      phases.put("total", ManagementFactory.getRuntimeMXBean().getUptime());
+
+      recording.stop();
+      recording.dump(jfrFile);
+      List<RecordedEvent> events = RecordingFile.readAllEvents(jfrFile);
+      phases.put("samlBootstrap", firstDuration(events, null, "org.folio.saml.Bootstrap"));
+      phases.put("firstClientLoad", firstDuration(events, first, "org.folio.saml.ClientLoad"));
+      phases.put("firstClientInit", firstDuration(events, first, "org.folio.saml.ClientInit"));
+      phases.put("firstMetadataLoad", firstDuration(events, first, "org.folio.saml.MetadataFetch"));
+
+      long errors = driver.getErrorCount() + (othersDriver == null ? 0 : othersDriver.getErrorCount());
+      if (errors > 0) {
+        System.err.println("Failed logins: " + driver.getErrors()
+          + (othersDriver == null ? "" : " " + othersDriver.getErrors()));
+        return 1;
+      }
+    } finally {
+      webClient.close();
+      Files.deleteIfExists(jfrFile);
+    }
+    System.out.println(PREFIX + phases.encode());
+    return 0;
+  }
+
+  private static Future<Void> check(WebClient webClient, int modulePort, String okapiUrl, String tenant) {
+    return webClient.get(modulePort, "localhost", "/saml/check")
+      .putHeader(XOkapiHeaders.TENANT, tenant)
+      .putHeader(XOkapiHeaders.TOKEN, "coldstart")
+      .putHeader(XOkapiHeaders.URL, okapiUrl)
+      .send()
+      .compose(response -> {
+        if (response.statusCode() != 200 || !Boolean.TRUE.equals(response.bodyAsJsonObject().getBoolean("active"))) {
+          return Future.failedFuture("/saml/check of " + tenant + " returned " + response.statusCode() + " "
+            + response.bodyAsString());
+        }
+        return Future.succeededFuture();
+      });
+  }
+
+  /**
+   * @return duration in ms of the earliest event of the type for the tenant (null for none), -1 if there is none
+   */
+  private static long firstDuration(List<RecordedEvent> events, String tenant, String eventType) {
+    return events.stream()
+      .filter(event -> eventType.equals(event.getEventType().getName()))
+      .filter(event -> Objects.equals(tenant, event.getString("tenant")))
+      .min(Comparator.comparing(RecordedEvent::getStartTime))
+      .map(event -> event.getDuration().toMillis())
+      .orElse(-1L);
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get();
+  }
+}
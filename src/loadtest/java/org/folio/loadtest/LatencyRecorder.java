@@ -0,0 +1,46 @@
+package org.folio.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every latency of a step for exact percentiles; a load test run has few enough samples.
+ */
+public class LatencyRecorder {
+
+  private long[] nanos = new long[1024];
+  private int count;
+
+  public synchronized void record(long latencyNanos) {
+    if (count == nanos.length) {
+      nanos = Arrays.copyOf(nanos, count * 2);
+    }
+    nanos[count++] = latencyNanos;
+  }
+
+  public synchronized int getCount() {
+    return count;
+  }
+
+  /**
+   * @param percentile 0 to 100
+   * @return the latency in milliseconds that percentile per cent of the samples do not exceed, 0 without samples
+   */
+  public synchronized double percentileMillis(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long[] sorted = Arrays.copyOf(nanos, count);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100 * count) - 1;
+    return sorted[Math.max(0, Math.min(count - 1, index))] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * @return "count p50 p90 p99 max" line of a report table
+   */
+  public String summary(String step) {
+    return String.format("%-10s %8d %9.1f %9.1f %9.1f %9.1f", step, getCount(),
+      percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+  }
+}
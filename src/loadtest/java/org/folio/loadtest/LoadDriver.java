@@ -0,0 +1,201 @@
+package org.folio.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.folio.config.SamlResponseFactory;
+import org.folio.config.SamlResponseFactory.Spec;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.rest.impl.SamlAPI;
+
+/**
+ * Drives login and callback flows against mod-login-saml, {@code concurrency} at a time, round robin over
+ * the tenants.
+ *
+ * <p>A flow is POST /saml/login, the SAMLResponse of the synthetic IdP to its AuthnRequest for a new user, and
+ * POST /saml/callback with the relay state cookie of the login, as a browser would do it. The IdP signs on a
+ * worker thread; its time counts for the flow but not for login or callback.
+ */
+public class LoadDriver {
+
+  static final String STRIPES_URL = "http://localhost:3000/";
+
+  private final Vertx vertx;
+  private final WebClient webClient;
+  private final String okapiUrl;
+  private final SamlResponseFactory idp;
+  private final String[] tenants;
+  private final int attributes;
+  private final boolean encrypted;
+
+  private final LatencyRecorder login = new LatencyRecorder();
+  private final LatencyRecorder callback = new LatencyRecorder();
+  private final LatencyRecorder flow = new LatencyRecorder();
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+  /**
+   * @param attributes number of SAML attributes besides UserID
+   * @param encrypted whether the IdP encrypts the assertions
+   */
+  public LoadDriver(Vertx vertx, int modulePort, int concurrency, String okapiUrl, SamlResponseFactory idp,
+    List<String> tenants, int attributes, boolean encrypted) {
+
+    this.vertx = vertx;
+    this.webClient = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(modulePort)
+      .setMaxPoolSize(concurrency)
+      .setFollowRedirects(false));
+    this.okapiUrl = okapiUrl;
+    this.idp = idp;
+    this.tenants = tenants.toArray(new String[0]);
+    this.attributes = attributes;
+    this.encrypted = encrypted;
+  }
+
+  /**
+   * Run the flows; a failed flow is counted as error and does not stop the run.
+   *
+   * @return completes when all flows have ended
+   */
+  public Future<Void> run(int flows, int concurrency) {
+    Promise<Void> promise = Promise.promise();
+    AtomicInteger started = new AtomicInteger();
+    AtomicInteger ended = new AtomicInteger();
+    for (int i = 0; i < Math.min(flows, concurrency); i++) {
+      next(flows, started, ended, promise);
+    }
+    return promise.future();
+  }
+
+  private void next(int flows, AtomicInteger started, AtomicInteger ended, Promise<Void> promise) {
+    int index = started.getAndIncrement();
+    if (index >= flows) {
+      return;
+    }
+    flow(index).onComplete(x -> {
+      if (ended.incrementAndGet() == flows) {
+        promise.complete();
+      } else {
+        next(flows, started, ended, promise);
+      }
+    });
+  }
+
+  private Future<Void> flow(int index) {
+    String tenant = tenants[index % tenants.length];
+    String userId = "user" + index;
+    long flowStart = System.nanoTime();
+    return okapi(webClient.post("/saml/login"), tenant)
+      .sendJsonObject(new JsonObject().put("stripesUrl", STRIPES_URL))
+      .compose(response -> expect("login", 200, response, flowStart, login))
+      .compose(loginResponse -> vertx.<String>executeBlocking(promise ->
+          promise.complete(idp.responseTo(loginResponse.bodyAsJsonObject().getString("samlRequest"),
+            new Spec().withUserId(userId).withAttributes(attributes).withEncrypted(encrypted))), false)
+        .compose(samlResponse -> {
+          String relayState = loginResponse.bodyAsJsonObject().getString(SamlAPI.RELAY_STATE);
+          long callbackStart = System.nanoTime();
+          return okapi(webClient.post("/saml/callback"), tenant)
+            .putHeader("Cookie", relayStateCookie(loginResponse))
+            .sendForm(MultiMap.caseInsensitiveMultiMap()
+              .add("SAMLResponse", samlResponse)
+              .add("RelayState", relayState))
+            .compose(response -> expect("callback", 302, response, callbackStart, callback));
+        }))
+      .<Void>map(response -> {
+        flow.record(System.nanoTime() - flowStart);
+        return null;
+      })
+      .recover(e -> {
+        if (!(e instanceof StepFailure)) {
+          error(e.getClass().getSimpleName());
+        }
+        return Future.succeededFuture();
+      });
+  }
+
+  private HttpRequest<Buffer> okapi(HttpRequest<Buffer> request, String tenant) {
+    return request
+      .putHeader(XOkapiHeaders.TENANT, tenant)
+      .putHeader(XOkapiHeaders.TOKEN, "loadtest")
+      .putHeader(XOkapiHeaders.URL, okapiUrl);
+  }
+
+  private static String relayStateCookie(HttpResponse<Buffer> response) {
+    for (String setCookie : response.cookies()) {
+      if (setCookie.startsWith(SamlAPI.RELAY_STATE + "=")) {
+        int semicolon = setCookie.indexOf(';');
+        return semicolon < 0 ? setCookie : setCookie.substring(0, semicolon);
+      }
+    }
+    return "";
+  }
+
+  private Future<HttpResponse<Buffer>> expect(String step, int statusCode, HttpResponse<Buffer> response,
+    long start, LatencyRecorder recorder) {
+
+    if (response.statusCode() != statusCode) {
+      error(step + " " + response.statusCode());
+      return Future.failedFuture(new StepFailure());
+    }
+    recorder.record(System.nanoTime() - start);
+    return Future.succeededFuture(response);
+  }
+
+  private void error(String key) {
+    errors.computeIfAbsent(key, x -> new LongAdder()).increment();
+  }
+
+  public LatencyRecorder getLogin() {
+    return login;
+  }
+
+  public LatencyRecorder getCallback() {
+    return callback;
+  }
+
+  public LatencyRecorder getFlow() {
+    return flow;
+  }
+
+  /**
+   * @return number of failed flows per step and status code, or exception class
+   */
+  public Map<String, Long> getErrors() {
+    Map<String, Long> result = new TreeMap<>();
+    errors.forEach((key, counter) -> result.put(key, counter.sum()));
+    return result;
+  }
+
+  public long getErrorCount() {
+    return errors.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  public void close() {
+    webClient.close();
+  }
+
+  /**
+   * Unexpected status code, already counted.
+   */
+  private static class StepFailure extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    StepFailure() {
+      super(null, null, false, false);
+    }
+  }
+}
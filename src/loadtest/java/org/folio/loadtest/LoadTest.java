@@ -0,0 +1,116 @@
+package org.folio.loadtest;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.folio.config.SamlResponseFactory;
+import org.folio.rest.RestVerticle;
+import org.folio.rest.tools.utils.NetworkUtils;
+
+/**
+ * End-to-end load test of mod-login-saml: starts the module, the {@link OkapiStandIn} and a synthetic IdP in
+ * this JVM, runs the warm-up flows, then the measured flows of {@link LoadDriver}, and prints throughput and
+ * latency percentiles. Everything listens on localhost, no network access is needed.
+ *
+ * <p>{@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="tenants=20 concurrency=50 flows=10000"},
+ * see {@link LoadTestOptions} for all options. Exits with 1 if more measured flows failed than errors were
+ * injected.
+ */
+public class LoadTest {
+
+  private final LoadTestOptions options;
+  private final PrintStream out;
+
+  LoadTest(LoadTestOptions options, PrintStream out) {
+    this.options = options;
+    this.out = out;
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+      return;
+    }
+    Vertx vertx = Vertx.vertx();
+    int exitCode;
+    try {
+      exitCode = new LoadTest(options, System.out).run(vertx)
+        .toCompletionStage().toCompletableFuture().get();
+    } finally {
+      vertx.close();
+    }
+    System.exit(exitCode);
+  }
+
+  /**
+   * @return exit code
+   */
+  Future<Integer> run(Vertx vertx) {
+    int modulePort = options.getModulePort() == 0 ? NetworkUtils.nextFreePort() : options.getModulePort();
+    SamlResponseFactory idp = SamlResponseFactory.create();
+    OkapiStandIn okapi = new OkapiStandIn(options, idp);
+    List<String> tenants = new ArrayList<>(options.getTenants());
+    for (int i = 1; i <= options.getTenants(); i++) {
+      tenants.add("loadtest" + i);
+    }
+
+    return vertx.deployVerticle(okapi)
+      .compose(x -> vertx.deployVerticle(new RestVerticle(),
+        new DeploymentOptions().setConfig(new JsonObject().put("http.port", modulePort))))
+      .compose(x -> {
+        out.println("mod-login-saml load test " + options);
+        String okapiUrl = "http://localhost:" + okapi.getPort();
+        LoadDriver warmup = new LoadDriver(vertx, modulePort, options.getConcurrency(), okapiUrl, idp,
+          tenants, options.getAttributes(), options.isEncrypted());
+        return warmup.run(Math.max(options.getWarmupFlows(), options.getTenants()), options.getConcurrency())
+          .onComplete(y -> {
+            out.println("warm-up: " + warmup.getFlow().getCount() + " flows, errors " + warmup.getErrors());
+            warmup.close();
+          })
+          .compose(y -> {
+            Map<String, Long> injectedBefore = okapi.getInjectedErrors();
+            LoadDriver driver = new LoadDriver(vertx, modulePort, options.getConcurrency(), okapiUrl, idp,
+              tenants, options.getAttributes(), options.isEncrypted());
+            long start = System.nanoTime();
+            return driver.run(options.getFlows(), options.getConcurrency())
+              .map(z -> {
+                long nanos = System.nanoTime() - start;
+                driver.close();
+                long injected = subtract(okapi.getInjectedErrors(), injectedBefore);
+                report(driver, nanos, okapi, injected);
+                return driver.getErrorCount() > injected ? 1 : 0;
+              });
+          });
+      });
+  }
+
+  private void report(LoadDriver driver, long nanos, OkapiStandIn okapi, long injected) {
+    double seconds = nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    out.println(String.format("%d flows in %.1f s: %.1f flows/s, %d failed, %d errors injected",
+      options.getFlows(), seconds, driver.getFlow().getCount() / seconds, driver.getErrorCount(), injected));
+    out.println(String.format("%-10s %8s %9s %9s %9s %9s", "step", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+    out.println(driver.getLogin().summary("login"));
+    out.println(driver.getCallback().summary("callback"));
+    out.println(driver.getFlow().summary("flow"));
+    out.println("failed flows: " + driver.getErrors());
+    out.println("stand-in requests: " + okapi.getRequests());
+  }
+
+  private static long subtract(Map<String, Long> after, Map<String, Long> before) {
+    long sum = 0;
+    for (Map.Entry<String, Long> entry : after.entrySet()) {
+      sum += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+    }
+    return sum;
+  }
+}
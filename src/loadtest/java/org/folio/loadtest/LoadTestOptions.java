@@ -0,0 +1,150 @@
+package org.folio.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of the load test, given as {@code key=value} arguments.
+ *
+ * <p>{@code latencyMs}, {@code jitterMs} and {@code errorRate} apply to all stand-in services and can be
+ * overridden per service by prefixing the service name, for example {@code users.latencyMs=50}.
+ */
+public class LoadTestOptions {
+
+  static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+  static {
+    DEFAULTS.put("tenants", "10");
+    DEFAULTS.put("concurrency", "20");
+    DEFAULTS.put("flows", "2000");
+    DEFAULTS.put("warmupFlows", "200");
+    DEFAULTS.put("attributes", "5");
+    DEFAULTS.put("encrypted", "false");
+    DEFAULTS.put("modulePort", "0");
+    DEFAULTS.put("okapiPort", "0");
+    DEFAULTS.put("latencyMs", "0");
+    DEFAULTS.put("jitterMs", "0");
+    DEFAULTS.put("errorRate", "0");
+  }
+  private static final Set<String> FAULT_KEYS = Set.of("latencyMs", "jitterMs", "errorRate");
+  private static final Set<String> SERVICES = Set.of(
+    OkapiStandIn.CONFIGURATION, OkapiStandIn.USERS, OkapiStandIn.AUTHTOKEN);
+
+  private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+
+  /**
+   * @throws IllegalArgumentException on an argument that is not {@code key=value} or has an unknown key
+   */
+  public static LoadTestOptions parse(String... args) {
+    LoadTestOptions options = new LoadTestOptions();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals <= 0) {
+        throw new IllegalArgumentException("Expected key=value: " + arg);
+      }
+      String key = arg.substring(0, equals);
+      int dot = key.indexOf('.');
+      boolean known = dot < 0
+        ? DEFAULTS.containsKey(key)
+        : SERVICES.contains(key.substring(0, dot)) && FAULT_KEYS.contains(key.substring(dot + 1));
+      if (!known) {
+        throw new IllegalArgumentException("Unknown option " + key + ", known options: " + DEFAULTS.keySet()
+          + " and " + SERVICES + "." + FAULT_KEYS);
+      }
+      options.values.put(key, arg.substring(equals + 1));
+    }
+    if (options.getFlows() < 1 || options.getConcurrency() < 1 || options.getTenants() < 1) {
+      throw new IllegalArgumentException("tenants, concurrency and flows must be positive");
+    }
+    return options;
+  }
+
+  private int getInt(String key) {
+    return Integer.parseInt(values.get(key));
+  }
+
+  public int getTenants() {
+    return getInt("tenants");
+  }
+
+  /** number of flows in progress at any time */
+  public int getConcurrency() {
+    return getInt("concurrency");
+  }
+
+  /** number of measured login and callback flows */
+  public int getFlows() {
+    return getInt("flows");
+  }
+
+  /** number of flows before the measurement, they load the SAML clients and warm up the JIT */
+  public int getWarmupFlows() {
+    return getInt("warmupFlows");
+  }
+
+  /** number of SAML attributes besides UserID */
+  public int getAttributes() {
+    return getInt("attributes");
+  }
+
+  /** whether the IdP encrypts the assertions */
+  public boolean isEncrypted() {
+    return Boolean.parseBoolean(values.get("encrypted"));
+  }
+
+  /** 0 for a free port */
+  public int getModulePort() {
+    return getInt("modulePort");
+  }
+
+  /** 0 for a free port */
+  public int getOkapiPort() {
+    return getInt("okapiPort");
+  }
+
+  /**
+   * @param service one of the service names of {@link OkapiStandIn}
+   */
+  public Fault fault(String service) {
+    return new Fault(
+      Long.parseLong(value(service, "latencyMs")),
+      Long.parseLong(value(service, "jitterMs")),
+      Double.parseDouble(value(service, "errorRate")));
+  }
+
+  private String value(String service, String key) {
+    return values.getOrDefault(service + "." + key, values.get(key));
+  }
+
+  @Override
+  public String toString() {
+    return values.toString();
+  }
+
+  /**
+   * Latency and error injection of a stand-in service.
+   */
+  public static class Fault {
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+
+    Fault(long latencyMs, long jitterMs, double errorRate) {
+      this.latencyMs = latencyMs;
+      this.jitterMs = jitterMs;
+      this.errorRate = errorRate;
+    }
+
+    public long getLatencyMs() {
+      return latencyMs;
+    }
+
+    public long getJitterMs() {
+      return jitterMs;
+    }
+
+    public double getErrorRate() {
+      return errorRate;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package org.folio.loadtest;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.config.SamlResponseFactory;
+import org.folio.okapi.common.XOkapiHeaders;
+
+/**
+ * Plays Okapi and the modules mod-login-saml calls: mod-configuration, mod-users and mod-authtoken.
+ *
+ * <p>Every tenant gets the SAML configuration of {@link SamlResponseFactory}: its IdP metadata inline,
+ * the keystore of mock_content.json and POST binding. /users finds an active user for any query, /token
+ * issues a token in the X-Okapi-Token header as mod-authtoken v1 does.
+ *
+ * <p>Each service delays its responses by {@code latencyMs} plus a random jitter up to {@code jitterMs} and
+ * fails with 500 at {@code errorRate} (0 to 1); see {@link LoadTestOptions#fault}.
+ */
+public class OkapiStandIn extends AbstractVerticle {
+
+  /** service names used for fault options and the request counters */
+  public static final String CONFIGURATION = "configuration";
+  public static final String USERS = "users";
+  public static final String AUTHTOKEN = "authtoken";
+
+  private static final Logger log = LogManager.getLogger(OkapiStandIn.class);
+
+  private final LoadTestOptions options;
+  private final JsonArray configs;
+  private final Map<String, LoadTestOptions.Fault> faults = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> injectedErrors = new ConcurrentHashMap<>();
+  private volatile int port;
+
+  public OkapiStandIn(LoadTestOptions options, SamlResponseFactory factory) {
+    this.options = options;
+    this.configs = new JsonArray()
+      .add(config("idp.url", SamlResponseFactory.IDP_SSO_URL))
+      .add(config("idp.metadata", factory.idpMetadata()))
+      .add(config("keystore.file", factory.getKeystoreBase64()))
+      .add(config("keystore.password", factory.getKeystorePassword()))
+      .add(config("keystore.privatekey.password", factory.getPrivateKeyPassword()))
+      .add(config("saml.binding", "POST"))
+      .add(config("metadata.invalidated", "false"))
+      .add(config("okapi.url", SamlResponseFactory.OKAPI_URL));
+  }
+
+  private static JsonObject config(String code, String value) {
+    return new JsonObject()
+      .put("id", UUID.nameUUIDFromBytes(code.getBytes()).toString())
+      .put("module", "LOGIN-SAML")
+      .put("configName", "saml")
+      .put("code", code)
+      .put("value", value);
+  }
+
+  @Override
+  public void start(Promise<Void> promise) {
+    Router router = Router.router(vertx);
+    router.route().handler(BodyHandler.create());
+    router.get("/configurations/entries").handler(ctx -> fault(CONFIGURATION, ctx, this::handleConfigurations));
+    router.get("/users").handler(ctx -> fault(USERS, ctx, this::handleUsers));
+    router.post("/token").handler(ctx -> fault(AUTHTOKEN, ctx, this::handleToken));
+    router.route().handler(ctx -> ctx.response().setStatusCode(404).end("Not found in Okapi stand-in: "
+      + ctx.request().method() + " " + ctx.request().path()));
+    vertx.createHttpServer()
+      .requestHandler(router)
+      .listen(options.getOkapiPort())
+      .onSuccess(server -> {
+        port = server.actualPort();
+        log.info("Okapi stand-in listening on port {}", port);
+      })
+      .<Void>mapEmpty()
+      .onComplete(promise);
+  }
+
+  /**
+   * Count the request and run the handler after the service's latency, or fail it at the service's error rate.
+   */
+  private void fault(String service, RoutingContext ctx, Consumer<RoutingContext> handler) {
+    requests.computeIfAbsent(service, x -> new LongAdder()).increment();
+    LoadTestOptions.Fault fault = faults.computeIfAbsent(service, options::fault);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long delay = fault.getLatencyMs() + (fault.getJitterMs() > 0 ? random.nextLong(fault.getJitterMs() + 1) : 0);
+    boolean fail = fault.getErrorRate() > 0 && random.nextDouble() < fault.getErrorRate();
+    Runnable respond = () -> {
+      if (fail) {
+        injectedErrors.computeIfAbsent(service, x -> new LongAdder()).increment();
+        ctx.response().setStatusCode(500).putHeader("Content-Type", "text/plain").end("Injected " + service + " error");
+      } else {
+        handler.accept(ctx);
+      }
+    };
+    if (delay <= 0) {
+      respond.run();
+    } else {
+      vertx.setTimer(delay, timerId -> respond.run());
+    }
+  }
+
+  private void handleConfigurations(RoutingContext ctx) {
+    String query = ctx.request().getParam("query");
+    JsonArray result = new JsonArray();
+    for (Object entry : configs) {
+      String code = ((JsonObject) entry).getString("code");
+      // the whole configuration, or the entry of a single "code== ..." query
+      if (query == null || !query.contains("code==") || query.matches(".*code==\\s*" + code.replace(".", "\\.") + "\\).*")) {
+        result.add(entry);
+      }
+    }
+    json(ctx, new JsonObject().put("configs", result).put("totalRecords", result.size()));
+  }
+
+  private void handleUsers(RoutingContext ctx) {
+    String tenant = ctx.request().getHeader(XOkapiHeaders.TENANT);
+    JsonObject user = new JsonObject()
+      .put("id", UUID.nameUUIDFromBytes((tenant + ctx.request().getParam("query")).getBytes()).toString())
+      .put("username", "loadtest")
+      .put("active", true);
+    json(ctx, new JsonObject().put("users", new JsonArray().add(user)).put("totalRecords", 1));
+  }
+
+  private void handleToken(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(XOkapiHeaders.TOKEN, "loadtest-" + UUID.randomUUID())
+      .end();
+  }
+
+  private static void json(RoutingContext ctx, JsonObject body) {
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader("Content-Type", "application/json")
+      .end(body.encode());
+  }
+
+  /**
+   * @return the port listened on, once started
+   */
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * @return number of requests per service, including failed ones
+   */
+  public Map<String, Long> getRequests() {
+    return sums(requests);
+  }
+
+  /**
+   * @return number of injected 500 errors per service
+   */
+  public Map<String, Long> getInjectedErrors() {
+    return sums(injectedErrors);
+  }
+
+  private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+    Map<String, Long> result = new TreeMap<>();
+    counters.forEach((service, counter) -> result.put(service, counter.sum()));
+    return result;
+  }
+}
@@ -0,0 +1,82 @@
+package org.folio.config;
+
+import java.time.Instant;
+import net.shibboleth.utilities.java.support.xml.DOMTypeSupport;
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.saml2.core.AuthnRequest;
+
+/**
+ * Serialized unsigned AuthnRequest of a tenant with placeholders for ID and IssueInstant,
+ * the only parts that vary per login.
+ *
+ * <p>Rendering is string concatenation, no XMLObject graph is built, marshalled or serialized.
+ * Only valid for unsigned requests, a signature covers ID and IssueInstant.
+ */
+public class AuthnRequestTemplate {
+
+  static final String ID_PLACEHOLDER = "_folio-authn-request-id";
+  static final Instant ISSUE_INSTANT_PLACEHOLDER = Instant.EPOCH;
+
+  private final String destination;
+  private final String prefix;
+  private final String middle;
+  private final String suffix;
+  private final boolean idFirst;
+
+  private AuthnRequestTemplate(String destination, String prefix, String middle, String suffix, boolean idFirst) {
+    this.destination = destination;
+    this.prefix = prefix;
+    this.middle = middle;
+    this.suffix = suffix;
+    this.idFirst = idFirst;
+  }
+
+  /**
+   * Create template from a fully built, unsigned AuthnRequest. ID and IssueInstant of the request
+   * are overwritten with placeholders.
+   */
+  public static AuthnRequestTemplate of(AuthnRequest authnRequest) throws MarshallingException {
+    authnRequest.setID(ID_PLACEHOLDER);
+    authnRequest.setIssueInstant(ISSUE_INSTANT_PLACEHOLDER);
+    String xml = SerializeSupport.nodeToString(XMLObjectSupport.marshall(authnRequest));
+    return of(authnRequest.getDestination(), xml);
+  }
+
+  static AuthnRequestTemplate of(String destination, String xml) {
+    String idAttribute = "ID=\"" + ID_PLACEHOLDER + "\"";
+    String instantAttribute = "IssueInstant=\"" + DOMTypeSupport.instantToString(ISSUE_INSTANT_PLACEHOLDER) + "\"";
+    int idStart = xml.indexOf(idAttribute);
+    int instantStart = xml.indexOf(instantAttribute);
+    if (idStart < 0 || instantStart < 0) {
+      throw new IllegalArgumentException("ID or IssueInstant placeholder not found in AuthnRequest");
+    }
+    int idValueStart = idStart + "ID=\"".length();
+    int idValueEnd = idValueStart + ID_PLACEHOLDER.length();
+    int instantValueStart = instantStart + "IssueInstant=\"".length();
+    int instantValueEnd = instantStart + instantAttribute.length() - 1;
+    if (idStart < instantStart) {
+      return new AuthnRequestTemplate(destination, xml.substring(0, idValueStart),
+        xml.substring(idValueEnd, instantValueStart), xml.substring(instantValueEnd), true);
+    }
+    return new AuthnRequestTemplate(destination, xml.substring(0, instantValueStart),
+      xml.substring(instantValueEnd, idValueStart), xml.substring(idValueEnd), false);
+  }
+
+  public String getDestination() {
+    return destination;
+  }
+
+  /**
+   * @return serialized AuthnRequest with the given ID and IssueInstant
+   */
+  public String render(String id, Instant issueInstant) {
+    String instant = DOMTypeSupport.instantToString(issueInstant);
+    String first = idFirst ? id : instant;
+    String second = idFirst ? instant : id;
+    return new StringBuilder(prefix.length() + middle.length() + suffix.length() + first.length() + second.length())
+      .append(prefix).append(first).append(middle).append(second).append(suffix)
+      .toString();
+  }
+}
@@ -0,0 +1,155 @@
+package org.folio.config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
+import net.shibboleth.utilities.java.support.resolver.Criterion;
+import net.shibboleth.utilities.java.support.resolver.ResolverException;
+import org.opensaml.core.criterion.EntityIdCriterion;
+import org.opensaml.saml.criterion.EntityRoleCriterion;
+import org.opensaml.saml.criterion.ProtocolCriterion;
+import org.opensaml.saml.metadata.resolver.MetadataResolver;
+import org.opensaml.saml.metadata.resolver.RefreshableMetadataResolver;
+import org.opensaml.saml.metadata.resolver.impl.PredicateRoleDescriptorResolver;
+import org.opensaml.saml.security.impl.MetadataCredentialResolver;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.credential.CredentialResolver;
+import org.opensaml.security.criteria.UsageCriterion;
+import org.opensaml.xmlsec.config.impl.DefaultSecurityConfigurationBootstrap;
+import org.opensaml.xmlsec.keyinfo.KeyInfoCredentialResolver;
+import org.opensaml.xmlsec.signature.support.SignatureTrustEngine;
+import org.opensaml.xmlsec.signature.support.impl.ExplicitKeySignatureTrustEngine;
+import org.pac4j.saml.crypto.SignatureTrustEngineProvider;
+import org.pac4j.saml.exceptions.SAMLException;
+
+/**
+ * {@link SignatureTrustEngineProvider} that builds the trust engine once and caches the IdP
+ * credentials it resolves from metadata.
+ *
+ * <p>pac4j's ExplicitSignatureTrustEngineProvider creates new resolvers for every validated
+ * response, which then extract the IdP certificates from metadata again. Here engine and credential
+ * cache are rebuilt only when the last update time of the metadata resolver changes.
+ */
+public class CachingSignatureTrustEngineProvider implements SignatureTrustEngineProvider {
+
+  /** the cache is cleared when it exceeds this number of criteria sets */
+  static final int MAX_CACHE_SIZE = 64;
+
+  private final MetadataResolver metadataResolver;
+  private volatile Snapshot snapshot;
+
+  public CachingSignatureTrustEngineProvider(MetadataResolver metadataResolver) {
+    this.metadataResolver = metadataResolver;
+  }
+
+  @Override
+  public SignatureTrustEngine build() {
+    Instant lastUpdate = lastUpdate();
+    Snapshot current = snapshot;
+    if (current == null || !Objects.equals(current.lastUpdate, lastUpdate)) {
+      current = new Snapshot(buildEngine(), lastUpdate);
+      snapshot = current;
+    }
+    return current.engine;
+  }
+
+  private Instant lastUpdate() {
+    if (metadataResolver instanceof RefreshableMetadataResolver) {
+      return ((RefreshableMetadataResolver) metadataResolver).getLastUpdate();
+    }
+    return null;
+  }
+
+  private SignatureTrustEngine buildEngine() {
+    MetadataCredentialResolver metadataCredentialResolver = new MetadataCredentialResolver();
+    PredicateRoleDescriptorResolver roleResolver = new PredicateRoleDescriptorResolver(metadataResolver);
+    KeyInfoCredentialResolver keyResolver = DefaultSecurityConfigurationBootstrap.buildBasicInlineKeyInfoCredentialResolver();
+    metadataCredentialResolver.setKeyInfoCredentialResolver(keyResolver);
+    metadataCredentialResolver.setRoleDescriptorResolver(roleResolver);
+    try {
+      metadataCredentialResolver.initialize();
+      roleResolver.initialize();
+    } catch (ComponentInitializationException e) {
+      throw new SAMLException("Failed to initialize metadataCredentialResolver/roleResolver", e);
+    }
+    return new ExplicitKeySignatureTrustEngine(new CachingCredentialResolver(metadataCredentialResolver), keyResolver);
+  }
+
+  private static class Snapshot {
+    private final SignatureTrustEngine engine;
+    private final Instant lastUpdate;
+
+    Snapshot(SignatureTrustEngine engine, Instant lastUpdate) {
+      this.engine = engine;
+      this.lastUpdate = lastUpdate;
+    }
+  }
+
+  /**
+   * Caches the credentials per criteria set. Only criteria sets consisting of criteria with value
+   * semantics (entity id, role, protocol, usage) are cached, others are passed through.
+   */
+  static class CachingCredentialResolver implements CredentialResolver {
+    private final CredentialResolver delegate;
+    private final Map<Set<Criterion>, List<Credential>> cache = new ConcurrentHashMap<>();
+
+    CachingCredentialResolver(CredentialResolver delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Iterable<Credential> resolve(CriteriaSet criteria) throws ResolverException {
+      if (!isCacheable(criteria)) {
+        return delegate.resolve(criteria);
+      }
+      Set<Criterion> key = Set.copyOf(criteria);
+      List<Credential> credentials = cache.get(key);
+      if (credentials != null) {
+        return credentials;
+      }
+      credentials = new ArrayList<>();
+      for (Credential credential : delegate.resolve(criteria)) {
+        credentials.add(credential);
+      }
+      credentials = List.copyOf(credentials);
+      if (cache.size() >= MAX_CACHE_SIZE) {
+        cache.clear();
+      }
+      cache.put(key, credentials);
+      return credentials;
+    }
+
+    @Override
+    public Credential resolveSingle(CriteriaSet criteria) throws ResolverException {
+      for (Credential credential : resolve(criteria)) {
+        return credential;
+      }
+      return null;
+    }
+
+    int size() {
+      return cache.size();
+    }
+
+    private static boolean isCacheable(CriteriaSet criteria) {
+      if (criteria == null || criteria.isEmpty()) {
+        return false;
+      }
+      for (Criterion criterion : criteria) {
+        if (!(criterion instanceof EntityIdCriterion
+            || criterion instanceof EntityRoleCriterion
+            || criterion instanceof ProtocolCriterion
+            || criterion instanceof UsageCriterion)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.folio.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.util.EnvUtil;
+
+/**
+ * Limits how often the SAML client of a tenant is invalidated and reloaded, so that a burst of
+ * failures doesn't cause a storm of client reloads.
+ *
+ * <p>Fixed window per tenant: at most {@code SAML_CLIENT_INVALIDATION_LIMIT} invalidations per
+ * {@code SAML_CLIENT_INVALIDATION_WINDOW_SECONDS}.
+ */
+public class ClientInvalidationLimiter {
+
+  public static final int DEFAULT_LIMIT = 5;
+  public static final long DEFAULT_WINDOW_SECONDS = 60;
+
+  private static final Logger log = LogManager.getLogger(ClientInvalidationLimiter.class);
+  private static final ClientInvalidationLimiter instance = new ClientInvalidationLimiter(
+    EnvUtil.getInt("SAML_CLIENT_INVALIDATION_LIMIT", DEFAULT_LIMIT),
+    TimeUnit.SECONDS.toNanos(EnvUtil.getLong("SAML_CLIENT_INVALIDATION_WINDOW_SECONDS", DEFAULT_WINDOW_SECONDS)),
+    System::nanoTime);
+
+  private final int limit;
+  private final long windowNanos;
+  private final LongSupplier clock;
+  private final ConcurrentMap<String, TenantWindow> windows = new ConcurrentHashMap<>(); // key: tenantId
+
+  ClientInvalidationLimiter(int limit, long windowNanos, LongSupplier clock) {
+    this.limit = limit;
+    this.windowNanos = windowNanos;
+    this.clock = clock;
+  }
+
+  public static ClientInvalidationLimiter getInstance() {
+    return instance;
+  }
+
+  /**
+   * Record an invalidation of the tenant's client if the limit of the current window allows it.
+   *
+   * @return true if the client may be invalidated, false if the invalidation is suppressed
+   */
+  public boolean tryAcquire(String tenantId) {
+    TenantWindow window = windows.computeIfAbsent(tenantId, key -> new TenantWindow());
+    if (window.tryAcquire(clock.getAsLong(), limit, windowNanos)) {
+      window.allowed.increment();
+      return true;
+    }
+    window.suppressed.increment();
+    log.warn("SAML client invalidation of tenant {} suppressed, more than {} within {} s",
+      tenantId, limit, TimeUnit.NANOSECONDS.toSeconds(windowNanos));
+    return false;
+  }
+
+  /**
+   * @return number of invalidations that have been allowed for the tenant since start
+   */
+  public long getAllowed(String tenantId) {
+    TenantWindow window = windows.get(tenantId);
+    return window == null ? 0 : window.allowed.sum();
+  }
+
+  /**
+   * @return number of invalidations that have been suppressed for the tenant since start
+   */
+  public long getSuppressed(String tenantId) {
+    TenantWindow window = windows.get(tenantId);
+    return window == null ? 0 : window.suppressed.sum();
+  }
+
+  /**
+   * Forget window and counters of the tenant.
+   */
+  public void reset(String tenantId) {
+    windows.remove(tenantId);
+  }
+
+  private static class TenantWindow {
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private long windowStart;
+    private int count;
+    private boolean started;
+
+    synchronized boolean tryAcquire(long now, int limit, long windowNanos) {
+      if (!started || now - windowStart >= windowNanos) {
+        started = true;
+        windowStart = now;
+        count = 0;
+      }
+      if (count >= limit) {
+        return false;
+      }
+      count++;
+      return true;
+    }
+  }
+}
@@ -8,9 +8,13 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
 import org.apache.commons.lang3.StringUtils;
 import org.folio.config.model.SamlConfiguration;
+import org.folio.metrics.SamlMetrics;
+import org.folio.metrics.SamlMetrics.Phase;
 import org.folio.okapi.common.GenericCompositeFuture;
 import org.folio.okapi.common.WebClientFactory;
 import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.tracing.Tracer;
+import org.folio.util.DownstreamException;
 import org.folio.util.PercentCodec;
 import org.folio.util.model.OkapiHeaders;
 import org.springframework.util.Assert;
@@ -54,7 +58,8 @@ public class ConfigurationsClient {
   public static Future<SamlConfiguration> getConfiguration(Vertx vertx, OkapiHeaders okapiHeaders) {
     String query = "(module==" + MODULE_NAME + " AND configName==" + CONFIG_NAME + ")";
 
-    return checkConfig(vertx, okapiHeaders, query)
+    return SamlMetrics.getInstance().time(Phase.CONFIG_FETCH, okapiHeaders.getTenant(),
+        () -> checkConfig(vertx, okapiHeaders, query))
       .compose(configs -> ConfigurationObjectMapper.map(configs, SamlConfiguration.class));
   }
 
@@ -89,29 +94,33 @@ public class ConfigurationsClient {
         HttpMethod httpMethod = configId == null ? HttpMethod.POST : HttpMethod.PUT;
         String endpoint = configId == null ? CONFIGURATIONS_ENTRIES_ENDPOINT_URL : CONFIGURATIONS_ENTRIES_ENDPOINT_URL + "/" + configId;
 
-        return WebClientFactory.getWebClient(vertx)
-          .requestAbs(httpMethod, okapiHeaders.getUrl() + endpoint)
-          .putHeader(XOkapiHeaders.TOKEN, okapiHeaders.getToken())
-          .putHeader(XOkapiHeaders.URL, okapiHeaders.getUrl())
-          .putHeader(XOkapiHeaders.TENANT, okapiHeaders.getTenant())
-          .expect(ResponsePredicate.status(201, 205))
-          .sendJsonObject(requestBody)
-          .mapEmpty();
+        return Tracer.getInstance().<Void>trace(httpMethod + " " + CONFIGURATIONS_ENTRIES_ENDPOINT_URL, okapiHeaders, headers ->
+          Tracer.inject(WebClientFactory.getWebClient(vertx)
+            .requestAbs(httpMethod, headers.getUrl() + endpoint)
+            .putHeader(XOkapiHeaders.TOKEN, headers.getToken())
+            .putHeader(XOkapiHeaders.URL, headers.getUrl())
+            .putHeader(XOkapiHeaders.TENANT, headers.getTenant()), headers)
+            .expect(ResponsePredicate.status(201, 205))
+            .sendJsonObject(requestBody)
+            .recover(DownstreamException::failedFuture)
+            .mapEmpty());
       });
   }
 
   public static Future<JsonArray> checkConfig(Vertx vertx, OkapiHeaders okapiHeaders, String query) {
     verifyOkapiHeaders(okapiHeaders);
     CharSequence encodedQuery = PercentCodec.encode(query);
-    return WebClientFactory.getWebClient(vertx)
-      .getAbs(okapiHeaders.getUrl() + CONFIGURATIONS_ENTRIES_ENDPOINT_URL + "?query=" + encodedQuery)
-      .putHeader(XOkapiHeaders.TOKEN, okapiHeaders.getToken())
-      .putHeader(XOkapiHeaders.URL, okapiHeaders.getUrl())
-      .putHeader(XOkapiHeaders.TENANT, okapiHeaders.getTenant())
-      .expect(ResponsePredicate.SC_OK)
-      .expect(ResponsePredicate.JSON)
-      .send()
-      .map(res -> res.bodyAsJsonObject().getJsonArray("configs"));
+    return Tracer.getInstance().trace("GET " + CONFIGURATIONS_ENTRIES_ENDPOINT_URL, okapiHeaders, headers ->
+      Tracer.inject(WebClientFactory.getWebClient(vertx)
+        .getAbs(headers.getUrl() + CONFIGURATIONS_ENTRIES_ENDPOINT_URL + "?query=" + encodedQuery)
+        .putHeader(XOkapiHeaders.TOKEN, headers.getToken())
+        .putHeader(XOkapiHeaders.URL, headers.getUrl())
+        .putHeader(XOkapiHeaders.TENANT, headers.getTenant()), headers)
+        .expect(ResponsePredicate.SC_OK)
+        .expect(ResponsePredicate.JSON)
+        .send()
+        .map(res -> res.bodyAsJsonObject().getJsonArray("configs"))
+        .recover(DownstreamException::failedFuture));
   }
   /**
    * Complete future with found config entry id, or null, if not found
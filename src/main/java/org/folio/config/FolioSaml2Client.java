@@ -0,0 +1,72 @@
+package org.folio.config;
+
+import org.folio.jfr.ClientInitEvent;
+import org.folio.jfr.MetadataFetchEvent;
+import org.opensaml.saml.metadata.resolver.MetadataResolver;
+import org.pac4j.saml.client.SAML2Client;
+import org.pac4j.saml.config.SAML2Configuration;
+import org.pac4j.saml.crypto.LogOnlySignatureTrustEngineProvider;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * {@link SAML2Client} that validates signatures with a {@link CachingSignatureTrustEngineProvider}.
+ *
+ * <p>The decrypter with the SP private key is built once per client by pac4j already. A new client
+ * is created whenever the tenant's configuration changes, so all caches start empty then.
+ *
+ * <p>The pac4j initialization is recorded as {@link ClientInitEvent}, resolving the IdP metadata during it
+ * as {@link MetadataFetchEvent}.
+ */
+public class FolioSaml2Client extends SAML2Client {
+
+  public FolioSaml2Client(final SAML2Configuration cfg) {
+    super(cfg);
+  }
+
+  @Override
+  protected void internalInit(final boolean forceReinit) {
+    ClientInitEvent event = new ClientInitEvent();
+    event.begin();
+    boolean success = false;
+    try {
+      super.internalInit(forceReinit);
+      success = true;
+    } finally {
+      event.complete(getName(), success, () -> 0);
+    }
+  }
+
+  @Override
+  protected MetadataResolver initIdentityProviderMetadataResolver() {
+    MetadataFetchEvent event = new MetadataFetchEvent();
+    event.begin();
+    try {
+      MetadataResolver metadataResolver = super.initIdentityProviderMetadataResolver();
+      event.complete(getName(), true, this::storedMetadataSize);
+      return metadataResolver;
+    } catch (RuntimeException e) {
+      event.complete(getName(), false, () -> 0);
+      throw e;
+    }
+  }
+
+  /**
+   * Size of the IdP metadata stored in the configuration, 0 if it is fetched from the IdP URL.
+   */
+  private long storedMetadataSize() {
+    Resource resource = this.configuration.getIdentityProviderMetadataResource();
+    if (resource instanceof ByteArrayResource) {
+      return ((ByteArrayResource) resource).getByteArray().length;
+    }
+    return 0;
+  }
+
+  @Override
+  protected void initSignatureTrustEngineProvider(final MetadataResolver metadataManager) {
+    this.signatureTrustEngineProvider = new CachingSignatureTrustEngineProvider(metadataManager);
+    if (this.configuration.isAllSignatureValidationDisabled()) {
+      this.signatureTrustEngineProvider = new LogOnlySignatureTrustEngineProvider(this.signatureTrustEngineProvider);
+    }
+  }
+}
@@ -1,32 +1,57 @@
 package org.folio.config;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.jfr.AuthnRequestEvent;
+import org.folio.jfr.SamlEvent;
 import org.folio.rest.jaxrs.model.SamlLogin;
+import org.folio.util.RedirectBindingEncoder;
 import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.messaging.context.MessageContext;
+import org.opensaml.saml.common.binding.security.impl.SAMLOutboundProtocolMessageSigningHandler;
 import org.opensaml.saml.common.xml.SAMLConstants;
+import org.opensaml.saml.metadata.resolver.MetadataResolver;
+import org.opensaml.saml.metadata.resolver.RefreshableMetadataResolver;
 import org.opensaml.saml.saml2.core.AuthnRequest;
+import org.opensaml.saml.saml2.metadata.IDPSSODescriptor;
+import org.opensaml.xmlsec.SignatureSigningParameters;
+import org.opensaml.xmlsec.context.SecurityParametersContext;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.exception.http.RedirectionAction;
-import org.pac4j.core.exception.http.OkAction;
 import org.pac4j.core.exception.http.StatusAction;
 import org.pac4j.core.redirect.RedirectionActionBuilder;
 import org.pac4j.core.util.CommonHelper;
 import org.pac4j.saml.client.SAML2Client;
 import org.pac4j.saml.context.SAML2MessageContext;
+import org.pac4j.saml.metadata.SAML2MetadataResolver;
 import org.pac4j.saml.sso.impl.SAML2AuthnRequestBuilder;
+import org.pac4j.saml.store.EmptyStoreFactory;
+import org.pac4j.saml.store.SAMLMessageStore;
 import org.pac4j.saml.transport.Pac4jSAMLResponse;
-import io.vertx.core.json.Json;
-import net.shibboleth.utilities.java.support.codec.Base64Support;
+import org.pac4j.saml.util.SAML2Utils;
+import org.w3c.dom.Element;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 
 /**
- * Builds a {@link RedirectionAction} that contains a JSON-serialized {@link SamlLogin} object instead of
+ * Builds a {@link SamlLoginAction} that contains a {@link SamlLogin} object instead of
  * HTML content. Always contains content (in redirect binding case too).
  *
+ * <p>An unsigned request is rendered from a per client {@link AuthnRequestTemplate}, for redirect
+ * binding it is encoded into the URL by {@link RedirectBindingEncoder}. The template is built on
+ * first use; a new client, created on configuration change, starts without one. The template is
+ * dropped when the IdP metadata is refreshed, as this may change the SSO URL or WantAuthnRequestsSigned.
+ *
+ * <p>A rendered request bypasses pac4j's profile handler: no outbound message handlers run and the
+ * request is not put into the SAML message store. Therefore a template is only used if the client's
+ * message store is pac4j's default {@link EmptyStoreFactory}.
+ *
  * @author rsass
  */
 public class JsonReponseSaml2RedirectActionBuilder implements RedirectionActionBuilder {
@@ -34,48 +59,205 @@ public class JsonReponseSaml2RedirectActionBuilder implements RedirectionActionB
   private static final Logger log = LogManager.getLogger(JsonReponseSaml2RedirectActionBuilder.class);
 
   private final SAML2Client client;
+  private final boolean templateEnabled;
+  private volatile TemplateState templateState;
 
   public JsonReponseSaml2RedirectActionBuilder(final SAML2Client client) {
+    this(client, true);
+  }
+
+  JsonReponseSaml2RedirectActionBuilder(final SAML2Client client, boolean templateEnabled) {
     CommonHelper.assertNotNull("client", client);
     this.client = client;
+    this.templateEnabled = templateEnabled;
+  }
+
+  /**
+   * Drop the AuthnRequest template, the next login builds a new one.
+   */
+  public void invalidateTemplate() {
+    templateState = null;
+  }
+
+  AuthnRequestTemplate getTemplate() {
+    TemplateState state = templateState;
+    return state == null ? null : state.template;
   }
 
   @Override
   public Optional<RedirectionAction> getRedirectionAction(WebContext webContext, SessionStore sessionStore) {
+    final AuthnRequestEvent event = new AuthnRequestEvent();
+    event.begin();
     try {
-      final SAML2AuthnRequestBuilder  saml2ObjectBuilder = new SAML2AuthnRequestBuilder();
-      final SAML2MessageContext context = this.client.getContextProvider().buildContext(client, webContext, sessionStore);
       final String relayState = this.client.getStateGenerator().generateValue(webContext, sessionStore);
+      final boolean postBinding = this.client.getConfiguration().getAuthnRequestBindingType()
+          .equalsIgnoreCase(SAMLConstants.SAML2_POST_BINDING_URI);
+      event.setBinding(postBinding ? "POST" : "REDIRECT");
 
-      final AuthnRequest authnRequest = saml2ObjectBuilder.build(context);
-      String destination = authnRequest.getDestination();
+      SamlLogin samlLogin;
+      Instant metadataUpdate = metadataLastUpdate();
+      TemplateState state = templateState;
+      if (state != null && !Objects.equals(state.metadataUpdate, metadataUpdate)) {
+        // IdP metadata refreshed since the state was derived from it
+        templateState = null;
+        state = null;
+      }
+      if (state != null && state.template != null) {
+        event.setTemplate(true);
+        samlLogin = templateLogin(state.template, relayState, postBinding);
+      } else {
+        samlLogin = buildSamlLogin(webContext, sessionStore, relayState, postBinding, state, metadataUpdate);
+      }
+      event.complete(client.getName(), true, () -> payloadSize(samlLogin));
+      return Optional.of(new SamlLoginAction(samlLogin));
+    } catch (Exception e) {
+      event.complete(client.getName(), false, () -> 0);
+      log.error("Exception processing SAML login request: {}", e.getMessage(), e);
+      throw new StatusAction(500);
+    }
+  }
+
+  private static long payloadSize(SamlLogin samlLogin) {
+    if (samlLogin.getSamlRequest() != null) {
+      return SamlEvent.utf8Length(samlLogin.getSamlRequest());
+    }
+    return SamlEvent.utf8Length(samlLogin.getLocation());
+  }
 
-      // Signature, etc.
-      this.client.getProfileHandler().send(context, authnRequest, relayState);
-      final Pac4jSAMLResponse adapter = context.getProfileRequestContextOutboundMessageTransportResponse();
+  /**
+   * @return lastUpdate of the IdP metadata if its resolver is refreshable, null otherwise
+   */
+  private Instant metadataLastUpdate() {
+    SAML2MetadataResolver idpMetadataResolver = client.getIdentityProviderMetadataResolver();
+    MetadataResolver metadataResolver = idpMetadataResolver == null ? null : idpMetadataResolver.resolve();
+    if (metadataResolver instanceof RefreshableMetadataResolver) {
+      return ((RefreshableMetadataResolver) metadataResolver).getLastUpdate();
+    }
+    return null;
+  }
+
+  private boolean isTemplateAllowed() {
+    return templateEnabled
+      && client.getConfiguration().getSamlMessageStoreFactory() instanceof EmptyStoreFactory;
+  }
 
+  private SamlLogin buildSamlLogin(WebContext webContext, SessionStore sessionStore, String relayState,
+    boolean postBinding, TemplateState state, Instant metadataUpdate) throws Exception {
 
-      SamlLogin samlLogin = new SamlLogin();
-      if (this.client.getConfiguration().getAuthnRequestBindingType().equalsIgnoreCase(SAMLConstants.SAML2_POST_BINDING_URI)) {
+    final SAML2AuthnRequestBuilder  saml2ObjectBuilder = new SAML2AuthnRequestBuilder();
+    final SAML2MessageContext context = this.client.getContextProvider().buildContext(client, webContext, sessionStore);
 
-        String authnResuestAsString = SerializeSupport.nodeToString(XMLObjectSupport.marshall(authnRequest));
-        String b64authnRequest = Base64Support.encode(authnResuestAsString.getBytes(StandardCharsets.UTF_8), Base64Support.UNCHUNKED);
+    final AuthnRequest authnRequest = saml2ObjectBuilder.build(context);
+    String destination = authnRequest.getDestination();
 
-        samlLogin.setBindingMethod(SamlLogin.BindingMethod.POST);
-        samlLogin.setLocation(destination);
-        samlLogin.setSamlRequest(b64authnRequest);
-        samlLogin.setRelayState(relayState);
+    if (state == null && isTemplateAllowed()) {
+      if (isSigningRequired(context)) {
+        templateState = new TemplateState(null, metadataUpdate);
       } else {
-        String redirectUrl = adapter.getRedirectUrl();
-        samlLogin.setBindingMethod(SamlLogin.BindingMethod.GET);
-        samlLogin.setLocation(redirectUrl);
+        // use the AuthnRequest as template, this and all following requests are rendered from it
+        AuthnRequestTemplate newTemplate = AuthnRequestTemplate.of(authnRequest);
+        templateState = new TemplateState(newTemplate, metadataUpdate);
+        return templateLogin(newTemplate, relayState, postBinding);
       }
+    }
 
-      return Optional.of(new OkAction(Json.encode(samlLogin)));
-    } catch (Exception e) {
-      log.error("Exception processing SAML login request: {}", e.getMessage(), e);
-      throw new StatusAction(500);
+    if (postBinding) {
+      if (isSigningRequired(context)) {
+        sign(context, authnRequest);
+      }
+      SAMLMessageStore messageStore = context.getSAMLMessageStore();
+      if (messageStore != null) {
+        messageStore.set(authnRequest.getID(), authnRequest);
+      }
+      return postLogin(destination, serialize(authnRequest), relayState);
+    }
+
+    // redirect binding: pac4j's encoder deflates the request into the URL and signs the query string
+    this.client.getProfileHandler().send(context, authnRequest, relayState);
+    final Pac4jSAMLResponse adapter = context.getProfileRequestContextOutboundMessageTransportResponse();
+    SamlLogin samlLogin = new SamlLogin();
+    String redirectUrl = adapter.getRedirectUrl();
+    samlLogin.setBindingMethod(SamlLogin.BindingMethod.GET);
+    samlLogin.setLocation(redirectUrl);
+    return samlLogin;
+  }
+
+  private boolean isSigningRequired(SAML2MessageContext context) {
+    if (this.client.getConfiguration().isAuthnRequestSigned()) {
+      return true;
+    }
+    IDPSSODescriptor idpssoDescriptor = context.getIDPSSODescriptor();
+    return idpssoDescriptor != null && Boolean.TRUE.equals(idpssoDescriptor.getWantAuthnRequestsSigned());
+  }
+
+  /**
+   * Sign the AuthnRequest with the outbound signing handler that pac4j's message sender runs before
+   * the HTTP encoder, with the same signing parameters; the encoder itself is not run. This marshals
+   * the request, its DOM carries the signature.
+   */
+  private void sign(SAML2MessageContext context, AuthnRequest authnRequest) throws Exception {
+    SignatureSigningParameters signingParameters =
+      this.client.getSignatureSigningParametersProvider().build(context.getSPSSODescriptor());
+    MessageContext messageContext = new MessageContext();
+    messageContext.setMessage(authnRequest);
+    messageContext.getSubcontext(SecurityParametersContext.class, true)
+      .setSignatureSigningParameters(signingParameters);
+    SAMLOutboundProtocolMessageSigningHandler handler = new SAMLOutboundProtocolMessageSigningHandler();
+    handler.initialize();
+    handler.invoke(messageContext);
+  }
+
+  /**
+   * Serialize the AuthnRequest to UTF-8, the only serialization of a POST binding request. Reuses
+   * the DOM that signing has marshalled, only marshals if there is none.
+   */
+  private static byte[] serialize(AuthnRequest authnRequest) throws Exception {
+    Element dom = authnRequest.getDOM();
+    if (dom == null) {
+      dom = XMLObjectSupport.marshall(authnRequest);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+    SerializeSupport.writeNode(dom, out);
+    return out.toByteArray();
+  }
+
+  private static SamlLogin templateLogin(AuthnRequestTemplate template, String relayState, boolean postBinding) {
+    String authnRequest = template.render(SAML2Utils.generateID(), Instant.now());
+    if (postBinding) {
+      return postLogin(template.getDestination(), authnRequest, relayState);
+    }
+    SamlLogin samlLogin = new SamlLogin();
+    samlLogin.setBindingMethod(SamlLogin.BindingMethod.GET);
+    samlLogin.setLocation(RedirectBindingEncoder.encode(template.getDestination(), "SAMLRequest", authnRequest,
+      relayState));
+    return samlLogin;
+  }
+
+  private static SamlLogin postLogin(String destination, String authnRequest, String relayState) {
+    return postLogin(destination, authnRequest.getBytes(StandardCharsets.UTF_8), relayState);
+  }
+
+  /**
+   * The template, or null if requests must be signed, and the lastUpdate of the IdP metadata it was derived from.
+   */
+  private static final class TemplateState {
+    private final AuthnRequestTemplate template;
+    private final Instant metadataUpdate;
+
+    private TemplateState(AuthnRequestTemplate template, Instant metadataUpdate) {
+      this.template = template;
+      this.metadataUpdate = metadataUpdate;
     }
   }
 
+  private static SamlLogin postLogin(String destination, byte[] authnRequest, String relayState) {
+    String b64authnRequest = Base64.getEncoder().encodeToString(authnRequest);
+    SamlLogin samlLogin = new SamlLogin();
+    samlLogin.setBindingMethod(SamlLogin.BindingMethod.POST);
+    samlLogin.setLocation(destination);
+    samlLogin.setSamlRequest(b64authnRequest);
+    samlLogin.setRelayState(relayState);
+    return samlLogin;
+  }
+
 }
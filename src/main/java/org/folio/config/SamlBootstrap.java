@@ -0,0 +1,135 @@
+package org.folio.config;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+import net.shibboleth.utilities.java.support.xml.ParserPool;
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.jfr.BootstrapEvent;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.core.xml.schema.XSString;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Attribute;
+import org.opensaml.saml.saml2.core.AttributeStatement;
+import org.opensaml.saml.saml2.core.AttributeValue;
+import org.opensaml.saml.saml2.core.AuthnRequest;
+import org.opensaml.saml.saml2.core.Issuer;
+import org.opensaml.saml.saml2.core.Response;
+import org.pac4j.saml.util.Configuration;
+
+/**
+ * One-time initialization of Santuario and OpenSAML, and a dummy AuthnRequest and Response marshalling and
+ * parsing round trip that loads the XMLObject builders, marshallers, unmarshallers and the JAXP factories
+ * of the parser pool.
+ *
+ * <p>Without it the first SAML client of the JVM pays for all of this. {@link org.folio.rest.impl.ApiInitializer}
+ * runs it on a worker thread before the module is ready unless {@code SAML_EAGER_BOOTSTRAP} is {@code false}.
+ * A run that does the work is recorded as {@link BootstrapEvent}.
+ */
+public final class SamlBootstrap {
+
+  private static final Logger log = LogManager.getLogger(SamlBootstrap.class);
+  private static final String ENTITY_ID = "urn:folio:bootstrap";
+
+  private static boolean done;
+
+  private SamlBootstrap() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class");
+  }
+
+  /**
+   * Initialize and warm up; blocking, call it on a worker thread. Runs only once per JVM.
+   *
+   * @throws IllegalStateException if initialization or the round trip fails
+   */
+  public static synchronized void run() {
+    if (done) {
+      return;
+    }
+    BootstrapEvent event = new BootstrapEvent();
+    event.begin();
+    long start = System.nanoTime();
+    try {
+      org.apache.xml.security.Init.init();
+      // pac4j's bootstrap runs OpenSAML's InitializationService and installs the parser pool
+      Configuration.getBuilderFactory();
+      roundTrip(authnRequest());
+      roundTrip(response());
+      done = true;
+    } catch (MarshallingException | UnmarshallingException e) {
+      throw new IllegalStateException("SAML bootstrap round trip failed: " + e.getMessage(), e);
+    } finally {
+      event.complete(null, done, () -> 0);
+    }
+    log.info("SAML bootstrap took {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  static synchronized boolean isDone() {
+    return done;
+  }
+
+  static XMLObject roundTrip(XMLObject xmlObject) throws MarshallingException, UnmarshallingException {
+    ParserPool parserPool = XMLObjectProviderRegistrySupport.getParserPool();
+    if (parserPool == null) {
+      throw new IllegalStateException("OpenSAML parser pool is not initialized");
+    }
+    String xml = SerializeSupport.nodeToString(XMLObjectSupport.marshall(xmlObject));
+    return XMLObjectSupport.unmarshallFromInputStream(parserPool,
+      new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static AuthnRequest authnRequest() {
+    AuthnRequest authnRequest = build(AuthnRequest.DEFAULT_ELEMENT_NAME);
+    authnRequest.setID("_bootstrap");
+    authnRequest.setIssueInstant(Instant.now());
+    authnRequest.setAssertionConsumerServiceURL("http://localhost/saml/callback");
+    authnRequest.setIssuer(issuer());
+    return authnRequest;
+  }
+
+  private static Response response() {
+    XSString value = (XSString) XMLObjectProviderRegistrySupport.getBuilderFactory()
+      .getBuilderOrThrow(XSString.TYPE_NAME)
+      .buildObject(AttributeValue.DEFAULT_ELEMENT_NAME, XSString.TYPE_NAME);
+    value.setValue("bootstrap");
+    Attribute attribute = build(Attribute.DEFAULT_ELEMENT_NAME);
+    attribute.setName("UserID");
+    attribute.getAttributeValues().add(value);
+    AttributeStatement attributeStatement = build(AttributeStatement.DEFAULT_ELEMENT_NAME);
+    attributeStatement.getAttributes().add(attribute);
+
+    Assertion assertion = build(Assertion.DEFAULT_ELEMENT_NAME);
+    assertion.setID("_bootstrap-assertion");
+    assertion.setIssueInstant(Instant.now());
+    assertion.setIssuer(issuer());
+    assertion.getAttributeStatements().add(attributeStatement);
+
+    Response response = build(Response.DEFAULT_ELEMENT_NAME);
+    response.setID("_bootstrap-response");
+    response.setInResponseTo("_bootstrap");
+    response.setIssueInstant(Instant.now());
+    response.setIssuer(issuer());
+    response.getAssertions().add(assertion);
+    return response;
+  }
+
+  private static Issuer issuer() {
+    Issuer issuer = build(Issuer.DEFAULT_ELEMENT_NAME);
+    issuer.setValue(ENTITY_ID);
+    return issuer;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends XMLObject> T build(QName elementName) {
+    return (T) XMLObjectProviderRegistrySupport.getBuilderFactory().getBuilderOrThrow(elementName)
+      .buildObject(elementName);
+  }
+}
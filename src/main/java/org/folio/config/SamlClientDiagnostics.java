@@ -0,0 +1,92 @@
+package org.folio.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.config.SamlConfigHolder.LoadError;
+import org.folio.config.model.SamlClientComposite;
+import org.folio.config.model.SamlConfiguration;
+import org.folio.metrics.SamlMetrics;
+import org.folio.metrics.SamlMetrics.Cache;
+import org.folio.metrics.SamlMetrics.CacheResult;
+import org.folio.rest.jaxrs.model.SamlClient;
+import org.folio.rest.jaxrs.model.SamlClientError;
+import org.folio.rest.jaxrs.model.SamlClients;
+
+/**
+ * Describes the clients held by {@link SamlConfigHolder} for the /saml/clients admin API.
+ *
+ * <p>The retained size is an estimate of the raw copies of IdP metadata and keystore a client holds:
+ * the configuration strings (one byte per character, as they are ASCII) and the byte arrays of the
+ * resources pac4j reads from. Parsed metadata and key objects are not included.
+ */
+public final class SamlClientDiagnostics {
+
+  private SamlClientDiagnostics() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class");
+  }
+
+  /**
+   * @return the client of the tenant if there is one or its last load failed, no client otherwise
+   */
+  public static SamlClients list(String tenantId, Instant now) {
+    SamlConfigHolder holder = SamlConfigHolder.getInstance();
+    if (holder.findClient(tenantId) == null && holder.getLastError(tenantId) == null) {
+      return new SamlClients().withClients(List.of()).withEstimatedRetainedSize(0).withTotalRecords(0);
+    }
+    SamlClient client = of(tenantId, now);
+    return new SamlClients()
+      .withClients(List.of(client))
+      .withEstimatedRetainedSize(client.getEstimatedRetainedSize() == null ? 0 : client.getEstimatedRetainedSize())
+      .withTotalRecords(1);
+  }
+
+  /**
+   * @return the client of the tenant, with cached false if there is none
+   */
+  public static SamlClient of(String tenantId, Instant now) {
+    SamlConfigHolder holder = SamlConfigHolder.getInstance();
+    SamlClient client = new SamlClient().withTenant(tenantId);
+    LoadError lastError = holder.getLastError(tenantId);
+    if (lastError != null) {
+      client.setLastError(new SamlClientError()
+        .withMessage(lastError.getMessage())
+        .withDate(Date.from(lastError.getDate())));
+    }
+    SamlClientComposite composite = holder.findClient(tenantId);
+    if (composite == null) {
+      return client.withCached(false);
+    }
+    SamlConfiguration configuration = composite.getConfiguration();
+    int idpMetadataSize = length(configuration.getIdpMetadata());
+    int keystoreBase64Size = length(configuration.getKeystore());
+    int keystoreSize = keystoreBase64Size / 4 * 3;
+    SamlMetrics metrics = SamlMetrics.getInstance();
+    return client
+      .withCached(true)
+      .withVersion((int) composite.getVersion())
+      .withCreated(Date.from(composite.getCreated()))
+      .withAgeSeconds((int) Duration.between(composite.getCreated(), now).getSeconds())
+      .withInitMillis((int) TimeUnit.NANOSECONDS.toMillis(composite.getInitNanos()))
+      .withIdpMetadataSize(idpMetadataSize)
+      .withKeystoreSize(keystoreSize)
+      .withEstimatedRetainedSize(estimateRetainedSize(idpMetadataSize, keystoreBase64Size, keystoreSize))
+      .withUserCacheSize(composite.getUserCache().size())
+      .withHits((int) metrics.getCount(Cache.CLIENT, tenantId, CacheResult.HIT))
+      .withMisses((int) metrics.getCount(Cache.CLIENT, tenantId, CacheResult.MISS));
+  }
+
+  /**
+   * The metadata is held as configuration string and as resource bytes, the keystore as Base64
+   * configuration string and as decoded resource bytes.
+   */
+  static int estimateRetainedSize(int idpMetadataSize, int keystoreBase64Size, int keystoreSize) {
+    return 2 * idpMetadataSize + keystoreBase64Size + keystoreSize;
+  }
+
+  private static int length(String s) {
+    return s == null ? 0 : s.length();
+  }
+}
@@ -12,6 +12,10 @@ import org.apache.logging.log4j.Logger;
 import org.folio.config.model.SAML2ClientMock;
 import org.folio.config.model.SamlClientComposite;
 import org.folio.config.model.SamlConfiguration;
+import org.folio.jfr.ClientLoadEvent;
+import org.folio.jfr.SamlEvent;
+import org.folio.metrics.SamlMetrics;
+import org.folio.metrics.SamlMetrics.Phase;
 import org.folio.util.OkapiHelper;
 import org.folio.util.model.OkapiHeaders;
 import org.opensaml.saml.common.xml.SAMLConstants;
@@ -45,7 +49,23 @@ public class SamlClientLoader {
 
   public static Future<SamlClientComposite> loadFromConfiguration(RoutingContext routingContext,
     boolean generateMissingKeyStore, Context vertxContext) {
-    OkapiHeaders okapiHeaders = OkapiHelper.okapiHeaders(routingContext);
+    return loadFromConfiguration(OkapiHelper.okapiHeaders(routingContext), generateMissingKeyStore, vertxContext);
+  }
+
+  public static Future<SamlClientComposite> loadFromConfiguration(OkapiHeaders okapiHeaders,
+    boolean generateMissingKeyStore, Context vertxContext) {
+    final String tenantId = okapiHeaders.getTenant();
+
+    ClientLoadEvent event = new ClientLoadEvent();
+    event.begin();
+    return event.completeWith(tenantId,
+      SamlMetrics.getInstance().time(Phase.CLIENT_INIT, tenantId,
+        () -> load(okapiHeaders, generateMissingKeyStore, vertxContext)),
+      composite -> SamlEvent.utf8Length(composite.getConfiguration().getKeystore()));
+  }
+
+  private static Future<SamlClientComposite> load(OkapiHeaders okapiHeaders, boolean generateMissingKeyStore,
+    Context vertxContext) {
     final String tenantId = okapiHeaders.getTenant();
 
     Vertx vertx = vertxContext.owner();
@@ -185,7 +205,7 @@ public class SamlClientLoader {
     }
 
     Boolean mock = vertxContext.config().getBoolean("mock", false);
-    SAML2Client saml2Client = Boolean.TRUE.equals(mock) ? new SAML2ClientMock(cfg) : new SAML2Client(cfg);
+    SAML2Client saml2Client = Boolean.TRUE.equals(mock) ? new SAML2ClientMock(cfg) : new FolioSaml2Client(cfg);
     saml2Client.setName(tenantId);
     saml2Client.setCallbackUrl(buildCallbackUrl(okapiUrl, tenantId));
     saml2Client.setRedirectionActionBuilder(new JsonReponseSaml2RedirectActionBuilder(saml2Client));
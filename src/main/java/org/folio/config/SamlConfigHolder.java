@@ -1,49 +1,160 @@
 package org.folio.config;
 
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import org.folio.config.model.SamlClientComposite;
 import org.pac4j.core.config.Config;
 import org.springframework.util.Assert;
 
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Singleton for holding Pac4j {@link Config}
  *
+ * <p>Clients are replaced copy-on-write: a new client is loaded off to the side and published
+ * in one atomic step, the previous client keeps serving until then. Requests that already hold
+ * the previous client finish with it; it is garbage collected when the last of them completes.
+ *
  * @author rsass
  */
 public class SamlConfigHolder {
 
-  private static SamlConfigHolder instance;
-  private Map<String, SamlClientComposite> config; // key: tenantId
+  private static final SamlConfigHolder instance = new SamlConfigHolder();
+  private final ConcurrentMap<String, SamlClientComposite> config; // key: tenantId
+  private final ConcurrentMap<String, Future<SamlClientComposite>> pendingLoads; // key: tenantId
+  private final ConcurrentMap<String, LoadError> lastErrors = new ConcurrentHashMap<>(); // key: tenantId
+  private final AtomicLong versionSequence = new AtomicLong();
 
   private SamlConfigHolder() {
     // new empty client list
-    this.config = new HashMap<>();
+    this.config = new ConcurrentHashMap<>();
+    this.pendingLoads = new ConcurrentHashMap<>();
   }
 
   public static SamlConfigHolder getInstance() {
-    if (instance == null) {
-      instance = new SamlConfigHolder();
-    }
     return instance;
   }
 
   public Map<String, SamlClientComposite> getConfig() {
-    return config;
+    return Collections.unmodifiableMap(config);
   }
 
   public SamlClientComposite findClient(String tenantId) {
     return this.config.get(tenantId);
   }
 
-  public void removeClient(String tenantId) {
-    this.config.remove(tenantId);
+  /**
+   * @return true if the tenant had a client
+   */
+  public boolean removeClient(String tenantId) {
+    return this.config.remove(tenantId) != null;
+  }
+
+  /**
+   * Remove the client of the tenant only if it is still the given one, a newer client is kept.
+   *
+   * @return true if removed
+   */
+  public boolean removeClient(String tenantId, SamlClientComposite clientComposite) {
+    return this.config.remove(tenantId, clientComposite);
   }
 
   public void putClient(String tenantId, SamlClientComposite clientComposite) {
+    publishClient(tenantId, clientComposite, versionSequence.incrementAndGet());
+  }
+
+  /**
+   * Load a client and publish it once it has been loaded successfully.
+   *
+   * <p>Concurrent loads of the same tenant are coalesced: callers that don't ask for a reload join
+   * the load that is in progress instead of starting their own. A reload always starts a new load
+   * because it must see configuration changes made after the pending load has started.
+   *
+   * <p>If the load fails the previously published client, if any, stays in place.
+   *
+   * @param tenantId tenant to load the client for
+   * @param reload   whether to start a new load even if one is in progress
+   * @param loader   creates the client
+   * @return the client that is published after the load, this may be a newer one loaded concurrently
+   */
+  public Future<SamlClientComposite> loadClient(String tenantId, boolean reload,
+    Supplier<Future<SamlClientComposite>> loader) {
+
+    Assert.hasText(tenantId, "tenantId cannot be empty!");
+    Promise<SamlClientComposite> promise = Promise.promise();
+    Future<SamlClientComposite> future = promise.future();
+    if (reload) {
+      pendingLoads.put(tenantId, future);
+    } else {
+      Future<SamlClientComposite> pending = pendingLoads.putIfAbsent(tenantId, future);
+      if (pending != null) {
+        return pending;
+      }
+    }
+    // the version is taken when the load starts, a load that started later wins
+    final long version = versionSequence.incrementAndGet();
+    final long start = System.nanoTime();
+    Future<SamlClientComposite> loaded;
+    try {
+      loaded = loader.get();
+    } catch (Exception e) {
+      loaded = Future.failedFuture(e);
+    }
+    loaded
+      .map(clientComposite ->
+        publishClient(tenantId, clientComposite.withInitNanos(System.nanoTime() - start), version))
+      .onComplete(result -> {
+        pendingLoads.remove(tenantId, future);
+        if (result.failed()) {
+          lastErrors.put(tenantId, new LoadError(result.cause().getMessage(), Instant.now()));
+        }
+        promise.handle(result);
+      });
+    return future;
+  }
+
+  /**
+   * @return the last failed load of the tenant's client, null if none has failed
+   */
+  public LoadError getLastError(String tenantId) {
+    return lastErrors.get(tenantId);
+  }
+
+  private SamlClientComposite publishClient(String tenantId, SamlClientComposite clientComposite, long version) {
     Assert.hasText(tenantId, "tenantId cannot be empty!");
     Assert.notNull(clientComposite, "clientComposite cannot be null!");
-    this.config.put(tenantId, clientComposite);
+    return this.config.compute(tenantId, (key, current) -> {
+      if (current != null && current.getVersion() > version) {
+        return current;
+      }
+      return clientComposite.withVersion(version);
+    });
+  }
+
+  /**
+   * Failure of a client load.
+   */
+  public static class LoadError {
+    private final String message;
+    private final Instant date;
+
+    public LoadError(String message, Instant date) {
+      this.message = message;
+      this.date = date;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public Instant getDate() {
+      return date;
+    }
   }
 }
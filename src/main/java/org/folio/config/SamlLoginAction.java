@@ -0,0 +1,32 @@
+package org.folio.config;
+
+import org.folio.rest.jaxrs.model.SamlLogin;
+import org.pac4j.core.exception.http.OkAction;
+import io.vertx.core.json.Json;
+
+/**
+ * {@link OkAction} that carries the {@link SamlLogin} DTO so that the login endpoint can return it
+ * without encoding it to JSON and decoding it again.
+ *
+ * <p>{@link #getContent()} encodes the DTO on demand for callers that expect the JSON string.
+ */
+public class SamlLoginAction extends OkAction {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient SamlLogin samlLogin;
+
+  public SamlLoginAction(SamlLogin samlLogin) {
+    super(null);
+    this.samlLogin = samlLogin;
+  }
+
+  public SamlLogin getSamlLogin() {
+    return samlLogin;
+  }
+
+  @Override
+  public String getContent() {
+    return Json.encode(samlLogin);
+  }
+}
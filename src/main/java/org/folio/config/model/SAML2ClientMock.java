@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.config.FolioSaml2Client;
 import org.opensaml.saml.saml2.core.Conditions;
 import org.opensaml.saml.saml2.core.impl.ConditionsBuilder;
 import org.opensaml.saml.saml2.core.impl.NameIDBuilder;
@@ -14,11 +15,10 @@ import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.credentials.Credentials;
 import org.pac4j.core.profile.CommonProfile;
-import org.pac4j.saml.client.SAML2Client;
 import org.pac4j.saml.config.SAML2Configuration;
 import org.pac4j.saml.credentials.SAML2Credentials;
 
-public class SAML2ClientMock extends SAML2Client {
+public class SAML2ClientMock extends FolioSaml2Client {
 
   private static final Logger log = LogManager.getLogger(SAML2ClientMock.class);
   public static final String SAML_USER_ID = "saml-user-id";
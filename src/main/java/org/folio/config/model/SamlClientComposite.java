@@ -1,5 +1,9 @@
 package org.folio.config.model;
 
+import java.time.Instant;
+import java.util.List;
+import org.folio.users.UserCache;
+import org.folio.users.UserMapping;
 import org.pac4j.saml.client.SAML2Client;
 import org.springframework.util.Assert;
 
@@ -10,12 +14,43 @@ public class SamlClientComposite {
 
   private final SAML2Client client;
   private final SamlConfiguration configuration;
+  private final long version;
+  private final UserCache userCache;
+  private final List<UserMapping> userMappings;
+  private final String userMappingsError;
+  private final Instant created;
+  private final long initNanos;
 
   public SamlClientComposite(SAML2Client client, SamlConfiguration configuration) {
     Assert.notNull(client, "Client cannot be null!");
     Assert.notNull(configuration, "Configuration cannot be null!");
     this.client = client;
     this.configuration = configuration;
+    this.version = 0;
+    this.userCache = UserCache.of(configuration);
+    List<UserMapping> mappings = null;
+    String mappingsError = null;
+    try {
+      mappings = UserMapping.of(configuration);
+    } catch (RuntimeException e) {
+      // DecodeException or IllegalArgumentException of a bad user.mappings value
+      mappingsError = "Invalid user.mappings configuration: " + e.getMessage();
+    }
+    this.userMappings = mappings;
+    this.userMappingsError = mappingsError;
+    this.created = Instant.now();
+    this.initNanos = 0;
+  }
+
+  private SamlClientComposite(SamlClientComposite other, long version, long initNanos) {
+    this.client = other.client;
+    this.configuration = other.configuration;
+    this.version = version;
+    this.userCache = other.userCache;
+    this.userMappings = other.userMappings;
+    this.userMappingsError = other.userMappingsError;
+    this.created = other.created;
+    this.initNanos = initNanos;
   }
 
   public SAML2Client getClient() {
@@ -25,4 +60,58 @@ public class SamlClientComposite {
   public SamlConfiguration getConfiguration() {
     return configuration;
   }
+
+  /**
+   * @return version assigned when the client was published, 0 if it has never been published
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return user cache of the tenant, disabled unless configured
+   */
+  public UserCache getUserCache() {
+    return userCache;
+  }
+
+  /**
+   * @return the user mappings of the configuration, parsed once, in order of preference; never empty
+   * @throws IllegalStateException if the stored {@code user.mappings} value is invalid; this is a
+   *     configuration error, not an error of the end user
+   */
+  public List<UserMapping> getUserMappings() {
+    if (userMappings == null) {
+      throw new IllegalStateException(userMappingsError);
+    }
+    return userMappings;
+  }
+
+  /**
+   * @return when the client has been created
+   */
+  public Instant getCreated() {
+    return created;
+  }
+
+  /**
+   * @return nanoseconds it took to load the client, 0 if unknown
+   */
+  public long getInitNanos() {
+    return initNanos;
+  }
+
+  /**
+   * @return a copy of this composite sharing client, configuration and user cache but with the given version
+   */
+  public SamlClientComposite withVersion(long version) {
+    return new SamlClientComposite(this, version, initNanos);
+  }
+
+  /**
+   * @return a copy of this composite sharing client, configuration and user cache but with the given load duration
+   */
+  public SamlClientComposite withInitNanos(long initNanos) {
+    return new SamlClientComposite(this, version, initNanos);
+  }
 }
@@ -21,6 +21,9 @@ public class SamlConfiguration {
   public static final String USER_PROPERTY_CODE = "user.property";
   public static final String METADATA_INVALIDATED_CODE = "metadata.invalidated";
   public static final String OKAPI_URL= "okapi.url";
+  public static final String USER_CACHE_TTL_CODE = "user.cache.ttl";
+  public static final String USER_MIRROR_CODE = "user.mirror";
+  public static final String USER_MAPPINGS_CODE = "user.mappings";
 
   @JsonProperty(IDP_URL_CODE)
   private String idpUrl;
@@ -44,6 +47,12 @@ public class SamlConfiguration {
 
   @JsonProperty(OKAPI_URL)
   private String okapiUrl;
+  @JsonProperty(USER_CACHE_TTL_CODE)
+  private String userCacheTtl;
+  @JsonProperty(USER_MIRROR_CODE)
+  private String userMirror;
+  @JsonProperty(USER_MAPPINGS_CODE)
+  private String userMappings;
 
 
   public String getIdpUrl() {
@@ -124,4 +133,28 @@ public class SamlConfiguration {
   public void setIdpMetadata(String idpMetadata) {
     this.idpMetadata = idpMetadata;
   }
+
+  public String getUserCacheTtl() {
+    return userCacheTtl;
+  }
+
+  public void setUserCacheTtl(String userCacheTtl) {
+    this.userCacheTtl = userCacheTtl;
+  }
+
+  public String getUserMirror() {
+    return userMirror;
+  }
+
+  public void setUserMirror(String userMirror) {
+    this.userMirror = userMirror;
+  }
+
+  public String getUserMappings() {
+    return userMappings;
+  }
+
+  public void setUserMappings(String userMappings) {
+    this.userMappings = userMappings;
+  }
 }
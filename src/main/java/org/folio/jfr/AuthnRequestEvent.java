@@ -0,0 +1,37 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Building of the AuthnRequest of a login, payload size is the size of the SAMLRequest
+ * (POST binding) or of the redirect URL (redirect binding).
+ */
+@Name("org.folio.saml.AuthnRequest")
+@Label("SAML AuthnRequest Build")
+@Description("Creation, signing and encoding of the AuthnRequest; payload is the SAMLRequest or redirect URL size")
+public class AuthnRequestEvent extends SamlEvent {
+
+  @Label("Binding")
+  String binding;
+
+  @Label("From Template")
+  boolean template;
+
+  public void setBinding(String binding) {
+    this.binding = binding;
+  }
+
+  public String getBinding() {
+    return binding;
+  }
+
+  public void setTemplate(boolean template) {
+    this.template = template;
+  }
+
+  public boolean isTemplate() {
+    return template;
+  }
+}
@@ -0,0 +1,14 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The one-time {@link org.folio.config.SamlBootstrap}, it has no tenant and a payload size of 0.
+ */
+@Name("org.folio.saml.Bootstrap")
+@Label("SAML Bootstrap")
+@Description("Santuario and OpenSAML initialization and XMLObject round trip, once per JVM")
+public class BootstrapEvent extends SamlEvent {
+}
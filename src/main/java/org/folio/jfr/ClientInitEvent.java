@@ -0,0 +1,14 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * pac4j initialization of a tenant's SAML2Client on its first use, payload size is always 0.
+ */
+@Name("org.folio.saml.ClientInit")
+@Label("SAML Client Init")
+@Description("pac4j init of the tenant's SAML2Client: keystore, IdP metadata, SP metadata and message handlers")
+public class ClientInitEvent extends SamlEvent {
+}
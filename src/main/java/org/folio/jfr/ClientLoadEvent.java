@@ -0,0 +1,14 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Loading of a tenant's SAML2Client, payload size is the size of the stored keystore.
+ */
+@Name("org.folio.saml.ClientLoad")
+@Label("SAML Client Load")
+@Description("Fetch of the configuration and creation of the tenant's SAML2Client; payload is the keystore size")
+public class ClientLoadEvent extends SamlEvent {
+}
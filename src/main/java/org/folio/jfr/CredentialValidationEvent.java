@@ -0,0 +1,14 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Validation of the SAMLResponse of a callback, payload size is the size of the base64 encoded SAMLResponse.
+ */
+@Name("org.folio.saml.CredentialValidation")
+@Label("SAML Credential Validation")
+@Description("Decoding, signature verification and decryption of the SAMLResponse; payload is the SAMLResponse size")
+public class CredentialValidationEvent extends SamlEvent {
+}
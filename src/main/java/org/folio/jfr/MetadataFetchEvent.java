@@ -0,0 +1,14 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Resolving the IdP metadata during SAML2Client initialization.
+ */
+@Name("org.folio.saml.MetadataFetch")
+@Label("SAML IdP Metadata Fetch")
+@Description("Fetch and parse of the IdP metadata; payload is the size of stored metadata, 0 if fetched from the IdP URL")
+public class MetadataFetchEvent extends SamlEvent {
+}
@@ -0,0 +1,102 @@
+package org.folio.jfr;
+
+import io.vertx.core.Future;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Common fields of the SAML events: tenant, outcome and payload size; the duration is
+ * measured by JFR between {@link #begin()} and {@link #complete(String, boolean, LongSupplier)}.
+ *
+ * <p>The fields are only set and the payload size is only computed if JFR records the event,
+ * without a recording an event costs an allocation and two time stamps.
+ */
+@Category({"FOLIO", "SAML"})
+@StackTrace(false)
+public abstract class SamlEvent extends Event {
+
+  public static final String SUCCESS = "success";
+  public static final String FAILURE = "failure";
+
+  @Label("Tenant")
+  String tenant;
+
+  @Label("Outcome")
+  String outcome;
+
+  @Label("Payload Size")
+  @DataAmount
+  long payloadSize;
+
+  /**
+   * End the event and commit it if it is enabled and its duration is above the threshold.
+   *
+   * @param tenant  tenant id
+   * @param success whether the operation succeeded
+   * @param payloadSize  bytes processed by the operation, only called if the event is committed; for
+   *     a String that is its UTF-8 length, see {@link #utf8Length(CharSequence)}, not its number of chars
+   */
+  public void complete(String tenant, boolean success, LongSupplier payloadSize) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    this.tenant = tenant;
+    this.outcome = success ? SUCCESS : FAILURE;
+    this.payloadSize = payloadSize.getAsLong();
+    commit();
+  }
+
+  /**
+   * Complete the event when the future completes.
+   *
+   * @param payloadSize  bytes processed, computed from the result of a succeeded future
+   * @return future
+   */
+  public <T> Future<T> completeWith(String tenant, Future<T> future, ToLongFunction<T> payloadSize) {
+    return future.onComplete(result -> complete(tenant, result.succeeded(),
+      () -> result.succeeded() ? payloadSize.applyAsLong(result.result()) : 0));
+  }
+
+  /**
+   * @return number of bytes of s in UTF-8, without encoding it; 0 if s is null
+   */
+  public static long utf8Length(CharSequence s) {
+    if (s == null) {
+      return 0;
+    }
+    long bytes = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        bytes++;
+      } else if (c < 0x800) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+        bytes += 4;
+        i++;
+      } else {
+        // a lone surrogate is encoded as the replacement character '?', 1 byte
+        bytes += Character.isSurrogate(c) ? 1 : 3;
+      }
+    }
+    return bytes;
+  }
+
+  public String getTenant() {
+    return tenant;
+  }
+
+  public String getOutcome() {
+    return outcome;
+  }
+
+  public long getPayloadSize() {
+    return payloadSize;
+  }
+}
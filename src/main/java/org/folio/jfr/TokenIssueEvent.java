@@ -0,0 +1,15 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Request of the FOLIO token of a callback until the token is extracted from the mod-authtoken response;
+ * fails on an error status or a response without token. Payload size is the size of the token.
+ */
+@Name("org.folio.saml.TokenIssue")
+@Label("SAML Token Issue")
+@Description("POST /token to mod-authtoken; payload is the token size")
+public class TokenIssueEvent extends SamlEvent {
+}
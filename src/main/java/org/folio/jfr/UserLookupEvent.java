@@ -0,0 +1,14 @@
+package org.folio.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Lookup of the FOLIO user of a callback, payload size is the size of the matched SAML attribute values.
+ */
+@Name("org.folio.saml.UserLookup")
+@Label("SAML User Lookup")
+@Description("Lookup of the user matching the SAML attributes; payload is the size of the attribute values")
+public class UserLookupEvent extends SamlEvent {
+}
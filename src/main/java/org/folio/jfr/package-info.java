@@ -0,0 +1,7 @@
+/**
+ * Custom JDK Flight Recorder events of the SAML hot paths.
+ *
+ * <p>Enable them with {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}; the
+ * events are in the {@code FOLIO/SAML} category.
+ */
+package org.folio.jfr;
@@ -0,0 +1,324 @@
+package org.folio.metrics;
+
+import io.vertx.core.Context;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.util.EnvUtil;
+
+/**
+ * Time spent on the event loop by the synchronous sections of the SSO handlers, per tenant and phase.
+ *
+ * <p>pac4j and OpenSAML may do blocking work lazily, for example on first use of a client. {@link #call}
+ * times a section that runs on an event loop thread and counts the duration in a Prometheus histogram.
+ * A section nested in another one is counted in both.
+ *
+ * <p>A watchdog thread samples the stack of a section that is still running after
+ * {@code SAML_EVENT_LOOP_STACK_THRESHOLD_MS} (default 100, 0 disables sampling). When such a section ends
+ * it is logged with the sampled stack, and the longest ones of each tenant are kept as worst offenders.
+ */
+public class EventLoopMonitor {
+
+  /** section of an SSO handler that runs on the event loop */
+  public enum Phase {
+    /** /saml/check handler */
+    CHECK,
+    /** /saml/login handler, includes AUTHN_REQUEST if the SAML client is cached */
+    LOGIN,
+    /** build of the AuthnRequest and the login response */
+    AUTHN_REQUEST,
+    /** /saml/callback handler until the SAML client is found */
+    CALLBACK,
+    /** mapping of the validated SAML attributes and start of the user lookup */
+    USER_MAPPING,
+    /** handling of the POST /token response */
+    TOKEN_RESPONSE;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  public static final long DEFAULT_STACK_THRESHOLD_MS = 100;
+  /** upper bounds of the histogram buckets */
+  static final double[] BUCKET_SECONDS = { 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5 };
+  /** number of worst offenders kept per tenant */
+  static final int WORST_OFFENDERS = 5;
+
+  private static final Logger log = LogManager.getLogger(EventLoopMonitor.class);
+  private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+  static {
+    for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+      BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * 1e9);
+    }
+  }
+  private static final EventLoopMonitor instance = new EventLoopMonitor(
+    TimeUnit.MILLISECONDS.toNanos(EnvUtil.getLong("SAML_EVENT_LOOP_STACK_THRESHOLD_MS", DEFAULT_STACK_THRESHOLD_MS)),
+    System::nanoTime, Context::isOnEventLoopThread).startWatchdog();
+
+  private final long thresholdNanos;
+  private final LongSupplier clock;
+  private final BooleanSupplier onEventLoop;
+  /** the outermost section running on each event loop thread */
+  private final Map<Thread, Section> running = new ConcurrentHashMap<>();
+  private final Map<String, TenantHistograms> tenants = new ConcurrentHashMap<>();
+
+  EventLoopMonitor(long thresholdNanos, LongSupplier clock, BooleanSupplier onEventLoop) {
+    this.thresholdNanos = thresholdNanos;
+    this.clock = clock;
+    this.onEventLoop = onEventLoop;
+  }
+
+  public static EventLoopMonitor getInstance() {
+    return instance;
+  }
+
+  private EventLoopMonitor startWatchdog() {
+    if (thresholdNanos <= 0) {
+      return this;
+    }
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "saml-event-loop-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(thresholdNanos / 2, TimeUnit.MILLISECONDS.toNanos(10));
+    executor.scheduleAtFixedRate(this::sampleBlocked, period, period, TimeUnit.NANOSECONDS);
+    return this;
+  }
+
+  private TenantHistograms tenant(String tenantId) {
+    String key = tenantId == null ? SamlMetrics.UNKNOWN_TENANT : tenantId;
+    TenantHistograms histograms = tenants.get(key);
+    if (histograms != null) {
+      return histograms;
+    }
+    return tenants.computeIfAbsent(key, x -> new TenantHistograms());
+  }
+
+  /**
+   * Run a section of a handler, time it if it runs on an event loop thread.
+   *
+   * @return the result of the section
+   */
+  public <T> T call(Phase phase, String tenantId, Supplier<T> section) {
+    if (!onEventLoop.getAsBoolean()) {
+      return section.get();
+    }
+    Thread thread = Thread.currentThread();
+    Section current = new Section(thread, phase, tenantId, clock.getAsLong());
+    boolean outermost = running.putIfAbsent(thread, current) == null;
+    try {
+      return section.get();
+    } finally {
+      if (outermost) {
+        running.remove(thread);
+      }
+      end(current, clock.getAsLong() - current.startNanos);
+    }
+  }
+
+  /**
+   * Run a section of a handler, time it if it runs on an event loop thread.
+   */
+  public void run(Phase phase, String tenantId, Runnable section) {
+    call(phase, tenantId, () -> {
+      section.run();
+      return null;
+    });
+  }
+
+  /**
+   * Sample the stack of each section that runs longer than the threshold and has not been sampled yet.
+   * Called by the watchdog thread.
+   */
+  void sampleBlocked() {
+    long now = clock.getAsLong();
+    for (Section section : running.values()) {
+      if (section.stack == null && now - section.startNanos >= thresholdNanos) {
+        section.stack = section.thread.getStackTrace();
+      }
+    }
+  }
+
+  private void end(Section section, long nanos) {
+    TenantHistograms histograms = tenant(section.tenantId);
+    histograms.record(section.phase, nanos);
+    StackTraceElement[] stack = section.stack;
+    if (stack == null) {
+      return;
+    }
+    histograms.offer(new Offender(section.phase, nanos, stack));
+    SampledStack sampledStack = new SampledStack(section.thread.getName());
+    sampledStack.setStackTrace(stack);
+    log.warn("Event loop blocked for {} ms by {} of tenant {}", TimeUnit.NANOSECONDS.toMillis(nanos),
+      section.phase.label, section.tenantId, sampledStack);
+  }
+
+  /**
+   * @return the longest sections of the tenant with a sampled stack, longest first
+   */
+  public List<Offender> getWorstOffenders(String tenantId) {
+    TenantHistograms histograms = tenants.get(tenantId == null ? SamlMetrics.UNKNOWN_TENANT : tenantId);
+    if (histograms == null) {
+      return List.of();
+    }
+    synchronized (histograms.worstOffenders) {
+      return new ArrayList<>(histograms.worstOffenders);
+    }
+  }
+
+  /**
+   * Append the histogram and the worst offenders of the tenant in Prometheus text format.
+   */
+  void scrape(String tenantId, StringBuilder out) {
+    String tenantLabel = SamlMetrics.escape(tenantId == null ? SamlMetrics.UNKNOWN_TENANT : tenantId);
+    TenantHistograms histograms = tenants.get(tenantId == null ? SamlMetrics.UNKNOWN_TENANT : tenantId);
+
+    SamlMetrics.header(out, "saml_event_loop_seconds", "histogram", "Time spent on the event loop by SSO handlers");
+    if (histograms != null) {
+      for (Phase phase : Phase.values()) {
+        LongAdder[] buckets = histograms.buckets[phase.ordinal()];
+        long count = histograms.count[phase.ordinal()].sum();
+        if (count == 0) {
+          continue;
+        }
+        String labels = "phase=\"" + phase.label + "\",tenant=\"" + tenantLabel + "\"";
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+          cumulative += buckets[i].sum();
+          out.append("saml_event_loop_seconds_bucket{").append(labels).append(",le=\"").append(BUCKET_SECONDS[i])
+            .append("\"} ").append(cumulative).append('\n');
+        }
+        out.append("saml_event_loop_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+        out.append("saml_event_loop_seconds_count{").append(labels).append("} ").append(count).append('\n');
+        out.append("saml_event_loop_seconds_sum{").append(labels).append("} ")
+          .append(histograms.totalNanos[phase.ordinal()].sum() / 1e9).append('\n');
+      }
+    }
+
+    SamlMetrics.header(out, "saml_event_loop_blocked_seconds", "gauge",
+      "Longest SSO handler sections on the event loop with the top frame of their sampled stack");
+    List<Offender> offenders = getWorstOffenders(tenantId);
+    for (int i = 0; i < offenders.size(); i++) {
+      Offender offender = offenders.get(i);
+      out.append("saml_event_loop_blocked_seconds{phase=\"").append(offender.getPhase().label)
+        .append("\",tenant=\"").append(tenantLabel).append("\",rank=\"").append(i + 1)
+        .append("\",frame=\"").append(SamlMetrics.escape(offender.getTopFrame())).append("\"} ")
+        .append(offender.getNanos() / 1e9).append('\n');
+    }
+  }
+
+  /**
+   * A section that ran longer than the threshold, with its sampled stack.
+   */
+  public static class Offender {
+    private final Phase phase;
+    private final long nanos;
+    private final StackTraceElement[] stack;
+
+    Offender(Phase phase, long nanos, StackTraceElement[] stack) {
+      this.phase = phase;
+      this.nanos = nanos;
+      this.stack = stack;
+    }
+
+    public Phase getPhase() {
+      return phase;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public StackTraceElement[] getStack() {
+      return stack.clone();
+    }
+
+    /**
+     * @return the innermost frame of the stack, "" if the stack is empty
+     */
+    public String getTopFrame() {
+      return stack.length == 0 ? "" : stack[0].toString();
+    }
+  }
+
+  private static class Section {
+    private final Thread thread;
+    private final Phase phase;
+    private final String tenantId;
+    private final long startNanos;
+    private volatile StackTraceElement[] stack;
+
+    Section(Thread thread, Phase phase, String tenantId, long startNanos) {
+      this.thread = thread;
+      this.phase = phase;
+      this.tenantId = tenantId;
+      this.startNanos = startNanos;
+    }
+  }
+
+  private static class TenantHistograms {
+    private final LongAdder[][] buckets = new LongAdder[Phase.values().length][BUCKET_SECONDS.length + 1];
+    private final LongAdder[] count = new LongAdder[Phase.values().length];
+    private final LongAdder[] totalNanos = new LongAdder[Phase.values().length];
+    /** longest first */
+    private final List<Offender> worstOffenders = new ArrayList<>(WORST_OFFENDERS + 1);
+
+    TenantHistograms() {
+      for (int phase = 0; phase < buckets.length; phase++) {
+        for (int i = 0; i < buckets[phase].length; i++) {
+          buckets[phase][i] = new LongAdder();
+        }
+        count[phase] = new LongAdder();
+        totalNanos[phase] = new LongAdder();
+      }
+    }
+
+    void record(Phase phase, long nanos) {
+      int bucket = 0;
+      while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+        bucket++;
+      }
+      buckets[phase.ordinal()][bucket].increment();
+      count[phase.ordinal()].increment();
+      totalNanos[phase.ordinal()].add(nanos);
+    }
+
+    void offer(Offender offender) {
+      synchronized (worstOffenders) {
+        int i = 0;
+        while (i < worstOffenders.size() && worstOffenders.get(i).nanos >= offender.nanos) {
+          i++;
+        }
+        if (i >= WORST_OFFENDERS) {
+          return;
+        }
+        worstOffenders.add(i, offender);
+        if (worstOffenders.size() > WORST_OFFENDERS) {
+          worstOffenders.remove(WORST_OFFENDERS);
+        }
+      }
+    }
+  }
+
+  /**
+   * Carries the sampled stack of a blocking section into the log.
+   */
+  private static class SampledStack extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    SampledStack(String threadName) {
+      super("Stack of " + threadName + " sampled by the watchdog", null, false, true);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package org.folio.metrics;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.folio.rest.jaxrs.model.SamlLatency;
+import org.folio.rest.jaxrs.model.SamlLatencyEndpoint;
+import org.folio.rest.jaxrs.model.SamlLatencySummary;
+import org.folio.util.EnvUtil;
+
+/**
+ * Latency histograms of the SSO endpoints per tenant.
+ *
+ * <p>Each endpoint of each tenant has an HdrHistogram {@link Recorder} with microsecond values and
+ * 3 significant digits; recording is wait-free. Every {@code SAML_LATENCY_INTERVAL_SECONDS} the
+ * recorder is rolled over: its interval histogram becomes the last interval and is added to the
+ * total since start. The rollover happens lazily on the first record or summary after the interval
+ * has ended.
+ */
+public class LatencyHistograms {
+
+  public enum Endpoint {
+    LOGIN("/saml/login"),
+    CALLBACK("/saml/callback"),
+    CHECK("/saml/check");
+
+    private final String path;
+
+    Endpoint(String path) {
+      this.path = path;
+    }
+
+    public String getPath() {
+      return path;
+    }
+  }
+
+  public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+  private static final LatencyHistograms instance = new LatencyHistograms(
+    TimeUnit.SECONDS.toNanos(EnvUtil.getLong("SAML_LATENCY_INTERVAL_SECONDS", DEFAULT_INTERVAL_SECONDS)),
+    System::nanoTime);
+
+  private final long intervalNanos;
+  private final LongSupplier clock;
+  private final long startNanos;
+  private final Instant start;
+  private final Map<String, EndpointHistogram[]> tenants = new ConcurrentHashMap<>();
+
+  LatencyHistograms(long intervalNanos, LongSupplier clock) {
+    this.intervalNanos = intervalNanos;
+    this.clock = clock;
+    this.startNanos = clock.getAsLong();
+    this.start = Instant.now();
+  }
+
+  public static LatencyHistograms getInstance() {
+    return instance;
+  }
+
+  private EndpointHistogram[] tenant(String tenantId) {
+    String key = tenantId == null ? SamlMetrics.UNKNOWN_TENANT : tenantId;
+    EndpointHistogram[] histograms = tenants.get(key);
+    if (histograms != null) {
+      return histograms;
+    }
+    return tenants.computeIfAbsent(key, x -> {
+      EndpointHistogram[] array = new EndpointHistogram[Endpoint.values().length];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = new EndpointHistogram();
+      }
+      return array;
+    });
+  }
+
+  public void record(Endpoint endpoint, String tenantId, long nanos) {
+    tenant(tenantId)[endpoint.ordinal()].record(nanos, clock.getAsLong());
+  }
+
+  /**
+   * @return handler that records the time from now until it is called, then calls the handler
+   */
+  public <T> Handler<AsyncResult<T>> timed(Endpoint endpoint, String tenantId, Handler<AsyncResult<T>> handler) {
+    long begin = clock.getAsLong();
+    return result -> {
+      record(endpoint, tenantId, clock.getAsLong() - begin);
+      handler.handle(result);
+    };
+  }
+
+  /**
+   * @return percentiles of the endpoints of the tenant that have been called
+   */
+  public SamlLatency summary(String tenantId) {
+    List<SamlLatencyEndpoint> endpoints = new ArrayList<>();
+    EndpointHistogram[] histograms = tenants.get(tenantId == null ? SamlMetrics.UNKNOWN_TENANT : tenantId);
+    if (histograms != null) {
+      long now = clock.getAsLong();
+      for (Endpoint endpoint : Endpoint.values()) {
+        SamlLatencyEndpoint dto = histograms[endpoint.ordinal()].summary(now);
+        if (dto != null) {
+          endpoints.add(dto.withEndpoint(endpoint.getPath()));
+        }
+      }
+    }
+    return new SamlLatency()
+      .withIntervalSeconds((int) TimeUnit.NANOSECONDS.toSeconds(intervalNanos))
+      .withEndpoints(endpoints);
+  }
+
+  private Instant instantOf(long nanos) {
+    return start.plusNanos(nanos - startNanos);
+  }
+
+  private static SamlLatencySummary toDto(Histogram histogram, Instant from, Instant to) {
+    return new SamlLatencySummary()
+      .withStart(Date.from(from))
+      .withEnd(Date.from(to))
+      .withCount((int) Math.min(Integer.MAX_VALUE, histogram.getTotalCount()))
+      .withP50(millis(histogram.getValueAtPercentile(50)))
+      .withP90(millis(histogram.getValueAtPercentile(90)))
+      .withP99(millis(histogram.getValueAtPercentile(99)))
+      .withP999(millis(histogram.getValueAtPercentile(99.9)))
+      .withMax(millis(histogram.getMaxValue()));
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+
+  private class EndpointHistogram {
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    /** end of the current interval */
+    private volatile long intervalEnd = startNanos + intervalNanos;
+    // guarded by this
+    private Histogram lastInterval;
+    private long lastIntervalEnd;
+    private Histogram total;
+    private Histogram recycled;
+
+    void record(long nanos, long now) {
+      if (now - intervalEnd >= 0) {
+        rollover(now);
+      }
+      recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    private synchronized void rollover(long now) {
+      long end = intervalEnd;
+      if (now - end < 0) {
+        return;
+      }
+      // values recorded up to now belong to the interval that ended at end: any later record would
+      // have rolled over first
+      Histogram interval = recorder.getIntervalHistogram(recycled);
+      if (total == null) {
+        total = new Histogram(SIGNIFICANT_DIGITS);
+      }
+      total.add(interval);
+      long elapsed = (now - end) / intervalNanos;
+      if (elapsed > 0) {
+        // nothing was recorded in the intervals after end
+        interval.reset();
+      }
+      recycled = lastInterval;
+      lastInterval = interval;
+      lastIntervalEnd = end + elapsed * intervalNanos;
+      intervalEnd = lastIntervalEnd + intervalNanos;
+    }
+
+    SamlLatencyEndpoint summary(long now) {
+      if (now - intervalEnd >= 0) {
+        rollover(now);
+      }
+      synchronized (this) {
+        if (total == null || total.getTotalCount() == 0) {
+          return null;
+        }
+        return new SamlLatencyEndpoint()
+          .withLastInterval(toDto(lastInterval, instantOf(lastIntervalEnd - intervalNanos), instantOf(lastIntervalEnd)))
+          .withTotal(toDto(total, start, instantOf(lastIntervalEnd)));
+      }
+    }
+  }
+}
@@ -0,0 +1,311 @@
+package org.folio.metrics;
+
+import io.vertx.core.Future;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.folio.config.ClientInvalidationLimiter;
+import org.folio.config.SamlConfigHolder;
+import org.folio.config.model.SamlClientComposite;
+import org.folio.util.CryptoWorkerPool;
+
+/**
+ * Timers of the SSO phases and counters of the cache lookups, per tenant.
+ *
+ * <p>Counters and timers are {@link LongAdder}s in arrays that are created once per tenant, recording
+ * allocates nothing and doesn't contend. {@link #scrape(String)} renders them in Prometheus text format,
+ * together with the {@link ClientInvalidationLimiter} counters and the {@link EventLoopMonitor} histograms.
+ * The gauges of the crypto worker pool are module wide; they carry the label {@code scope="module"}
+ * instead of a tenant, so that summing the scrapes of several tenants can tell them apart.
+ */
+public class SamlMetrics {
+
+  /** phase of /saml/login or /saml/callback that is timed */
+  public enum Phase {
+    /** GET /configurations/entries */
+    CONFIG_FETCH,
+    /** load of a SAML client including the configuration fetch */
+    CLIENT_INIT,
+    /** build, and sign if enabled, the AuthnRequest */
+    AUTHN_REQUEST,
+    /**
+     * size and complexity check of the SAMLResponse: a streamed Base64 decode and XML scan, see
+     * {@link org.folio.util.SamlResponseGuard}; an approximation of the decode and parse share of
+     * {@link #RESPONSE_VALIDATE}
+     */
+    RESPONSE_CHECK,
+    /**
+     * Base64 decode, parse, verify and decrypt the SAMLResponse; pac4j's getCredentials runs these
+     * steps without a hook in between, so they are timed together
+     */
+    RESPONSE_VALIDATE,
+    /** find the FOLIO user of the SAML attributes */
+    USER_LOOKUP,
+    /** POST /token */
+    TOKEN_ISSUE;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  public enum Outcome {
+    SUCCESS, FAILURE;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  public enum Cache {
+    /** SAML client of the tenant */
+    CLIENT,
+    /** user cache, see {@link org.folio.users.UserCache} */
+    USER,
+    /** user mirror, see {@link org.folio.users.UserMirror} */
+    USER_MIRROR;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  public enum CacheResult {
+    HIT, MISS;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  static final String UNKNOWN_TENANT = "unknown";
+
+  private static final SamlMetrics instance = new SamlMetrics();
+
+  private final Map<String, TenantMeters> tenants = new ConcurrentHashMap<>();
+  private final List<Gauge> gauges = new ArrayList<>();
+
+  SamlMetrics() {
+    gauge("saml_crypto_pending", "Running and queued tasks of the SAML crypto worker pool",
+      () -> CryptoWorkerPool.getInstance().getPending());
+    gauge("saml_crypto_rejected_total", "Tasks rejected by the SAML crypto worker pool because it was overloaded",
+      () -> CryptoWorkerPool.getInstance().getRejected());
+  }
+
+  public static SamlMetrics getInstance() {
+    return instance;
+  }
+
+  private TenantMeters tenant(String tenantId) {
+    String key = tenantId == null ? UNKNOWN_TENANT : tenantId;
+    TenantMeters meters = tenants.get(key);
+    if (meters != null) {
+      return meters;
+    }
+    return tenants.computeIfAbsent(key, x -> new TenantMeters());
+  }
+
+  /**
+   * Record the duration of a phase.
+   */
+  public void record(Phase phase, String tenantId, Outcome outcome, long nanos) {
+    tenant(tenantId).timers[phase.ordinal()][outcome.ordinal()].record(nanos);
+  }
+
+  /**
+   * Record the duration of a phase from startNanos ({@link System#nanoTime()}) until now.
+   */
+  public void recordSince(Phase phase, String tenantId, Outcome outcome, long startNanos) {
+    record(phase, tenantId, outcome, System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Record the duration of a phase from calling the action until its future completes. An exception
+   * thrown by the action is recorded as failure and rethrown.
+   *
+   * @return the future of the action
+   */
+  public <T> Future<T> time(Phase phase, String tenantId, Supplier<Future<T>> action) {
+    long start = System.nanoTime();
+    Future<T> future;
+    try {
+      future = action.get();
+    } catch (RuntimeException e) {
+      recordSince(phase, tenantId, Outcome.FAILURE, start);
+      throw e;
+    }
+    return future.onComplete(result ->
+      recordSince(phase, tenantId, result.succeeded() ? Outcome.SUCCESS : Outcome.FAILURE, start));
+  }
+
+  public void count(Cache cache, String tenantId, CacheResult result) {
+    tenant(tenantId).caches[cache.ordinal()][result.ordinal()].increment();
+  }
+
+  /**
+   * @return number of lookups of the cache of the tenant with the result since start
+   */
+  public long getCount(Cache cache, String tenantId, CacheResult result) {
+    TenantMeters meters = tenants.get(tenantId == null ? UNKNOWN_TENANT : tenantId);
+    return meters == null ? 0 : meters.caches[cache.ordinal()][result.ordinal()].sum();
+  }
+
+  private void gauge(String name, String help, LongSupplier value) {
+    gauges.add(new Gauge(name, help, value));
+  }
+
+  /**
+   * @return the meters of the tenant and the module wide gauges, labeled {@code scope="module"}, in
+   *     Prometheus text format 0.0.4
+   */
+  public String scrape(String tenantId) {
+    StringBuilder out = new StringBuilder(4096);
+    String tenantLabel = escape(tenantId == null ? UNKNOWN_TENANT : tenantId);
+    TenantMeters meters = tenants.get(tenantId == null ? UNKNOWN_TENANT : tenantId);
+
+    header(out, "saml_phase_seconds", "summary", "Duration of SSO phases");
+    if (meters != null) {
+      for (Phase phase : Phase.values()) {
+        for (Outcome outcome : Outcome.values()) {
+          Timer timer = meters.timers[phase.ordinal()][outcome.ordinal()];
+          long count = timer.count.sum();
+          if (count == 0) {
+            continue;
+          }
+          String labels = "{phase=\"" + phase.label + "\",tenant=\"" + tenantLabel + "\",outcome=\"" + outcome.label + "\"}";
+          out.append("saml_phase_seconds_count").append(labels).append(' ').append(count).append('\n');
+          out.append("saml_phase_seconds_sum").append(labels).append(' ').append(seconds(timer.totalNanos.sum())).append('\n');
+        }
+      }
+    }
+    header(out, "saml_phase_seconds_max", "gauge", "Longest duration of SSO phases since start");
+    if (meters != null) {
+      for (Phase phase : Phase.values()) {
+        for (Outcome outcome : Outcome.values()) {
+          Timer timer = meters.timers[phase.ordinal()][outcome.ordinal()];
+          if (timer.count.sum() == 0) {
+            continue;
+          }
+          out.append("saml_phase_seconds_max{phase=\"").append(phase.label).append("\",tenant=\"").append(tenantLabel)
+            .append("\",outcome=\"").append(outcome.label).append("\"} ").append(seconds(timer.maxNanos.get()))
+            .append('\n');
+        }
+      }
+    }
+
+    header(out, "saml_cache_total", "counter", "Lookups in the SAML client, user cache and user mirror");
+    if (meters != null) {
+      for (Cache cache : Cache.values()) {
+        for (CacheResult result : CacheResult.values()) {
+          long count = meters.caches[cache.ordinal()][result.ordinal()].sum();
+          if (count != 0) {
+            cacheLine(out, cache.label, tenantLabel, result.label, count);
+          }
+        }
+      }
+    }
+    SamlClientComposite client = tenantId == null ? null : SamlConfigHolder.getInstance().findClient(tenantId);
+    if (client != null && client.getUserCache().isEnabled()) {
+      cacheLine(out, Cache.USER.label, tenantLabel, "eviction", client.getUserCache().getEvictions());
+    }
+
+    header(out, "saml_client_invalidation_total", "counter",
+      "SAML client reloads after failures, allowed or suppressed by the rate limit");
+    if (tenantId != null) {
+      ClientInvalidationLimiter limiter = ClientInvalidationLimiter.getInstance();
+      invalidationLine(out, tenantLabel, "allowed", limiter.getAllowed(tenantId));
+      invalidationLine(out, tenantLabel, "suppressed", limiter.getSuppressed(tenantId));
+    }
+
+    EventLoopMonitor.getInstance().scrape(tenantId, out);
+
+    for (Gauge gauge : gauges) {
+      header(out, gauge.name, gauge.name.endsWith("_total") ? "counter" : "gauge", gauge.help);
+      out.append(gauge.name).append("{scope=\"module\"} ").append(gauge.value.getAsLong()).append('\n');
+    }
+    return out.toString();
+  }
+
+  static void header(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void cacheLine(StringBuilder out, String cache, String tenantLabel, String result, long count) {
+    out.append("saml_cache_total{cache=\"").append(cache).append("\",tenant=\"").append(tenantLabel)
+      .append("\",result=\"").append(result).append("\"} ").append(count).append('\n');
+  }
+
+  private static void invalidationLine(StringBuilder out, String tenantLabel, String result, long count) {
+    out.append("saml_client_invalidation_total{tenant=\"").append(tenantLabel)
+      .append("\",result=\"").append(result).append("\"} ").append(count).append('\n');
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+  /**
+   * Escape a label value: backslash, double quote and line feed.
+   */
+  static String escape(String value) {
+    StringBuilder s = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          s.append("\\\\");
+          break;
+        case '"':
+          s.append("\\\"");
+          break;
+        case '\n':
+          s.append("\\n");
+          break;
+        default:
+          s.append(c);
+      }
+    }
+    return s.toString();
+  }
+
+  private static class TenantMeters {
+    private final Timer[][] timers = new Timer[Phase.values().length][Outcome.values().length];
+    private final LongAdder[][] caches = new LongAdder[Cache.values().length][CacheResult.values().length];
+
+    TenantMeters() {
+      for (Timer[] row : timers) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = new Timer();
+        }
+      }
+      for (LongAdder[] row : caches) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = new LongAdder();
+        }
+      }
+    }
+  }
+
+  private static class Timer {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+  }
+
+  private static class Gauge {
+    private final String name;
+    private final String help;
+    private final LongSupplier value;
+
+    Gauge(String name, String help, LongSupplier value) {
+      this.name = name;
+      this.help = help;
+      this.value = value;
+    }
+  }
+}
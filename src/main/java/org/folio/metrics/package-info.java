@@ -0,0 +1,4 @@
+/**
+ * Counters and timers of the SSO phases, exposed in Prometheus text format.
+ */
+package org.folio.metrics;
@@ -3,7 +3,9 @@ package org.folio.rest.impl;
 import io.vertx.core.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.config.SamlBootstrap;
 import org.folio.rest.resource.interfaces.InitAPI;
+import org.folio.util.EnvUtil;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -15,6 +17,21 @@ import java.security.cert.X509Certificate;
 public class ApiInitializer implements InitAPI {
 
   private final Logger log = LogManager.getLogger(ApiInitializer.class);
+  private final boolean eagerBootstrap;
+  private final Runnable bootstrap;
+
+  public ApiInitializer() {
+    this(EnvUtil.getBoolean("SAML_EAGER_BOOTSTRAP", true), SamlBootstrap::run);
+  }
+
+  /**
+   * @param eagerBootstrap whether to run bootstrap before the module is ready
+   * @param bootstrap      blocking initialization, run on a worker thread
+   */
+  ApiInitializer(boolean eagerBootstrap, Runnable bootstrap) {
+    this.eagerBootstrap = eagerBootstrap;
+    this.bootstrap = bootstrap;
+  }
 
   @Override
   public void init(Vertx vertx, Context context, Handler<AsyncResult<Boolean>> handler) {
@@ -27,7 +44,22 @@ public class ApiInitializer implements InitAPI {
     String disableResolver = System.getProperty("vertx.disableDnsResolver");
     log.info("vertx.disableDnsResolver (netty workaround): " + disableResolver);
 
-    handler.handle(Future.succeededFuture(true));
+    if (!eagerBootstrap) {
+      handler.handle(Future.succeededFuture(true));
+      return;
+    }
+    // seconds of OpenSAML and Santuario initialization that would otherwise delay the first SAML request
+    vertx.executeBlocking(promise -> {
+      bootstrap.run();
+      promise.complete();
+    }, false)
+      .onComplete(result -> {
+        if (result.failed()) {
+          // the first SAML client retries the initialization
+          log.error("SAML bootstrap failed: {}", result.cause().getMessage(), result.cause());
+        }
+        handler.handle(Future.succeededFuture(true));
+      });
   }
 
   /**
@@ -8,46 +8,66 @@ import static io.vertx.core.http.HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS;
 import static io.vertx.core.http.HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD;
 import static io.vertx.core.http.HttpHeaders.ORIGIN;
 import static io.vertx.core.http.HttpHeaders.VARY;
-import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
 
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.Cookie;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.auth.PRNG;
 import io.vertx.ext.web.RoutingContext;
-import io.vertx.ext.web.Session;
+import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
 import io.vertx.ext.web.impl.Utils;
-import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.config.ClientInvalidationLimiter;
 import org.folio.config.ConfigurationsClient;
+import org.folio.config.JsonReponseSaml2RedirectActionBuilder;
+import org.folio.config.SamlClientDiagnostics;
 import org.folio.config.SamlClientLoader;
 import org.folio.config.SamlConfigHolder;
+import org.folio.config.SamlLoginAction;
 import org.folio.config.model.SamlClientComposite;
 import org.folio.config.model.SamlConfiguration;
+import org.folio.jfr.CredentialValidationEvent;
+import org.folio.jfr.SamlEvent;
+import org.folio.jfr.TokenIssueEvent;
+import org.folio.jfr.UserLookupEvent;
+import org.folio.metrics.EventLoopMonitor;
+import org.folio.metrics.LatencyHistograms;
+import org.folio.metrics.LatencyHistograms.Endpoint;
+import org.folio.metrics.SamlMetrics;
+import org.folio.metrics.SamlMetrics.Cache;
+import org.folio.metrics.SamlMetrics.CacheResult;
+import org.folio.metrics.SamlMetrics.Outcome;
+import org.folio.metrics.SamlMetrics.Phase;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.jaxrs.model.SamlCheck;
 import org.folio.rest.jaxrs.model.SamlConfig;
@@ -55,21 +75,37 @@ import org.folio.rest.jaxrs.model.SamlConfigRequest;
 import org.folio.rest.jaxrs.model.SamlLogin;
 import org.folio.rest.jaxrs.model.SamlLoginRequest;
 import org.folio.rest.jaxrs.model.SamlRegenerateResponse;
+import org.folio.rest.jaxrs.model.SamlUserMapping;
 import org.folio.rest.jaxrs.model.SamlValidateGetType;
 import org.folio.rest.jaxrs.model.SamlValidateResponse;
 import org.folio.rest.jaxrs.resource.Saml;
 import org.folio.session.NoopSession;
+import org.folio.session.RelayStateSession;
+import org.folio.tracing.Tracer;
+import org.folio.users.UserCache;
+import org.folio.users.UserIdentity;
+import org.folio.users.UserMapping;
+import org.folio.users.UserMirror;
 import org.folio.util.Base64Util;
 import org.folio.util.ConfigEntryUtil;
+import org.folio.util.CryptoWorkerPool;
+import org.folio.util.CryptoWorkerPool.OverloadedException;
+import org.folio.util.CsrfTokenGenerator;
+import org.folio.util.DownstreamException;
 import org.folio.util.DumpUtil;
 import org.folio.util.DummySessionStore;
+import org.folio.util.FailureType;
+import org.folio.util.ForbiddenException;
 import org.folio.util.HttpActionMapper;
 import org.folio.util.OkapiHelper;
+import org.folio.util.SamlResponseGuard;
 import org.folio.util.StringUtil;
 import org.folio.util.UrlUtil;
+import org.folio.util.UserErrorException;
 import org.folio.util.WebClientFactory;
 import org.folio.util.model.OkapiHeaders;
 import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.exception.TechnicalException;
 import org.pac4j.core.exception.http.HttpAction;
 import org.pac4j.core.exception.http.OkAction;
 import org.pac4j.core.exception.http.RedirectionAction;
@@ -89,18 +125,8 @@ public class SamlAPI implements Saml {
   private static final Logger log = LogManager.getLogger(SamlAPI.class);
   public static final String CSRF_TOKEN = "csrfToken";
   public static final String RELAY_STATE = "relayState";
-
-  public static class UserErrorException extends RuntimeException {
-    public UserErrorException(String message) {
-      super(message);
-    }
-  }
-
-  public static class ForbiddenException extends RuntimeException {
-    public ForbiddenException(String message) {
-      super(message);
-    }
-  }
+  /** limit of the /users query for several user mappings, the best match is picked locally */
+  static final int MAX_MATCHING_USERS = 100;
 
 
   /**
@@ -108,41 +134,62 @@ public class SamlAPI implements Saml {
    */
   @Override
   public void getSamlCheck(RoutingContext routingContext, Map<String, String> okapiHeaders,
-    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    Handler<AsyncResult<Response>> responseHandler, Context vertxContext) {
 
-    findSaml2Client(routingContext, false, false, vertxContext)
-      .onComplete(samlClientHandler ->
-          asyncResultHandler.handle(Future.succeededFuture(
-            GetSamlCheckResponse.respond200WithApplicationJson(new SamlCheck().withActive(samlClientHandler.succeeded()))
-          )));
+    final String tenantId = OkapiHelper.okapiHeaders(routingContext).getTenant();
+    final Handler<AsyncResult<Response>> asyncResultHandler = LatencyHistograms.getInstance()
+      .timed(Endpoint.CHECK, tenantId, responseHandler);
+
+    EventLoopMonitor.getInstance().run(EventLoopMonitor.Phase.CHECK, tenantId, () ->
+      findSaml2Client(routingContext, false, false, vertxContext)
+        .onComplete(samlClientHandler ->
+            asyncResultHandler.handle(Future.succeededFuture(
+              GetSamlCheckResponse.respond200WithApplicationJson(new SamlCheck().withActive(samlClientHandler.succeeded()))
+            ))));
   }
 
 
   @Override
   public void postSamlLogin(SamlLoginRequest requestEntity, RoutingContext routingContext, Map<String, String> okapiHeaders,
-    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    Handler<AsyncResult<Response>> responseHandler, Context vertxContext) {
 
-    postSamlLogin(requestEntity, routingContext, vertxContext, false)
-    .otherwise(e -> PostSamlLoginResponse.respond500WithTextPlain("Fail and retry"))
-    .compose(response -> {
-      if (response.getStatus() == 200) {
-        return Future.succeededFuture(response);
-      }
-      // retry after reloading client
-      removeSaml2Client(routingContext);
-      return postSamlLogin(requestEntity, routingContext, vertxContext, true);
-    })
-    .otherwise(e -> {
-      log.error(e.getMessage(), e);
-      return PostSamlLoginResponse.respond500WithTextPlain("Internal Server Error");
-    })
-    .onSuccess(response -> asyncResultHandler.handle(Future.succeededFuture(response)));
+    Span span = Tracer.getInstance().startRequestSpan("POST /saml/login", routingContext);
+    String tenantId = OkapiHelper.okapiHeaders(routingContext).getTenant();
+    span.setAttribute("tenant", tenantId);
+    final Handler<AsyncResult<Response>> asyncResultHandler = LatencyHistograms.getInstance()
+      .timed(Endpoint.LOGIN, tenantId, endSpan(span, responseHandler));
+    EventLoopMonitor.getInstance().run(EventLoopMonitor.Phase.LOGIN, tenantId, () ->
+      postSamlLogin(requestEntity, routingContext, vertxContext, false)
+      .recover(e -> {
+        if (FailureType.of(e) != FailureType.SAML) {
+          return Future.failedFuture(e);
+        }
+        log.warn("Login failed, retrying with reloaded client: {}", e.getMessage());
+        return Future.succeededFuture(PostSamlLoginResponse.respond500WithTextPlain("Fail and retry"));
+      })
+      .compose(response -> {
+        // 2xx and 4xx don't improve by reloading the client
+        if (response.getStatus() < 500) {
+          return Future.succeededFuture(response);
+        }
+        if (!ClientInvalidationLimiter.getInstance().tryAcquire(tenantId)) {
+          return Future.failedFuture("Login failed and reloading the SAML client is rate limited");
+        }
+        // retry after reloading client
+        dumpSaml2Client(routingContext);
+        return postSamlLogin(requestEntity, routingContext, vertxContext, true);
+      })
+      .otherwise(e -> {
+        log.error(e.getMessage(), e);
+        return PostSamlLoginResponse.respond500WithTextPlain("Internal Server Error");
+      })
+      .onSuccess(response -> asyncResultHandler.handle(Future.succeededFuture(response))));
   }
 
   private Future<Response> postSamlLogin(SamlLoginRequest requestEntity, RoutingContext routingContext,
       Context vertxContext, boolean reloadClient) {
 
-    String csrfToken = UUID.randomUUID().toString();
+    String csrfToken = CsrfTokenGenerator.generate();
     String stripesUrl = requestEntity.getStripesUrl();
     String relayState = stripesUrl + (stripesUrl.indexOf('?') >= 0 ? '&' : '?') + CSRF_TOKEN + '=' + csrfToken;
     Cookie relayStateCookie = Cookie.cookie(RELAY_STATE, relayState)
@@ -150,28 +197,40 @@ public class SamlAPI implements Saml {
     routingContext.addCookie(relayStateCookie);
 
     // register non-persistent session (this request only) to overWrite relayState
-    Session session = new SharedDataSessionImpl(new PRNG(vertxContext.owner()));
-    session.put(SAML_RELAY_STATE_ATTRIBUTE, relayState);
-    routingContext.setSession(session);
+    routingContext.setSession(new RelayStateSession(relayState));
 
     final boolean generateMissingConfig = false;   // do not allow login if config is missing
     return findSaml2Client(routingContext, generateMissingConfig, reloadClient, vertxContext)
       .map(SamlClientComposite::getClient)
-      .map(saml2client -> postSamlLoginResponse(routingContext, saml2client));
+      .map(saml2client -> EventLoopMonitor.getInstance().call(EventLoopMonitor.Phase.AUTHN_REQUEST,
+        OkapiHelper.okapiHeaders(routingContext).getTenant(), () -> postSamlLoginResponse(routingContext, saml2client)));
   }
 
   private Response postSamlLoginResponse(RoutingContext routingContext, SAML2Client saml2Client) {
     try {
       final SessionStore sessionStore = new DummySessionStore(routingContext.vertx(), routingContext.session());
       final VertxWebContext webContext = new VertxWebContext(routingContext, sessionStore);
-      RedirectionAction redirectionAction = saml2Client
-          .getRedirectionAction(webContext, sessionStore)
-          .orElse(null);
-      if (! (redirectionAction instanceof OkAction)) {
-        throw new IllegalStateException("redirectionAction must be OkAction: " + redirectionAction);
+      final String tenantId = OkapiHelper.okapiHeaders(routingContext).getTenant();
+      long start = System.nanoTime();
+      RedirectionAction redirectionAction;
+      try {
+        redirectionAction = saml2Client
+            .getRedirectionAction(webContext, sessionStore)
+            .orElse(null);
+      } catch (RuntimeException e) {
+        SamlMetrics.getInstance().recordSince(Phase.AUTHN_REQUEST, tenantId, Outcome.FAILURE, start);
+        throw e;
+      }
+      SamlMetrics.getInstance().recordSince(Phase.AUTHN_REQUEST, tenantId, Outcome.SUCCESS, start);
+      SamlLogin dto;
+      if (redirectionAction instanceof SamlLoginAction) {
+        dto = ((SamlLoginAction) redirectionAction).getSamlLogin();
+      } else if (redirectionAction instanceof OkAction) {
+        dto = Json.decodeValue(((OkAction) redirectionAction).getContent(), SamlLogin.class);
+      } else {
+        // the client is broken, a SAML failure reloads it
+        throw new TechnicalException("redirectionAction must be OkAction: " + redirectionAction);
       }
-      String responseJsonString = ((OkAction) redirectionAction).getContent();
-      SamlLogin dto = Json.decodeValue(responseJsonString, SamlLogin.class);
       routingContext.response().headers().clear(); // saml2Client sets Content-Type: text/html header
       addCredentialsAndOriginHeaders(routingContext);
       return PostSamlLoginResponse.respond200WithApplicationJson(dto);
@@ -182,8 +241,23 @@ public class SamlAPI implements Saml {
 
   @Override
   public void postSamlCallback(RoutingContext routingContext, Map<String, String> okapiHeaders,
-    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    Handler<AsyncResult<Response>> responseHandler, Context vertxContext) {
+
+    final Span span = Tracer.getInstance().startRequestSpan("POST /saml/callback", routingContext);
+    final OkapiHeaders callbackHeaders = OkapiHelper.okapiHeaders(routingContext);
+    final String tenantId = callbackHeaders.getTenant();
+    span.setAttribute("tenant", tenantId);
+    final Handler<AsyncResult<Response>> asyncResultHandler = LatencyHistograms.getInstance()
+      .timed(Endpoint.CALLBACK, tenantId, endSpan(span, responseHandler));
+
+    EventLoopMonitor.getInstance().run(EventLoopMonitor.Phase.CALLBACK, tenantId, () ->
+      postSamlCallback(routingContext, okapiHeaders, callbackHeaders, asyncResultHandler, vertxContext));
+  }
 
+  private void postSamlCallback(RoutingContext routingContext, Map<String, String> okapiHeaders,
+    OkapiHeaders callbackHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final String tenantId = callbackHeaders.getTenant();
     registerFakeSession(routingContext);
 
     final SessionStore sessionStore = new DummySessionStore(routingContext.vertx(), routingContext.session());
@@ -210,75 +284,89 @@ public class SamlAPI implements Saml {
     findSaml2Client(routingContext, false, false, vertxContext)
       .compose(samlClientComposite -> {
         final SAML2Client client = samlClientComposite.getClient();
-        final SamlConfiguration configuration = samlClientComposite.getConfiguration();
-        String userPropertyName = configuration.getUserProperty() == null ? "externalSystemId" : configuration.getUserProperty();
-        String samlAttributeName = configuration.getSamlAttribute() == null ? "UserID" : configuration.getSamlAttribute();
-
-        SAML2Credentials credentials = (SAML2Credentials) client.getCredentials(webContext, sessionStore).get();
-
-        // Get user id
-        List<?> samlAttributeList = (List<?>) credentials.getUserProfile().getAttribute(samlAttributeName);
-        if (samlAttributeList == null || samlAttributeList.isEmpty()) {
-          throw new UserErrorException("SAML attribute doesn't exist: " + samlAttributeName);
-        }
-        final String samlAttributeValue = samlAttributeList.get(0).toString();
-        final String usersCql = getCqlUserQuery(userPropertyName, samlAttributeValue);
-        final String userQuery = UriBuilder.fromPath("/users").queryParam("query", usersCql).build().toString();
-
-        OkapiHeaders parsedHeaders = OkapiHelper.okapiHeaders(okapiHeaders);
-
-        WebClient webClient = WebClientFactory.getWebClient(vertxContext.owner());
-        return webClient.getAbs(parsedHeaders.getUrl() + userQuery)
-          .putHeader(XOkapiHeaders.TOKEN, parsedHeaders.getToken())
-          .putHeader(XOkapiHeaders.URL, parsedHeaders.getUrl())
-          .putHeader(XOkapiHeaders.TENANT, parsedHeaders.getTenant())
-          .expect(ResponsePredicate.SC_OK)
-          .expect(ResponsePredicate.JSON)
-          .send()
-          .compose(res -> {
-            JsonArray users = res.bodyAsJsonObject().getJsonArray("users");
-            if (users.isEmpty()) {
-              String message = "No user found by " + userPropertyName + " == " + samlAttributeValue;
-              throw new UserErrorException(message);
+        final List<UserMapping> userMappings = samlClientComposite.getUserMappings();
+
+        // Base64 decoding, XML parsing, signature verification and decryption: keep it off the event loop
+        final String samlResponse = routingContext.request().getFormAttribute("SAMLResponse");
+        return Tracer.getInstance().trace("validate SAMLResponse", callbackHeaders, headers ->
+            CryptoWorkerPool.getInstance().execute(vertxContext.owner(), () -> {
+              long start = System.nanoTime();
+              CredentialValidationEvent event = new CredentialValidationEvent();
+              event.begin();
+              Phase phase = Phase.RESPONSE_CHECK;
+              Outcome outcome = Outcome.FAILURE;
+              try {
+                SamlResponseGuard.getInstance().check(samlResponse);
+                SamlMetrics.getInstance().recordSince(phase, tenantId, Outcome.SUCCESS, start);
+                phase = Phase.RESPONSE_VALIDATE;
+                start = System.nanoTime();
+                SAML2Credentials credentials = (SAML2Credentials) client.getCredentials(webContext, sessionStore).get();
+                outcome = Outcome.SUCCESS;
+                return credentials;
+              } finally {
+                SamlMetrics.getInstance().recordSince(phase, tenantId, outcome, start);
+                event.complete(tenantId, outcome == Outcome.SUCCESS, () -> SamlEvent.utf8Length(samlResponse));
+              }
+            }))
+          .compose(credentials -> EventLoopMonitor.getInstance().call(EventLoopMonitor.Phase.USER_MAPPING, tenantId, () -> {
+            // Get user id: the mappings whose SAML attribute is present, in order of preference
+            List<UserMapping> presentMappings = new ArrayList<>(userMappings.size());
+            List<String> samlAttributeValues = new ArrayList<>(userMappings.size());
+            for (UserMapping userMapping : userMappings) {
+              List<?> samlAttributeList = (List<?>) credentials.getUserProfile().getAttribute(userMapping.getSamlAttribute());
+              if (samlAttributeList != null && !samlAttributeList.isEmpty()) {
+                presentMappings.add(userMapping);
+                samlAttributeValues.add(samlAttributeList.get(0).toString());
+              }
             }
-            final JsonObject userObject = users.getJsonObject(0);
-            String userId = userObject.getString("id");
-            if (!userObject.getBoolean("active", false)) {
-              throw new ForbiddenException("Inactive user account!");
+            if (presentMappings.isEmpty()) {
+              throw new UserErrorException("SAML attribute doesn't exist: " + userMappings.stream()
+                .map(UserMapping::getSamlAttribute).collect(Collectors.joining(", ")));
             }
-            JsonObject payload = new JsonObject().put("payload", new JsonObject().put("sub", userObject.getString("username")).put("user_id", userId));
-            return webClient.postAbs(parsedHeaders.getUrl() + "/token")
-              .putHeader(XOkapiHeaders.TOKEN, parsedHeaders.getToken())
-              .putHeader(XOkapiHeaders.URL, parsedHeaders.getUrl())
-              .putHeader(XOkapiHeaders.TENANT, parsedHeaders.getTenant())
-              .sendJsonObject(payload)
-              .map(tokenResponse -> {
-                String candidateAuthToken;
-                if (tokenResponse.statusCode() == 200) {
-                  candidateAuthToken = tokenResponse.getHeader(XOkapiHeaders.TOKEN);
-                } else if (tokenResponse.statusCode() == 201) { //mod-authtoken v2.x returns 201, with token in JSON response body
-                  try {
-                    candidateAuthToken = tokenResponse.bodyAsJsonObject().getString("token");
-                  } catch (Exception e) {
-                    throw new RuntimeException(e.getMessage());
-                  }
-                } else {
-                  throw new RuntimeException("POST /token returned " + tokenResponse.statusCode());
+
+            OkapiHeaders parsedHeaders = OkapiHelper.okapiHeaders(okapiHeaders)
+              .withTraceparent(callbackHeaders.getTraceparent());
+
+            WebClient webClient = WebClientFactory.getWebClient(vertxContext.owner());
+            UserLookupEvent userLookupEvent = new UserLookupEvent();
+            userLookupEvent.begin();
+            return userLookupEvent.completeWith(tenantId, SamlMetrics.getInstance().time(Phase.USER_LOOKUP, tenantId, () ->
+                Tracer.getInstance().trace("user lookup", parsedHeaders, headers ->
+                  findUser(webClient, headers, samlClientComposite, presentMappings,
+                    samlAttributeValues))),
+                user -> samlAttributeValues.stream().mapToLong(SamlEvent::utf8Length).sum())
+              .compose(user -> {
+                if (!user.isActive()) {
+                  throw new ForbiddenException("Inactive user account!");
                 }
-                final String authToken = candidateAuthToken;
-
-                final String location = UriBuilder.fromUri(stripesBaseUrl)
-                  .path("sso-landing")
-                  .queryParam("ssoToken", authToken)
-                  .queryParam("fwd", originalUrl.getPath())
-                  .build()
-                  .toString();
-
-                final String cookie = new NewCookie("ssoToken", authToken, "", originalUrl.getHost(), "", 3600, false).toString();
-                return PostSamlCallbackResponse
-                  .headersFor302().withSetCookie(cookie).withXOkapiToken(authToken).withLocation(location);
+                JsonObject payload = new JsonObject().put("payload", new JsonObject().put("sub", user.getUsername()).put("user_id", user.getId()));
+                TokenIssueEvent tokenIssueEvent = new TokenIssueEvent();
+                tokenIssueEvent.begin();
+                return tokenIssueEvent.completeWith(tenantId, SamlMetrics.getInstance().time(Phase.TOKEN_ISSUE, tenantId, () ->
+                    Tracer.getInstance().trace("POST /token", parsedHeaders, headers ->
+                      Tracer.inject(webClient.postAbs(headers.getUrl() + "/token")
+                        .putHeader(XOkapiHeaders.TOKEN, headers.getToken())
+                        .putHeader(XOkapiHeaders.URL, headers.getUrl())
+                        .putHeader(XOkapiHeaders.TENANT, headers.getTenant()), headers)
+                        .sendJsonObject(payload))
+                      .recover(DownstreamException::failedFuture)
+                      .map(tokenResponse -> EventLoopMonitor.getInstance().call(EventLoopMonitor.Phase.TOKEN_RESPONSE,
+                        tenantId, () -> getAuthToken(tokenResponse)))),
+                    SamlEvent::utf8Length)
+                  .map(authToken -> {
+                    final String location = UriBuilder.fromUri(stripesBaseUrl)
+                      .path("sso-landing")
+                      .queryParam("ssoToken", authToken)
+                      .queryParam("fwd", originalUrl.getPath())
+                      .build()
+                      .toString();
+
+                    final String cookie = new NewCookie("ssoToken", authToken, "", originalUrl.getHost(), "", 3600, false).toString();
+                    return PostSamlCallbackResponse
+                      .headersFor302().withSetCookie(cookie).withXOkapiToken(authToken).withLocation(location);
+                  });
               });
-          });
+          }));
       })
       .onSuccess(headers ->
         asyncResultHandler.handle(Future.succeededFuture(PostSamlCallbackResponse.respond302(headers)))
@@ -289,8 +377,15 @@ public class SamlAPI implements Saml {
           response = PostSamlCallbackResponse.respond403WithTextPlain(cause.getMessage());
         } else if (cause instanceof UserErrorException) {
           response = PostSamlCallbackResponse.respond400WithTextPlain(cause.getMessage());
+        } else if (cause instanceof OverloadedException) {
+          asyncResultHandler.handle(Future.succeededFuture(
+              PostSamlCallbackResponse.respond503WithTextPlain(cause.getMessage())));
+          return;
         } else {
-          removeSaml2Client(routingContext);
+          // only a SAML side failure may be caused by a stale client, not a failing other module
+          if (FailureType.of(cause) == FailureType.SAML) {
+            refreshSaml2Client(routingContext, vertxContext);
+          }
           response = PostSamlCallbackResponse.respond500WithTextPlain(cause.getMessage());
         }
         log.error(cause.getMessage(), cause);
@@ -349,31 +444,11 @@ public class SamlAPI implements Saml {
       })
       .onSuccess(checkValuesHandler -> {
         OkapiHeaders parsedHeaders = OkapiHelper.okapiHeaders(okapiHeaders);
+        boolean userMappingsSent = updatedConfig.getUserMappings() != null && !updatedConfig.getUserMappings().isEmpty()
+          || hasField(rc, "userMappings");
         ConfigurationsClient.getConfiguration(vertxContext.owner(), parsedHeaders)
           .compose(config -> {
-            Map<String, String> updateEntries = new HashMap<>();
-
-            ConfigEntryUtil.valueChanged(config.getIdpUrl(), updatedConfig.getIdpUrl().toString(), idpUrl -> {
-              updateEntries.put(SamlConfiguration.IDP_URL_CODE, idpUrl);
-              updateEntries.put(SamlConfiguration.METADATA_INVALIDATED_CODE, "true");
-            });
-
-            ConfigEntryUtil.valueChanged(config.getSamlBinding(), updatedConfig.getSamlBinding().toString(), samlBindingCode ->
-              updateEntries.put(SamlConfiguration.SAML_BINDING_CODE, samlBindingCode));
-
-            ConfigEntryUtil.valueChanged(config.getSamlAttribute(), updatedConfig.getSamlAttribute(), samlAttribute ->
-              updateEntries.put(SamlConfiguration.SAML_ATTRIBUTE_CODE, samlAttribute));
-
-            ConfigEntryUtil.valueChanged(config.getUserProperty(), updatedConfig.getUserProperty(), userProperty ->
-              updateEntries.put(SamlConfiguration.USER_PROPERTY_CODE, userProperty));
-
-            ConfigEntryUtil.valueChanged(config.getSamlAttribute(), updatedConfig.getIdpMetadata(), idpMetadata ->
-              updateEntries.put(SamlConfiguration.IDP_METADATA_CODE, idpMetadata));
-
-            ConfigEntryUtil.valueChanged(config.getOkapiUrl(), updatedConfig.getOkapiUrl().toString(), okapiUrl -> {
-              updateEntries.put(SamlConfiguration.OKAPI_URL, okapiUrl);
-              updateEntries.put(SamlConfiguration.METADATA_INVALIDATED_CODE, "true");
-            });
+            Map<String, String> updateEntries = getUpdateEntries(config, updatedConfig, userMappingsSent);
             return storeConfigEntries(rc, parsedHeaders, updateEntries, vertxContext);
           })
           .onFailure(cause -> {
@@ -386,6 +461,69 @@ public class SamlAPI implements Saml {
       });
   }
 
+  /**
+   * @param userMappingsSent whether the request has the userMappings field; the generated request
+   *     class can't tell an omitted field from an empty list
+   * @return the configuration entries that change, by code
+   */
+  static Map<String, String> getUpdateEntries(SamlConfiguration config, SamlConfigRequest updatedConfig,
+    boolean userMappingsSent) {
+
+    Map<String, String> updateEntries = new HashMap<>();
+
+    ConfigEntryUtil.valueChanged(config.getIdpUrl(), updatedConfig.getIdpUrl().toString(), idpUrl -> {
+      updateEntries.put(SamlConfiguration.IDP_URL_CODE, idpUrl);
+      updateEntries.put(SamlConfiguration.METADATA_INVALIDATED_CODE, "true");
+    });
+
+    ConfigEntryUtil.valueChanged(config.getSamlBinding(), updatedConfig.getSamlBinding().toString(), samlBindingCode ->
+      updateEntries.put(SamlConfiguration.SAML_BINDING_CODE, samlBindingCode));
+
+    ConfigEntryUtil.valueChanged(config.getSamlAttribute(), updatedConfig.getSamlAttribute(), samlAttribute ->
+      updateEntries.put(SamlConfiguration.SAML_ATTRIBUTE_CODE, samlAttribute));
+
+    ConfigEntryUtil.valueChanged(config.getUserProperty(), updatedConfig.getUserProperty(), userProperty ->
+      updateEntries.put(SamlConfiguration.USER_PROPERTY_CODE, userProperty));
+
+    ConfigEntryUtil.valueChanged(config.getSamlAttribute(), updatedConfig.getIdpMetadata(), idpMetadata ->
+      updateEntries.put(SamlConfiguration.IDP_METADATA_CODE, idpMetadata));
+
+    ConfigEntryUtil.valueChanged(config.getOkapiUrl(), updatedConfig.getOkapiUrl().toString(), okapiUrl -> {
+      updateEntries.put(SamlConfiguration.OKAPI_URL, okapiUrl);
+      updateEntries.put(SamlConfiguration.METADATA_INVALIDATED_CODE, "true");
+    });
+
+    if (updatedConfig.getUserMirror() != null) {
+      ConfigEntryUtil.valueChanged(config.getUserMirror(), updatedConfig.getUserMirror().toString(), userMirror ->
+        updateEntries.put(SamlConfiguration.USER_MIRROR_CODE, userMirror));
+    }
+
+    if (userMappingsSent) {
+      List<SamlUserMapping> mappings = updatedConfig.getUserMappings();
+      String userMappings = mappings == null || mappings.isEmpty() ? "" : Json.encode(mappings);
+      ConfigEntryUtil.valueChanged(config.getUserMappings(), userMappings, value ->
+        updateEntries.put(SamlConfiguration.USER_MAPPINGS_CODE, value));
+    }
+
+    if (updatedConfig.getUserCacheTtl() != null) {
+      ConfigEntryUtil.valueChanged(config.getUserCacheTtl(), updatedConfig.getUserCacheTtl().toString(), userCacheTtl ->
+        updateEntries.put(SamlConfiguration.USER_CACHE_TTL_CODE, userCacheTtl));
+    }
+    return updateEntries;
+  }
+
+  /**
+   * @return true if the JSON request body has the field, false if not or if the body isn't available
+   */
+  private static boolean hasField(RoutingContext rc, String field) {
+    try {
+      JsonObject body = rc.getBodyAsJson();
+      return body != null && body.containsKey(field);
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
   private Future<SamlConfig> storeConfigEntries(RoutingContext rc, OkapiHeaders parsedHeaders,
     Map<String, String> updateEntries, Context vertxContext) {
 
@@ -430,9 +568,32 @@ public class SamlAPI implements Saml {
   }
 
   private Future<Void> checkConfigValues(SamlConfigRequest updatedConfig, Vertx vertx) {
+    try {
+      checkUserMappings(updatedConfig);
+    } catch (IllegalArgumentException e) {
+      return Future.failedFuture(e.getMessage());
+    }
     return UrlUtil.checkIdpUrl(updatedConfig.getIdpUrl().toString(), vertx);
   }
 
+  /**
+   * Reject the mappings that /saml/callback can't use, so that they are never stored.
+   *
+   * @throws IllegalArgumentException on the first invalid mapping; userProperty is checked only
+   *     without userMappings because they replace it
+   */
+  static void checkUserMappings(SamlConfigRequest updatedConfig) {
+    List<SamlUserMapping> mappings = updatedConfig.getUserMappings();
+    if (mappings == null || mappings.isEmpty()) {
+      UserMapping.validate(Objects.toString(updatedConfig.getSamlAttribute(), UserMapping.DEFAULT_SAML_ATTRIBUTE),
+        updatedConfig.getUserProperty());
+      return;
+    }
+    for (SamlUserMapping mapping : mappings) {
+      UserMapping.validate(mapping.getSamlAttribute(), mapping.getUserProperty());
+    }
+  }
+
   private Future<String> regenerateSaml2Config(RoutingContext routingContext, Context vertxContext) {
 
     return findSaml2Client(routingContext, false, false, vertxContext)
@@ -446,6 +607,9 @@ public class SamlAPI implements Saml {
           cfg.setForceServiceProviderMetadataGeneration(true);
           saml2Client.init();
           cfg.setForceServiceProviderMetadataGeneration(false);
+          if (saml2Client.getRedirectionActionBuilder() instanceof JsonReponseSaml2RedirectActionBuilder) {
+            ((JsonReponseSaml2RedirectActionBuilder) saml2Client.getRedirectionActionBuilder()).invalidateTemplate();
+          }
 
           try {
             blockingCode.complete(saml2Client.getServiceProviderMetadataResolver().getMetadata());
@@ -454,13 +618,15 @@ public class SamlAPI implements Saml {
           }
         });
       })
-      .onFailure(e -> removeSaml2Client(routingContext));
+      .onFailure(e -> refreshSaml2Client(routingContext, vertxContext));
   }
 
   /**
    * @param routingContext        the actual routing context
    * @param generateMissingConfig if the encryption key and passwords are missing should we generate and store it?
-   * @param reloadClient          should we drop the loaded client and reload it with (maybe modified) configuration?
+   * @param reloadClient          should we load the client with (maybe modified) configuration? The loaded
+   *                              client replaces the current one when ready, the current one is kept if the
+   *                              load fails.
    * @return Future of loaded {@link SAML2Client} or failed future if it cannot be loaded.
    */
   private Future<SamlClientComposite> findSaml2Client(RoutingContext routingContext, boolean generateMissingConfig,
@@ -468,19 +634,38 @@ public class SamlAPI implements Saml {
 
     String tenantId = OkapiHelper.okapiHeaders(routingContext).getTenant();
     SamlConfigHolder configHolder = SamlConfigHolder.getInstance();
-    SamlClientComposite clientComposite = configHolder.findClient(tenantId);
 
-    if (clientComposite != null && !reloadClient) {
-      return Future.succeededFuture(clientComposite);
+    if (!reloadClient) {
+      SamlClientComposite clientComposite = configHolder.findClient(tenantId);
+      SamlMetrics.getInstance().count(Cache.CLIENT, tenantId, clientComposite != null ? CacheResult.HIT : CacheResult.MISS);
+      if (clientComposite != null) {
+        return Future.succeededFuture(clientComposite);
+      }
     }
-    if (reloadClient) {
-      configHolder.removeClient(tenantId);
+    return configHolder.loadClient(tenantId, reloadClient, () ->
+      SamlClientLoader.loadFromConfiguration(routingContext, generateMissingConfig, vertxContext));
+  }
+
+  /**
+   * Reload the client in the background, the current client keeps serving until the new one is ready.
+   * Nothing happens if there is no current client or if reloads of the tenant are rate limited.
+   */
+  private void refreshSaml2Client(RoutingContext routingContext, Context vertxContext) {
+    String tenantId = OkapiHelper.okapiHeaders(routingContext).getTenant();
+    if (SamlConfigHolder.getInstance().findClient(tenantId) == null
+        || !ClientInvalidationLimiter.getInstance().tryAcquire(tenantId)) {
+      return;
     }
-    return SamlClientLoader.loadFromConfiguration(routingContext, generateMissingConfig, vertxContext)
-      .onSuccess(result -> configHolder.putClient(tenantId, result));
+    dumpSaml2Client(routingContext);
+    findSaml2Client(routingContext, false, true, vertxContext)
+      .onFailure(e -> log.warn("Reloading SAML client of tenant {} failed, keeping the current one: {}",
+        tenantId, e.getMessage()));
   }
 
-  private void removeSaml2Client(RoutingContext routingContext) {
+  private void dumpSaml2Client(RoutingContext routingContext) {
+    if (!log.isDebugEnabled()) {
+      return;
+    }
     String tenantId = OkapiHelper.okapiHeaders(routingContext).getTenant();
     try {
       SAML2Configuration conf = SamlConfigHolder.getInstance().findClient(tenantId).getClient().getConfiguration();
@@ -493,7 +678,24 @@ public class SamlAPI implements Saml {
     } catch (Exception e) {
       // ignore
     }
-    SamlConfigHolder.getInstance().removeClient(tenantId);
+  }
+
+  /**
+   * @return handler that ends the span, with error if the response is a 5xx or missing, and then calls handler
+   */
+  private static Handler<AsyncResult<Response>> endSpan(Span span, Handler<AsyncResult<Response>> handler) {
+    return result -> {
+      if (result.failed()) {
+        Tracer.end(span, result.cause());
+      } else {
+        span.setAttribute("http.status_code", result.result().getStatus());
+        if (result.result().getStatus() >= 500) {
+          span.setStatus(StatusCode.ERROR, "HTTP " + result.result().getStatus());
+        }
+        span.end();
+      }
+      handler.handle(result);
+    };
   }
 
   /**
@@ -535,9 +737,133 @@ public class SamlAPI implements Saml {
       samlConfig.setSamlBinding(null);
     }
 
+    if (config.getUserMirror() != null) {
+      samlConfig.setUserMirror(Boolean.valueOf(config.getUserMirror()));
+    }
+
+    try {
+      List<SamlUserMapping> userMappings = new ArrayList<>();
+      for (UserMapping userMapping : UserMapping.parse(config.getUserMappings())) {
+        userMappings.add(new SamlUserMapping()
+          .withSamlAttribute(userMapping.getSamlAttribute())
+          .withUserProperty(userMapping.getUserProperty()));
+      }
+      if (!userMappings.isEmpty()) {
+        samlConfig.setUserMappings(userMappings);
+      }
+    } catch (Exception e) {
+      log.debug("User mappings are in a bad format: {}", e.getMessage());
+    }
+
+    if (NumberUtils.isDigits(config.getUserCacheTtl())) {
+      samlConfig.setUserCacheTtl(NumberUtils.toInt(config.getUserCacheTtl()));
+    }
+
     return samlConfig;
   }
 
+  @Override
+  public void getSamlMetrics(Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
+    Context vertxContext) {
+
+    String tenantId = OkapiHelper.okapiHeaders(okapiHeaders).getTenant();
+    asyncResultHandler.handle(Future.succeededFuture(
+      GetSamlMetricsResponse.respond200WithTextPlain(SamlMetrics.getInstance().scrape(tenantId))));
+  }
+
+  @Override
+  public void getSamlLatency(Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
+    Context vertxContext) {
+
+    String tenantId = OkapiHelper.okapiHeaders(okapiHeaders).getTenant();
+    asyncResultHandler.handle(Future.succeededFuture(
+      GetSamlLatencyResponse.respond200WithApplicationJson(LatencyHistograms.getInstance().summary(tenantId))));
+  }
+
+  /**
+   * List the client of the X-Okapi-Tenant only, the permission is granted to the tenant's administrators.
+   */
+  @Override
+  public void getSamlClients(Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
+    Context vertxContext) {
+
+    String tenantId = OkapiHelper.okapiHeaders(okapiHeaders).getTenant();
+    asyncResultHandler.handle(Future.succeededFuture(
+      GetSamlClientsResponse.respond200WithApplicationJson(SamlClientDiagnostics.list(tenantId, Instant.now()))));
+  }
+
+  /**
+   * Evict the client of the X-Okapi-Tenant, the permission is granted to the tenant's administrators.
+   */
+  @Override
+  public void deleteSamlClients(Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    String tenantId = OkapiHelper.okapiHeaders(okapiHeaders).getTenant();
+    SamlConfigHolder configHolder = SamlConfigHolder.getInstance();
+    SamlClientComposite clientComposite = configHolder.findClient(tenantId);
+    if (clientComposite == null) {
+      asyncResultHandler.handle(Future.succeededFuture(
+        DeleteSamlClientsResponse.respond404WithTextPlain("No SAML client of tenant " + tenantId)));
+      return;
+    }
+    // a client published since findClient is newer than the one to evict and stays
+    if (configHolder.removeClient(tenantId, clientComposite)) {
+      log.info("Evicted SAML client of tenant {}", tenantId);
+    } else {
+      log.info("SAML client of tenant {} was replaced concurrently, keeping the new one", tenantId);
+    }
+    asyncResultHandler.handle(Future.succeededFuture(DeleteSamlClientsResponse.respond204()));
+  }
+
+  /**
+   * Reload the client of the X-Okapi-Tenant. Another tenant's client cannot be loaded because the
+   * configuration is fetched with the Okapi token of this request.
+   */
+  @Override
+  public void postSamlClientsRefresh(Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    OkapiHeaders parsedHeaders = OkapiHelper.okapiHeaders(okapiHeaders);
+    String tenantId = parsedHeaders.getTenant();
+    SamlConfigHolder.getInstance().loadClient(tenantId, true, () ->
+        SamlClientLoader.loadFromConfiguration(parsedHeaders, false, vertxContext))
+      .onSuccess(clientComposite -> asyncResultHandler.handle(Future.succeededFuture(
+        PostSamlClientsRefreshResponse.respond200WithApplicationJson(
+          SamlClientDiagnostics.of(tenantId, Instant.now())))))
+      .onFailure(e -> asyncResultHandler.handle(Future.succeededFuture(
+        PostSamlClientsRefreshResponse.respond500WithTextPlain(e.getMessage()))));
+  }
+
+  /**
+   * Sync the tenant's user mirror if due. Called by Okapi's {@code _timer} with a token that has the
+   * module permissions, the mirror is never synced with the token of an end user.
+   */
+  @Override
+  public void postSamlUserMirrorSync(Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    OkapiHeaders parsedHeaders = OkapiHelper.okapiHeaders(okapiHeaders);
+    Vertx vertx = vertxContext.owner();
+    ConfigurationsClient.getConfiguration(vertx, parsedHeaders)
+      .compose(config -> {
+        if (!Boolean.parseBoolean(config.getUserMirror())) {
+          UserMirror.remove(parsedHeaders.getTenant());
+          return Future.<Void>succeededFuture();
+        }
+        // same property as findUser: the most preferred mapping
+        String mirroredProperty = UserMapping.of(config).get(0).getUserProperty();
+        return UserMirror.forTenant(parsedHeaders.getTenant(), mirroredProperty)
+          .syncIfDue(vertx, WebClientFactory.getWebClient(vertx), parsedHeaders);
+      })
+      .onSuccess(x -> asyncResultHandler.handle(Future.succeededFuture(PostSamlUserMirrorSyncResponse.respond204())))
+      .onFailure(e -> {
+        log.warn("User mirror sync of tenant {} failed: {}", parsedHeaders.getTenant(), e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          PostSamlUserMirrorSyncResponse.respond500WithTextPlain(e.getMessage())));
+      });
+  }
+
   @Override
   public void optionsSamlLogin(RoutingContext routingContext, Map<String, String> okapiHeaders,
       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
@@ -582,12 +908,159 @@ public class SamlAPI implements Saml {
     return origin == null || origin.isBlank() || origin.trim().contentEquals("*");
   }
 
+  /**
+   * Find the user that matches the SAML attribute values, from the tenant's user cache or user mirror if
+   * enabled, otherwise with a single /users query for all mappings.
+   *
+   * @param userMappings the mappings whose SAML attribute is present, in order of preference
+   * @param samlAttributeValues the SAML attribute values, same order
+   */
+  private Future<UserIdentity> findUser(WebClient webClient, OkapiHeaders parsedHeaders,
+    SamlClientComposite samlClientComposite, List<UserMapping> userMappings, List<String> samlAttributeValues) {
+
+    // with one mapping the key is (user property, value) as before, otherwise all of them
+    final String cacheProperty = userMappings.stream().map(UserMapping::getUserProperty).collect(Collectors.joining(","));
+    final String cacheValue = String.join("\n", samlAttributeValues);
+    UserCache userCache = samlClientComposite.getUserCache();
+    UserIdentity cachedUser = userCache.get(cacheProperty, cacheValue);
+    if (userCache.isEnabled()) {
+      SamlMetrics.getInstance().count(Cache.USER, parsedHeaders.getTenant(),
+        cachedUser != null ? CacheResult.HIT : CacheResult.MISS);
+    }
+    if (cachedUser != null) {
+      return Future.succeededFuture(cachedUser);
+    }
+    if (Boolean.parseBoolean(samlClientComposite.getConfiguration().getUserMirror())) {
+      // the mirror indexes the most preferred user property; a hit there outranks all other mappings
+      String mirroredProperty = samlClientComposite.getUserMappings().get(0).getUserProperty();
+      // read only: POST /saml/user-mirror/sync loads it with the module's token, never the end user's
+      UserMirror userMirror = UserMirror.forTenant(parsedHeaders.getTenant(), mirroredProperty);
+      UserIdentity mirroredUser = mirroredProperty.equals(userMappings.get(0).getUserProperty())
+        ? userMirror.get(samlAttributeValues.get(0)) : null;
+      // a user that is missing or inactive in the mirror may have been created or activated since the last sync
+      boolean mirrorHit = mirroredUser != null && mirroredUser.isActive();
+      SamlMetrics.getInstance().count(Cache.USER_MIRROR, parsedHeaders.getTenant(),
+        mirrorHit ? CacheResult.HIT : CacheResult.MISS);
+      if (mirrorHit) {
+        // not cached: the mirror is already stale by up to a sync interval, the cache TTL would add to that
+        return Future.succeededFuture(mirroredUser);
+      }
+    } else {
+      UserMirror.remove(parsedHeaders.getTenant());
+    }
+    final String userQuery = getUserQuery(userMappings, samlAttributeValues);
+
+    return Tracer.getInstance().trace("GET /users", parsedHeaders, headers ->
+        Tracer.inject(webClient.getAbs(headers.getUrl() + userQuery)
+          .putHeader(XOkapiHeaders.TOKEN, headers.getToken())
+          .putHeader(XOkapiHeaders.URL, headers.getUrl())
+          .putHeader(XOkapiHeaders.TENANT, headers.getTenant()), headers)
+          .expect(ResponsePredicate.SC_OK)
+          .expect(ResponsePredicate.JSON)
+          .send())
+      .recover(DownstreamException::failedFuture)
+      .map(res -> {
+        JsonArray users = res.bodyAsJsonObject().getJsonArray("users");
+        if (users.isEmpty()) {
+          userCache.invalidate(cacheProperty, cacheValue);
+          StringBuilder message = new StringBuilder("No user found by ");
+          for (int i = 0; i < userMappings.size(); i++) {
+            message.append(i == 0 ? "" : " or ")
+              .append(userMappings.get(i).getUserProperty()).append(" == ").append(samlAttributeValues.get(i));
+          }
+          throw new UserErrorException(message.toString());
+        }
+        UserIdentity user = UserIdentity.of(rankUsers(users, userMappings, samlAttributeValues));
+        userCache.put(cacheProperty, cacheValue, user);
+        return user;
+      });
+  }
+
+  /**
+   * @return the token of a POST /token response; mod-authtoken v1.x returns it in the header with 200,
+   *     v2.x in the JSON body with 201
+   * @throws DownstreamException on any other status or a response without token
+   */
+  static String getAuthToken(HttpResponse<Buffer> tokenResponse) {
+    String authToken;
+    if (tokenResponse.statusCode() == 200) {
+      authToken = tokenResponse.getHeader(XOkapiHeaders.TOKEN);
+    } else if (tokenResponse.statusCode() == 201) {
+      try {
+        authToken = tokenResponse.bodyAsJsonObject().getString("token");
+      } catch (Exception e) {
+        throw new DownstreamException(e.getMessage());
+      }
+    } else {
+      throw new DownstreamException("POST /token returned " + tokenResponse.statusCode());
+    }
+    if (authToken == null || authToken.isEmpty()) {
+      throw new DownstreamException("POST /token returned " + tokenResponse.statusCode() + " without token");
+    }
+    return authToken;
+  }
+
+  /**
+   * @return path and query of the /users request that finds the users matching any of the mappings
+   */
+  static String getUserQuery(List<UserMapping> userMappings, List<String> values) {
+    UriBuilder userQueryBuilder = UriBuilder.fromPath("/users")
+      .queryParam("query", getCqlUserQuery(userMappings, values));
+    if (userMappings.size() > 1) {
+      userQueryBuilder.queryParam("limit", MAX_MATCHING_USERS);
+    }
+    return userQueryBuilder.build().toString();
+  }
+
   static String getCqlUserQuery(String userPropertyName, String value) {
     // very sad that RMB does not have an option to reject fields with no index
-    List<String> supported = List.of("barcode", "externalSystemId", "id", "username", "personal.email");
-    if (!supported.contains(userPropertyName)) {
+    if (!UserMapping.SUPPORTED_USER_PROPERTIES.contains(userPropertyName)) {
       throw new RuntimeException("Unsupported user property: " + userPropertyName);
     }
     return userPropertyName + "==" + StringUtil.cqlEncode(value);
   }
+
+  /**
+   * @return CQL query that finds the users matching any of the mappings
+   */
+  static String getCqlUserQuery(List<UserMapping> userMappings, List<String> values) {
+    StringBuilder cql = new StringBuilder();
+    for (int i = 0; i < userMappings.size(); i++) {
+      if (i > 0) {
+        cql.append(" or ");
+      }
+      cql.append(getCqlUserQuery(userMappings.get(i).getUserProperty(), values.get(i)));
+    }
+    return cql.toString();
+  }
+
+  /**
+   * Pick the user of the most preferred mapping. A user whose property equals the value wins over one
+   * that matches ignoring case only (CQL == of mod-users is case insensitive).
+   *
+   * @param users result of {@link #getCqlUserQuery(List, List)}, not empty
+   * @return the best matching user, the first user if no mapping matches exactly or ignoring case
+   */
+  static JsonObject rankUsers(JsonArray users, List<UserMapping> userMappings, List<String> values) {
+    if (users.size() == 1) {
+      return users.getJsonObject(0);
+    }
+    for (int i = 0; i < userMappings.size(); i++) {
+      JsonObject caseInsensitiveMatch = null;
+      for (int j = 0; j < users.size(); j++) {
+        JsonObject user = users.getJsonObject(j);
+        String userValue = userMappings.get(i).valueOf(user);
+        if (values.get(i).equals(userValue)) {
+          return user;
+        }
+        if (caseInsensitiveMatch == null && values.get(i).equalsIgnoreCase(userValue)) {
+          caseInsensitiveMatch = user;
+        }
+      }
+      if (caseInsensitiveMatch != null) {
+        return caseInsensitiveMatch;
+      }
+    }
+    return users.getJsonObject(0);
+  }
 }
@@ -0,0 +1,142 @@
+package org.folio.session;
+
+import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
+
+import io.vertx.ext.web.Session;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Non-persistent session of a single /saml/login request that hands the relay state over to pac4j.
+ *
+ * <p>The relay state is a plain field; the map for other attributes pac4j might store is
+ * only created on first use. No id, no PRNG, no timers.
+ */
+public class RelayStateSession implements Session {
+
+  private Object relayState;
+  private Map<String, Object> attributes;
+  private boolean destroyed;
+
+  public RelayStateSession(String relayState) {
+    this.relayState = relayState;
+  }
+
+  @Override
+  public Session regenerateId() {
+    return this;
+  }
+
+  @Override
+  public String id() {
+    return "";
+  }
+
+  @Override
+  public Session put(String key, Object obj) {
+    if (SAML_RELAY_STATE_ATTRIBUTE.equals(key)) {
+      relayState = obj;
+    } else if (obj == null) {
+      remove(key);
+    } else {
+      attributes().put(key, obj);
+    }
+    return this;
+  }
+
+  @Override
+  public Session putIfAbsent(String key, Object obj) {
+    if (get(key) == null) {
+      put(key, obj);
+    }
+    return this;
+  }
+
+  @Override
+  public Session computeIfAbsent(String key, Function<String, Object> mappingFunction) {
+    if (get(key) == null) {
+      put(key, mappingFunction.apply(key));
+    }
+    return this;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(String key) {
+    if (SAML_RELAY_STATE_ATTRIBUTE.equals(key)) {
+      return (T) relayState;
+    }
+    return attributes == null ? null : (T) attributes.get(key);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T remove(String key) {
+    if (SAML_RELAY_STATE_ATTRIBUTE.equals(key)) {
+      Object old = relayState;
+      relayState = null;
+      return (T) old;
+    }
+    return attributes == null ? null : (T) attributes.remove(key);
+  }
+
+  @Override
+  public Map<String, Object> data() {
+    Map<String, Object> data = attributes == null ? new HashMap<>() : new HashMap<>(attributes);
+    if (relayState != null) {
+      data.put(SAML_RELAY_STATE_ATTRIBUTE, relayState);
+    }
+    return data;
+  }
+
+  @Override
+  public long lastAccessed() {
+    return 0;
+  }
+
+  @Override
+  public void destroy() {
+    relayState = null;
+    attributes = null;
+    destroyed = true;
+  }
+
+  @Override
+  public boolean isDestroyed() {
+    return destroyed;
+  }
+
+  @Override
+  public boolean isRegenerated() {
+    return false;
+  }
+
+  @Override
+  public String oldId() {
+    return "";
+  }
+
+  @Override
+  public long timeout() {
+    return 0;
+  }
+
+  @Override
+  public void setAccessed() {
+
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return relayState == null && (attributes == null || attributes.isEmpty());
+  }
+
+  private Map<String, Object> attributes() {
+    if (attributes == null) {
+      attributes = new HashMap<>(4);
+    }
+    return attributes;
+  }
+}
@@ -0,0 +1,144 @@
+package org.folio.tracing;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import io.vertx.core.Future;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.client.HttpRequest;
+import java.util.Collections;
+import java.util.function.Function;
+import org.folio.util.model.OkapiHeaders;
+
+/**
+ * Creates OpenTelemetry {@link Span}s and propagates their W3C trace context ({@code traceparent} header).
+ *
+ * <p>The trace context travels in {@link OkapiHeaders#getTraceparent()}: it is read from the incoming
+ * request, replaced by the current span's context for child operations, and sent with each Okapi
+ * request, so that spans of other modules join the trace.
+ *
+ * <p>Spans are recorded and exported by the OpenTelemetry SDK registered with {@link GlobalOpenTelemetry},
+ * for example by the OpenTelemetry Java agent. Without one the spans are no-ops, but the incoming trace
+ * context is still propagated: the W3C propagator is used whatever propagators the SDK has.
+ */
+public class Tracer {
+
+  public static final String TRACEPARENT = "traceparent";
+  static final String INSTRUMENTATION_NAME = "org.folio.mod-login-saml";
+
+  private static final TextMapPropagator propagator = W3CTraceContextPropagator.getInstance();
+  private static final TextMapGetter<String> TRACEPARENT_GETTER = new TextMapGetter<>() {
+    @Override
+    public Iterable<String> keys(String traceparent) {
+      return Collections.singletonList(TRACEPARENT);
+    }
+
+    @Override
+    public String get(String traceparent, String key) {
+      return TRACEPARENT.equals(key) ? traceparent : null;
+    }
+  };
+  private static final TextMapSetter<String[]> TRACEPARENT_SETTER = (holder, key, value) -> {
+    if (TRACEPARENT.equals(key)) {
+      holder[0] = value;
+    }
+  };
+  private static final Tracer instance = new Tracer(GlobalOpenTelemetry.get());
+
+  private final io.opentelemetry.api.trace.Tracer tracer;
+
+  Tracer(OpenTelemetry openTelemetry) {
+    this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+  }
+
+  public static Tracer getInstance() {
+    return instance;
+  }
+
+  /**
+   * Start a span.
+   *
+   * @param parentTraceparent W3C traceparent of the parent; null or invalid starts a new trace
+   */
+  public Span startSpan(String name, String parentTraceparent) {
+    Context parent = parentTraceparent == null
+      ? Context.root() : propagator.extract(Context.root(), parentTraceparent, TRACEPARENT_GETTER);
+    return tracer.spanBuilder(name).setParent(parent).startSpan();
+  }
+
+  /**
+   * @return W3C traceparent header value of the span, null if it has no valid trace context
+   */
+  public static String getTraceparent(Span span) {
+    String[] holder = new String[1];
+    propagator.inject(Context.root().with(span), holder, TRACEPARENT_SETTER);
+    return holder[0];
+  }
+
+  /**
+   * Start a span that is the parent of all operations of the request: its context replaces the
+   * incoming one in the Okapi headers obtained from the routing context afterwards.
+   */
+  public Span startRequestSpan(String name, RoutingContext routingContext) {
+    Span span = startSpan(name, routingContext.request().getHeader(TRACEPARENT));
+    String traceparent = getTraceparent(span);
+    if (traceparent != null) {
+      routingContext.put(TRACEPARENT, traceparent);
+    }
+    return span;
+  }
+
+  /**
+   * End the span with status ERROR and the cause recorded as exception event.
+   */
+  public static void end(Span span, Throwable cause) {
+    span.setStatus(StatusCode.ERROR, cause.getMessage() == null ? "" : cause.getMessage());
+    span.recordException(cause);
+    span.end();
+  }
+
+  /**
+   * Run the action in a child span of the headers' trace context.
+   *
+   * @param action gets the headers with the trace context of the child span
+   * @return the action's future; the span ends when it completes
+   */
+  public <T> Future<T> trace(String name, OkapiHeaders okapiHeaders, Function<OkapiHeaders, Future<T>> action) {
+    Span span = startSpan(name, okapiHeaders.getTraceparent());
+    if (okapiHeaders.getTenant() != null) {
+      span.setAttribute("tenant", okapiHeaders.getTenant());
+    }
+    Future<T> future;
+    try {
+      future = action.apply(okapiHeaders.withTraceparent(getTraceparent(span)));
+    } catch (RuntimeException e) {
+      end(span, e);
+      throw e;
+    }
+    return future.onComplete(result -> {
+      if (result.succeeded()) {
+        span.end();
+      } else {
+        end(span, result.cause());
+      }
+    });
+  }
+
+  /**
+   * Add the traceparent header of the Okapi headers to the request, if there is one.
+   *
+   * @return request
+   */
+  public static <T> HttpRequest<T> inject(HttpRequest<T> request, OkapiHeaders okapiHeaders) {
+    if (okapiHeaders.getTraceparent() != null) {
+      request.putHeader(TRACEPARENT, okapiHeaders.getTraceparent());
+    }
+    return request;
+  }
+}
@@ -0,0 +1,4 @@
+/**
+ * OpenTelemetry spans with W3C trace context propagation in the Okapi requests.
+ */
+package org.folio.tracing;
@@ -0,0 +1,159 @@
+package org.folio.users;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.folio.config.model.SamlConfiguration;
+import org.folio.util.EnvUtil;
+
+/**
+ * Short lived cache of a tenant: (user property, SAML attribute value) to {@link UserIdentity}.
+ *
+ * <p>Enabled by the tenant's {@code user.cache.ttl} configuration (seconds, 0 or missing disables).
+ * At most {@code SAML_USER_CACHE_MAX_SIZE} entries, least recently used are evicted. Only active
+ * users are cached; a lookup that finds no or an inactive user removes the entry. A user deactivated
+ * in mod-users can still log in until the entry expires.
+ */
+public class UserCache {
+
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  private static final int MAX_SIZE = EnvUtil.getInt("SAML_USER_CACHE_MAX_SIZE", DEFAULT_MAX_SIZE);
+  private static final UserCache DISABLED = new UserCache(0, 0, System::nanoTime);
+
+  private final long ttlNanos;
+  private final LongSupplier clock;
+  private final Map<Key, Entry> entries;
+  private final LongAdder evictions = new LongAdder();
+
+  UserCache(long ttlNanos, int maxSize, LongSupplier clock) {
+    this.ttlNanos = ttlNanos;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() <= maxSize) {
+          return false;
+        }
+        evictions.increment();
+        return true;
+      }
+    };
+  }
+
+  /**
+   * @return cache configured by {@code user.cache.ttl}, a disabled cache if the value is missing or not positive
+   */
+  public static UserCache of(SamlConfiguration configuration) {
+    long ttlSeconds = NumberUtils.toLong(configuration.getUserCacheTtl(), 0);
+    if (ttlSeconds <= 0) {
+      return DISABLED;
+    }
+    return new UserCache(TimeUnit.SECONDS.toNanos(ttlSeconds), MAX_SIZE, System::nanoTime);
+  }
+
+  public boolean isEnabled() {
+    return ttlNanos > 0;
+  }
+
+  /**
+   * @return cached active user, null if there is none or it has expired
+   */
+  public UserIdentity get(String userProperty, String value) {
+    if (!isEnabled()) {
+      return null;
+    }
+    Key key = new Key(userProperty, value);
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (clock.getAsLong() - entry.expires >= 0) {
+        entries.remove(key);
+        return null;
+      }
+      return entry.user;
+    }
+  }
+
+  /**
+   * Cache an active user, remove the entry for an inactive user.
+   */
+  public void put(String userProperty, String value, UserIdentity user) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (!user.isActive()) {
+      invalidate(userProperty, value);
+      return;
+    }
+    Entry entry = new Entry(user, clock.getAsLong() + ttlNanos);
+    synchronized (entries) {
+      entries.put(new Key(userProperty, value), entry);
+    }
+  }
+
+  public void invalidate(String userProperty, String value) {
+    if (!isEnabled()) {
+      return;
+    }
+    synchronized (entries) {
+      entries.remove(new Key(userProperty, value));
+    }
+  }
+
+  /**
+   * @return number of entries evicted because the cache was full
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static class Key {
+    private final String userProperty;
+    private final String value;
+
+    Key(String userProperty, String value) {
+      this.userProperty = userProperty;
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return userProperty.equals(key.userProperty) && value.equals(key.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userProperty, value);
+    }
+  }
+
+  private static class Entry {
+    private final UserIdentity user;
+    private final long expires;
+
+    Entry(UserIdentity user, long expires) {
+      this.user = user;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package org.folio.users;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The fields of a user record that SSO needs to issue a token.
+ */
+public class UserIdentity {
+
+  private final String id;
+  private final String username;
+  private final boolean active;
+
+  public UserIdentity(String id, String username, boolean active) {
+    this.id = id;
+    this.username = username;
+    this.active = active;
+  }
+
+  /**
+   * @param user user record of mod-users
+   */
+  public static UserIdentity of(JsonObject user) {
+    return new UserIdentity(user.getString("id"), user.getString("username"), user.getBoolean("active", false));
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+}
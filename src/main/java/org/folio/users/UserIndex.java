@@ -0,0 +1,155 @@
+package org.folio.users;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index of users by the value of the tenant's user property.
+ *
+ * <p>Users and their keys are kept in dense arrays; two open-addressing tables of int slots map
+ * the lower-cased key and the user id to the position in the dense arrays. A lookup hashes the key
+ * and probes the table. Updates create a new index.
+ *
+ * <p>Keys match case-insensitively like the {@code ==} of the /users CQL query, and like
+ * {@code SamlAPI.rankUsers} an exact match wins over a match that differs in case only.
+ */
+final class UserIndex {
+
+  private final UserIdentity[] users;
+  private final String[] keys;
+  /** keys[i] lower-cased, see {@link #normalize(String)} */
+  private final String[] normalizedKeys;
+  private final int size;
+  /** slot: position in users/keys + 1, 0 = empty */
+  private final int[] keyTable;
+  private final int[] idTable;
+
+  private UserIndex(UserIdentity[] users, String[] keys, String[] normalizedKeys, int size,
+    int[] keyTable, int[] idTable) {
+
+    this.users = users;
+    this.keys = keys;
+    this.normalizedKeys = normalizedKeys;
+    this.size = size;
+    this.keyTable = keyTable;
+    this.idTable = idTable;
+  }
+
+  /**
+   * Build index of the first size users; keys[i] is the user property value of users[i], may be null.
+   * If several users have the same key the first one wins.
+   */
+  static UserIndex build(UserIdentity[] users, String[] keys, int size) {
+    int capacity = Integer.highestOneBit(Math.max(8, size) * 2 - 1) << 1;
+    int[] keyTable = new int[capacity];
+    int[] idTable = new int[capacity];
+    String[] normalizedKeys = new String[size];
+    for (int i = 0; i < size; i++) {
+      normalizedKeys[i] = normalize(keys[i]);
+      // keys equal when normalized are all inserted, in order; get decides between them
+      insert(keyTable, normalizedKeys[i], i);
+      insert(idTable, users[i].getId(), i);
+    }
+    return new UserIndex(users, keys, normalizedKeys, size, keyTable, idTable);
+  }
+
+  /**
+   * @return key lower-cased with the root locale, the same instance if it has no upper-case characters;
+   *     null if key is null
+   */
+  static String normalize(String key) {
+    return key == null ? null : key.toLowerCase(Locale.ROOT);
+  }
+
+  private static void insert(int[] table, String key, int position) {
+    if (key == null) {
+      return;
+    }
+    int mask = table.length - 1;
+    int slot = hash(key) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = position + 1;
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * @return the first user whose user property has the value key, otherwise the first user whose
+   *     user property differs from key in case only; null if none
+   */
+  UserIdentity get(String key) {
+    if (key == null) {
+      return null;
+    }
+    String normalizedKey = normalize(key);
+    int mask = keyTable.length - 1;
+    int slot = hash(normalizedKey) & mask;
+    int position;
+    UserIdentity caseInsensitiveMatch = null;
+    while ((position = keyTable[slot]) != 0) {
+      if (normalizedKey.equals(normalizedKeys[position - 1])) {
+        if (key.equals(keys[position - 1])) {
+          return users[position - 1];
+        }
+        if (caseInsensitiveMatch == null) {
+          caseInsensitiveMatch = users[position - 1];
+        }
+      }
+      slot = (slot + 1) & mask;
+    }
+    return caseInsensitiveMatch;
+  }
+
+  /**
+   * @return position of the user with the id, -1 if none
+   */
+  private int positionOfId(String id) {
+    int mask = idTable.length - 1;
+    int slot = hash(id) & mask;
+    int position;
+    while ((position = idTable[slot]) != 0) {
+      if (id.equals(users[position - 1].getId())) {
+        return position - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @param updated users that have been created or changed, with their user property values at the same position
+   * @return new index where the updated users replace users with the same id or are appended
+   */
+  UserIndex withUpdates(List<UserIdentity> updated, List<String> updatedKeys) {
+    UserIdentity[] newUsers = Arrays.copyOf(users, size + updated.size());
+    String[] newKeys = Arrays.copyOf(keys, size + updated.size());
+    int newSize = size;
+    Map<String, Integer> appended = new HashMap<>();
+    for (int i = 0; i < updated.size(); i++) {
+      UserIdentity user = updated.get(i);
+      int position = positionOfId(user.getId());
+      if (position < 0) {
+        position = appended.getOrDefault(user.getId(), -1);
+      }
+      if (position < 0) {
+        position = newSize++;
+        appended.put(user.getId(), position);
+      }
+      newUsers[position] = user;
+      newKeys[position] = updatedKeys.get(i);
+    }
+    return build(newUsers, newKeys, newSize);
+  }
+}
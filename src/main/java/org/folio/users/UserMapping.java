@@ -0,0 +1,109 @@
+package org.folio.users;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.folio.config.model.SamlConfiguration;
+
+/**
+ * A SAML attribute whose value is matched against a user property.
+ *
+ * <p>The tenant's {@code user.mappings} configuration is a JSON array of
+ * {@code {"samlAttribute": ..., "userProperty": ...}} objects in order of preference. Without it the
+ * single mapping of {@code saml.attribute} and {@code user.property} is used.
+ */
+public class UserMapping {
+
+  public static final String DEFAULT_SAML_ATTRIBUTE = "UserID";
+  public static final String DEFAULT_USER_PROPERTY = "externalSystemId";
+  /** user properties that the /users CQL query can match, mod-users has no index for others */
+  public static final List<String> SUPPORTED_USER_PROPERTIES =
+    List.of("barcode", "externalSystemId", "id", "username", "personal.email");
+
+  private final String samlAttribute;
+  private final String userProperty;
+  private final String[] userPropertyPath;
+
+  public UserMapping(String samlAttribute, String userProperty) {
+    this.samlAttribute = samlAttribute;
+    this.userProperty = userProperty;
+    this.userPropertyPath = userProperty.split("\\.");
+  }
+
+  /**
+   * @return the mappings of the configuration, in order of preference; never empty
+   */
+  public static List<UserMapping> of(SamlConfiguration configuration) {
+    List<UserMapping> mappings = parse(configuration.getUserMappings());
+    if (!mappings.isEmpty()) {
+      return mappings;
+    }
+    return List.of(new UserMapping(
+      configuration.getSamlAttribute() == null ? DEFAULT_SAML_ATTRIBUTE : configuration.getSamlAttribute(),
+      configuration.getUserProperty() == null ? DEFAULT_USER_PROPERTY : configuration.getUserProperty()));
+  }
+
+  /**
+   * @param json JSON array of mappings as stored in {@code user.mappings}, may be null or blank
+   * @return the mappings, empty list if json is null or blank
+   * @throws io.vertx.core.json.DecodeException if json is not a JSON array
+   * @throws IllegalArgumentException if a mapping is invalid, see {@link #validate(String, String)}
+   */
+  public static List<UserMapping> parse(String json) {
+    if (json == null || json.isBlank()) {
+      return Collections.emptyList();
+    }
+    JsonArray array = new JsonArray(json);
+    List<UserMapping> mappings = new ArrayList<>(array.size());
+    for (int i = 0; i < array.size(); i++) {
+      JsonObject mapping = array.getJsonObject(i);
+      String samlAttribute = mapping.getString("samlAttribute");
+      String userProperty = mapping.getString("userProperty");
+      try {
+        validate(samlAttribute, userProperty);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(e.getMessage() + ": " + mapping.encode(), e);
+      }
+      mappings.add(new UserMapping(samlAttribute, userProperty));
+    }
+    return mappings;
+  }
+
+  /**
+   * @throws IllegalArgumentException if samlAttribute is blank or userProperty isn't one of
+   *     {@link #SUPPORTED_USER_PROPERTIES}
+   */
+  public static void validate(String samlAttribute, String userProperty) {
+    if (samlAttribute == null || samlAttribute.isBlank() || userProperty == null) {
+      throw new IllegalArgumentException("user mapping requires samlAttribute and userProperty");
+    }
+    if (!SUPPORTED_USER_PROPERTIES.contains(userProperty)) {
+      throw new IllegalArgumentException("Unsupported user property: " + userProperty);
+    }
+  }
+
+  public String getSamlAttribute() {
+    return samlAttribute;
+  }
+
+  public String getUserProperty() {
+    return userProperty;
+  }
+
+  /**
+   * @return value of the user property, a dotted path like personal.email is resolved; null if missing
+   */
+  public String valueOf(JsonObject user) {
+    JsonObject object = user;
+    for (int i = 0; i < userPropertyPath.length - 1; i++) {
+      object = object.getJsonObject(userPropertyPath[i]);
+      if (object == null) {
+        return null;
+      }
+    }
+    Object value = object.getValue(userPropertyPath[userPropertyPath.length - 1]);
+    return value == null ? null : value.toString();
+  }
+}
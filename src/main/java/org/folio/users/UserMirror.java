@@ -0,0 +1,217 @@
+package org.folio.users;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import javax.ws.rs.core.UriBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.util.DownstreamException;
+import org.folio.util.EnvUtil;
+import org.folio.util.StringUtil;
+import org.folio.util.model.OkapiHeaders;
+
+/**
+ * Local copy of a tenant's users with only the fields SSO needs: id, username, active and the value
+ * of the configured user property.
+ *
+ * <p>Enabled per tenant by the {@code user.mirror} configuration. Syncs are started by the
+ * {@code _timer} call of POST /saml/user-mirror/sync that Okapi sends every minute with a token
+ * carrying the module permissions; /saml/callback only reads the mirror, it never starts a sync
+ * and never passes the end user's token to one. The first sync is a full load paged by id.
+ * Afterwards every {@code SAML_USER_MIRROR_SYNC_SECONDS} a delta sync fetches the users with a newer
+ * {@code metadata.updatedDate}, and every {@code SAML_USER_MIRROR_FULL_SYNC_SECONDS} a full load
+ * drops deleted users.
+ *
+ * <p>Values match case-insensitively, see {@link UserIndex}.
+ *
+ * <p>A hit is trusted without asking mod-users: a deactivated user is seen with the next delta sync,
+ * a deleted user only with the next full load.
+ */
+public class UserMirror {
+
+  public static final long DEFAULT_SYNC_SECONDS = 300;
+  public static final long DEFAULT_FULL_SYNC_SECONDS = 86400;
+  public static final int DEFAULT_PAGE_SIZE = 1000;
+  /** delta syncs overlap by this much to tolerate clock differences between us and mod-users */
+  static final long CLOCK_SKEW_SECONDS = 300;
+  /** wait at least this long after a failed sync */
+  static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+  private static final Logger log = LogManager.getLogger(UserMirror.class);
+  private static final Map<String, UserMirror> mirrors = new ConcurrentHashMap<>(); // key: tenantId
+
+  private final String tenantId;
+  private final String userProperty;
+  private final UserMapping userMapping;
+  private final long syncNanos;
+  private final long fullSyncNanos;
+  private final int pageSize;
+  private final LongSupplier clock;
+  private final AtomicBoolean syncing = new AtomicBoolean();
+  private volatile UserIndex index;
+  private volatile long lastSync;
+  private volatile long lastFullSync;
+  private volatile long lastFailure;
+  private volatile boolean failed;
+  /** start of the last successful sync, with clock skew, as CQL timestamp */
+  private volatile Instant updatedSince;
+
+  UserMirror(String tenantId, String userProperty, long syncNanos, long fullSyncNanos, int pageSize,
+    LongSupplier clock) {
+    this.tenantId = tenantId;
+    this.userProperty = userProperty;
+    this.userMapping = new UserMapping(null, userProperty);
+    this.syncNanos = syncNanos;
+    this.fullSyncNanos = fullSyncNanos;
+    this.pageSize = pageSize;
+    this.clock = clock;
+  }
+
+  /**
+   * @return mirror of the tenant for the user property; a new, empty one if there was none or it
+   *     was for a different property
+   */
+  public static UserMirror forTenant(String tenantId, String userProperty) {
+    return mirrors.compute(tenantId, (key, mirror) -> {
+      if (mirror != null && mirror.userProperty.equals(userProperty)) {
+        return mirror;
+      }
+      return new UserMirror(tenantId, userProperty,
+        TimeUnit.SECONDS.toNanos(EnvUtil.getLong("SAML_USER_MIRROR_SYNC_SECONDS", DEFAULT_SYNC_SECONDS)),
+        TimeUnit.SECONDS.toNanos(EnvUtil.getLong("SAML_USER_MIRROR_FULL_SYNC_SECONDS", DEFAULT_FULL_SYNC_SECONDS)),
+        EnvUtil.getInt("SAML_USER_MIRROR_PAGE_SIZE", DEFAULT_PAGE_SIZE),
+        System::nanoTime);
+    });
+  }
+
+  /**
+   * Drop the tenant's mirror, for example when it has been disabled.
+   */
+  public static void remove(String tenantId) {
+    mirrors.remove(tenantId);
+  }
+
+  public String getUserProperty() {
+    return userProperty;
+  }
+
+  public boolean isLoaded() {
+    return index != null;
+  }
+
+  public int size() {
+    UserIndex current = index;
+    return current == null ? 0 : current.size();
+  }
+
+  /**
+   * @return mirrored user whose user property has the value, an exact match preferred over one that
+   *     differs in case only; null if not loaded yet or not found
+   */
+  public UserIdentity get(String value) {
+    UserIndex current = index;
+    return current == null ? null : current.get(value);
+  }
+
+  /**
+   * Start a sync if one is due and none is running.
+   *
+   * @param okapiHeaders headers of the {@code _timer} request, the token has the module permissions
+   * @return completes when the started sync completes, or immediately if none is started
+   */
+  public Future<Void> syncIfDue(Vertx vertx, WebClient webClient, OkapiHeaders okapiHeaders) {
+    long now = clock.getAsLong();
+    if (failed && now - lastFailure < RETRY_NANOS) {
+      return Future.succeededFuture();
+    }
+    boolean full = index == null || now - lastFullSync >= fullSyncNanos;
+    if (!full && now - lastSync < syncNanos) {
+      return Future.succeededFuture();
+    }
+    if (!syncing.compareAndSet(false, true)) {
+      return Future.succeededFuture();
+    }
+    Instant start = Instant.now().minusSeconds(CLOCK_SKEW_SECONDS);
+    List<UserIdentity> users = new ArrayList<>();
+    List<String> keys = new ArrayList<>();
+    String cql = full ? "cql.allRecords=1" : "metadata.updatedDate>\"" + updatedSince + "\"";
+    return fetch(webClient, okapiHeaders, cql, null, users, keys)
+      .compose(x -> vertx.<UserIndex>executeBlocking(promise -> {
+        UserIndex current = index;
+        if (full || current == null) {
+          promise.complete(UserIndex.build(users.toArray(new UserIdentity[0]), keys.toArray(new String[0]),
+            users.size()));
+        } else {
+          promise.complete(current.withUpdates(users, keys));
+        }
+      }, false))
+      .<Void>map(newIndex -> {
+        index = newIndex;
+        failed = false;
+        lastSync = now;
+        if (full) {
+          lastFullSync = now;
+        }
+        updatedSince = start;
+        log.info("User mirror of tenant {}: {} sync of {} users, {} users mirrored",
+          tenantId, full ? "full" : "delta", users.size(), size());
+        return null;
+      })
+      .onFailure(e -> {
+        failed = true;
+        lastFailure = clock.getAsLong();
+        log.warn("User mirror sync of tenant {} failed: {}", tenantId, e.getMessage());
+      })
+      .onComplete(x -> syncing.set(false));
+  }
+
+  private Future<Void> fetch(WebClient webClient, OkapiHeaders okapiHeaders, String cql, String afterId,
+    List<UserIdentity> users, List<String> keys) {
+
+    String query = (afterId == null ? cql : cql + " and id>" + StringUtil.cqlEncode(afterId)) + " sortBy id";
+    String uri = UriBuilder.fromPath("/users").queryParam("query", query).queryParam("limit", pageSize)
+      .build().toString();
+    return webClient.getAbs(okapiHeaders.getUrl() + uri)
+      .putHeader(XOkapiHeaders.TOKEN, okapiHeaders.getToken())
+      .putHeader(XOkapiHeaders.URL, okapiHeaders.getUrl())
+      .putHeader(XOkapiHeaders.TENANT, okapiHeaders.getTenant())
+      .expect(ResponsePredicate.SC_OK)
+      .expect(ResponsePredicate.JSON)
+      .send()
+      .recover(DownstreamException::failedFuture)
+      .compose(res -> {
+        JsonArray page = res.bodyAsJsonObject().getJsonArray("users");
+        String lastId = null;
+        for (int i = 0; i < page.size(); i++) {
+          JsonObject user = page.getJsonObject(i);
+          users.add(UserIdentity.of(user));
+          keys.add(userPropertyValue(user));
+          lastId = user.getString("id");
+        }
+        if (page.size() < pageSize || lastId == null) {
+          return Future.succeededFuture();
+        }
+        return fetch(webClient, okapiHeaders, cql, lastId, users, keys);
+      });
+  }
+
+  /**
+   * @return value of the user property, a dotted path like personal.email is resolved; null if missing
+   */
+  String userPropertyValue(JsonObject user) {
+    return userMapping.valueOf(user);
+  }
+}
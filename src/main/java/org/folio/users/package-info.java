@@ -0,0 +1,4 @@
+/**
+ * Resolution of the FOLIO user that belongs to a SAML identity.
+ */
+package org.folio.users;
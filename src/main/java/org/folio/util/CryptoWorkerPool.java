@@ -0,0 +1,120 @@
+package org.folio.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bounded worker pool for CPU heavy SAML work: Base64 decoding, XML parsing, signature verification
+ * and decryption of SAML responses. Keeps this work off the event loop.
+ *
+ * <p>{@code SAML_CRYPTO_POOL_SIZE} threads; at most {@code SAML_CRYPTO_MAX_PENDING} tasks, running
+ * and queued (default 8 per thread). Further tasks are rejected with {@link OverloadedException}
+ * instead of queueing up.
+ *
+ * <p>The executor belongs to the Vert.x instance of the last call; the module has a single one. Only one
+ * executor is kept, so a closed Vert.x instance, for example of a test, isn't retained; the executor of the
+ * previous instance is closed.
+ */
+public class CryptoWorkerPool {
+
+  public static final String NAME = "saml-crypto";
+  public static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private static final Logger log = LogManager.getLogger(CryptoWorkerPool.class);
+  private static final int POOL_SIZE = EnvUtil.getInt("SAML_CRYPTO_POOL_SIZE", DEFAULT_POOL_SIZE);
+  private static final CryptoWorkerPool instance = new CryptoWorkerPool(
+    POOL_SIZE, EnvUtil.getInt("SAML_CRYPTO_MAX_PENDING", 8 * POOL_SIZE));
+
+  private final int poolSize;
+  private final int maxPending;
+  private volatile VertxExecutor executor;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  CryptoWorkerPool(int poolSize, int maxPending) {
+    this.poolSize = poolSize;
+    this.maxPending = maxPending;
+  }
+
+  public static CryptoWorkerPool getInstance() {
+    return instance;
+  }
+
+  /**
+   * Run the task on the worker pool of the Vert.x instance.
+   *
+   * @return result of the task, completed on the caller's context; failed with
+   *     {@link OverloadedException} if too many tasks are pending
+   */
+  public <T> Future<T> execute(Vertx vertx, Callable<T> task) {
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      rejected.increment();
+      log.warn("{} worker pool overloaded, more than {} pending tasks", NAME, maxPending);
+      return Future.failedFuture(new OverloadedException("Too many concurrent SAML requests, try again later"));
+    }
+    Future<T> future = executor(vertx).executeBlocking(promise -> {
+      try {
+        promise.complete(task.call());
+      } catch (Exception e) {
+        promise.fail(e);
+      }
+    }, false);
+    return future.onComplete(x -> pending.decrementAndGet());
+  }
+
+  private WorkerExecutor executor(Vertx vertx) {
+    VertxExecutor current = executor;
+    if (current != null && current.vertx == vertx) {
+      return current.workerExecutor;
+    }
+    synchronized (this) {
+      if (executor == null || executor.vertx != vertx) {
+        VertxExecutor previous = executor;
+        executor = new VertxExecutor(vertx, vertx.createSharedWorkerExecutor(NAME, poolSize));
+        if (previous != null) {
+          // the threads of the previous Vert.x instance's pool are released with its last reference
+          previous.workerExecutor.close()
+            .onFailure(e -> log.warn("Closing {} worker executor failed: {}", NAME, e.getMessage(), e));
+        }
+      }
+      return executor.workerExecutor;
+    }
+  }
+
+  /**
+   * @return number of running and queued tasks
+   */
+  public int getPending() {
+    return pending.get();
+  }
+
+  /**
+   * @return number of tasks rejected since start
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  private static class VertxExecutor {
+    private final Vertx vertx;
+    private final WorkerExecutor workerExecutor;
+
+    VertxExecutor(Vertx vertx, WorkerExecutor workerExecutor) {
+      this.vertx = vertx;
+      this.workerExecutor = workerExecutor;
+    }
+  }
+
+  public static class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+      super(message);
+    }
+  }
+}
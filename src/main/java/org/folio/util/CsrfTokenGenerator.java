@@ -0,0 +1,41 @@
+package org.folio.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates CSRF tokens in random (version 4) UUID format.
+ *
+ * <p>{@link UUID#randomUUID()} draws from a single shared SecureRandom; on Linux this is
+ * NativePRNG that synchronizes on a global lock. Here each thread has its own DRBG instance,
+ * seeded once on first use, so concurrent logins do not contend.
+ */
+public final class CsrfTokenGenerator {
+
+  private static final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(CsrfTokenGenerator::newSecureRandom);
+
+  private CsrfTokenGenerator() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class.");
+  }
+
+  /**
+   * @return new random token, formatted like {@link UUID#toString()}
+   */
+  public static String generate() {
+    SecureRandom secureRandom = random.get();
+    long msb = secureRandom.nextLong();
+    long lsb = secureRandom.nextLong();
+    msb = (msb & ~0xf000L) | 0x4000L;                              // version 4
+    lsb = (lsb & 0x3fffffffffffffffL) | 0x8000000000000000L;       // IETF variant
+    return new UUID(msb, lsb).toString();
+  }
+
+  static SecureRandom newSecureRandom() {
+    try {
+      return SecureRandom.getInstance("DRBG");
+    } catch (NoSuchAlgorithmException e) {
+      return new SecureRandom();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package org.folio.util;
+
+import io.vertx.core.Future;
+
+/**
+ * Failure of an HTTP call to another module (mod-configuration, mod-users, mod-authtoken).
+ * The message of the cause is kept so that the client sees the same error text.
+ */
+public class DownstreamException extends RuntimeException {
+  private static final long serialVersionUID = -3387521960123516418L;
+
+  public DownstreamException(String message) {
+    super(message);
+  }
+
+  public DownstreamException(Throwable cause) {
+    super(cause.getMessage(), cause);
+  }
+
+  /**
+   * For use in {@link Future#recover}: fail with the cause wrapped into a DownstreamException.
+   */
+  public static <T> Future<T> failedFuture(Throwable cause) {
+    if (cause instanceof DownstreamException) {
+      return Future.failedFuture(cause);
+    }
+    return Future.failedFuture(new DownstreamException(cause));
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Read tuning parameters from environment variables.
+ */
+public final class EnvUtil {
+
+  private static final Logger log = LogManager.getLogger(EnvUtil.class);
+
+  private EnvUtil() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class");
+  }
+
+  /**
+   * @return value of environment variable name as long, defaultValue if unset or not a number
+   */
+  public static long getLong(String name, long defaultValue) {
+    return parseLong(name, System.getenv(name), defaultValue);
+  }
+
+  /**
+   * @return value of environment variable name as int, defaultValue if unset or not a number
+   */
+  public static int getInt(String name, int defaultValue) {
+    return (int) parseLong(name, System.getenv(name), defaultValue);
+  }
+
+  /**
+   * @return true if environment variable name is "true", false if it is "false", defaultValue otherwise
+   */
+  public static boolean getBoolean(String name, boolean defaultValue) {
+    return parseBoolean(System.getenv(name), defaultValue);
+  }
+
+  /**
+   * @return trimmed value of environment variable name, defaultValue if unset or blank
+   */
+  public static String getString(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return StringUtils.isBlank(value) ? defaultValue : value.trim();
+  }
+
+  static long parseLong(String name, String value, long defaultValue) {
+    if (StringUtils.isBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      log.warn("Ignoring {}={}, not a number, using {}", name, value, defaultValue);
+      return defaultValue;
+    }
+  }
+
+  static boolean parseBoolean(String value, boolean defaultValue) {
+    if ("true".equalsIgnoreCase(StringUtils.trim(value))) {
+      return true;
+    }
+    if ("false".equalsIgnoreCase(StringUtils.trim(value))) {
+      return false;
+    }
+    return defaultValue;
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.util;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+import net.shibboleth.utilities.java.support.resolver.ResolverException;
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.folio.config.ConfigurationsClient.MissingHeaderException;
+import org.folio.util.CryptoWorkerPool.OverloadedException;
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.messaging.decoder.MessageDecodingException;
+import org.opensaml.messaging.encoder.MessageEncodingException;
+import org.opensaml.security.SecurityException;
+import org.opensaml.xmlsec.encryption.support.DecryptionException;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.saml.exceptions.SAMLException;
+
+/**
+ * Classification of SSO failures that decides whether the SAML client of a tenant should be reloaded.
+ *
+ * <p>Only failures raised by pac4j, OpenSAML, the XML security library or the JCA, anywhere in the cause
+ * chain, are {@link #SAML}; anything unclassified is {@link #OTHER} and doesn't reload the client.
+ */
+public enum FailureType {
+  /** Bad input or unknown/inactive user, reloading the client doesn't help. */
+  USER,
+  /** Other module failed or is unreachable, reloading the client doesn't help. */
+  DOWNSTREAM,
+  /** This module is overloaded, reloading the client doesn't help. */
+  OVERLOAD,
+  /** SAML, crypto or IdP metadata failure, the client may be stale. */
+  SAML,
+  /** Unclassified, for example a bug or a bad configuration value, reloading the client doesn't help. */
+  OTHER;
+
+  private static final List<Class<? extends Throwable>> SAML_EXCEPTIONS = List.of(
+    TechnicalException.class,
+    SAMLException.class,
+    ResolverException.class,
+    ComponentInitializationException.class,
+    XMLParserException.class,
+    MarshallingException.class,
+    UnmarshallingException.class,
+    MessageDecodingException.class,
+    MessageEncodingException.class,
+    SecurityException.class,
+    DecryptionException.class,
+    XMLSecurityException.class,
+    GeneralSecurityException.class);
+
+  public static FailureType of(Throwable cause) {
+    if (cause instanceof UserErrorException
+        || cause instanceof ForbiddenException
+        || cause instanceof MissingHeaderException) {
+      return USER;
+    }
+    if (cause instanceof DownstreamException) {
+      return DOWNSTREAM;
+    }
+    if (cause instanceof OverloadedException) {
+      return OVERLOAD;
+    }
+    for (Throwable t = cause; t != null; t = t.getCause() == t ? null : t.getCause()) {
+      for (Class<? extends Throwable> samlException : SAML_EXCEPTIONS) {
+        if (samlException.isInstance(t)) {
+          return SAML;
+        }
+      }
+    }
+    return OTHER;
+  }
+}
@@ -0,0 +1,11 @@
+package org.folio.util;
+
+/**
+ * The user is not allowed to log in, for example because the account is inactive; reported with 403.
+ */
+public class ForbiddenException extends RuntimeException {
+
+  public ForbiddenException(String message) {
+    super(message);
+  }
+}
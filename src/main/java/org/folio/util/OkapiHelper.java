@@ -2,6 +2,7 @@ package org.folio.util;
 
 import io.vertx.ext.web.RoutingContext;
 import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.tracing.Tracer;
 import org.folio.util.model.OkapiHeaders;
 
 import java.util.Map;
@@ -25,6 +26,8 @@ public class OkapiHelper {
     headers.setTenant(routingContext.request().getHeader(XOkapiHeaders.TENANT));
     headers.setToken(routingContext.request().getHeader(XOkapiHeaders.TOKEN));
     headers.setPermissions(routingContext.request().getHeader(XOkapiHeaders.PERMISSIONS));
+    String traceparent = routingContext.get(Tracer.TRACEPARENT);
+    headers.setTraceparent(traceparent != null ? traceparent : routingContext.request().getHeader(Tracer.TRACEPARENT));
 
     return headers;
 
@@ -38,6 +41,7 @@ public class OkapiHelper {
     headers.setTenant(parsedHeaders.get(XOkapiHeaders.TENANT));
     headers.setToken(parsedHeaders.get(XOkapiHeaders.TOKEN));
     headers.setPermissions(parsedHeaders.get(XOkapiHeaders.PERMISSIONS));
+    headers.setTraceparent(parsedHeaders.get(Tracer.TRACEPARENT));
 
     return headers;
 
@@ -0,0 +1,134 @@
+package org.folio.util;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * HTTP-Redirect binding encoder for unsigned SAML messages: DEFLATE, Base64 and URL encoding
+ * of the message into the query string of the destination URL.
+ *
+ * <p>Deflater, deflate buffer and URL builder are reused per thread. Base64 output is written
+ * percent-encoded straight into the URL builder, there is no intermediate Base64 string.
+ */
+public final class RedirectBindingEncoder {
+
+  /** buffers larger than this are not kept for reuse */
+  static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+  private static final char[] BASE64 =
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+  private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+  private RedirectBindingEncoder() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class");
+  }
+
+  /**
+   * @param destination IdP SSO URL, may already contain a query string
+   * @param parameter name of the message parameter, SAMLRequest or SAMLResponse
+   * @param message serialized SAML message
+   * @param relayState relay state, omitted if null or empty
+   * @return redirect URL
+   */
+  public static String encode(String destination, String parameter, String message, String relayState) {
+    Buffers b = buffers.get();
+    try {
+      int length = b.deflate(message.getBytes(StandardCharsets.UTF_8));
+      StringBuilder url = b.url(destination.length() + parameter.length() + length * 2
+        + (relayState == null ? 0 : relayState.length() * 2 + 12));
+      url.append(destination)
+        .append(destination.indexOf('?') >= 0 ? '&' : '?')
+        .append(parameter).append('=');
+      appendBase64UrlEncoded(url, b.deflated, length);
+      if (relayState != null && !relayState.isEmpty()) {
+        url.append("&RelayState=").append(URLEncoder.encode(relayState, StandardCharsets.UTF_8));
+      }
+      return url.toString();
+    } finally {
+      b.release();
+    }
+  }
+
+  /**
+   * Base64 encode bytes, padding included, and percent-encode the characters '+', '/' and '='.
+   */
+  static void appendBase64UrlEncoded(StringBuilder out, byte[] bytes, int length) {
+    int i = 0;
+    for (; i + 2 < length; i += 3) {
+      int n = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+      appendChar(out, n >>> 18);
+      appendChar(out, n >>> 12);
+      appendChar(out, n >>> 6);
+      appendChar(out, n);
+    }
+    int remaining = length - i;
+    if (remaining == 1) {
+      int n = (bytes[i] & 0xff) << 16;
+      appendChar(out, n >>> 18);
+      appendChar(out, n >>> 12);
+      out.append("%3D%3D");
+    } else if (remaining == 2) {
+      int n = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8;
+      appendChar(out, n >>> 18);
+      appendChar(out, n >>> 12);
+      appendChar(out, n >>> 6);
+      out.append("%3D");
+    }
+  }
+
+  private static void appendChar(StringBuilder out, int sextet) {
+    char c = BASE64[sextet & 0x3f];
+    switch (c) {
+      case '+':
+        out.append("%2B");
+        break;
+      case '/':
+        out.append("%2F");
+        break;
+      default:
+        out.append(c);
+    }
+  }
+
+  private static class Buffers {
+    private final Deflater deflater = new Deflater(Deflater.DEFLATED, true);
+    private byte[] deflated = new byte[4096];
+    private StringBuilder url = new StringBuilder(4096);
+
+    /**
+     * @return number of deflated bytes in {@link #deflated}
+     */
+    int deflate(byte[] input) {
+      deflater.reset();
+      deflater.setInput(input);
+      deflater.finish();
+      int length = 0;
+      while (!deflater.finished()) {
+        if (length == deflated.length) {
+          byte[] larger = new byte[deflated.length * 2];
+          System.arraycopy(deflated, 0, larger, 0, length);
+          deflated = larger;
+        }
+        length += deflater.deflate(deflated, length, deflated.length - length);
+      }
+      return length;
+    }
+
+    StringBuilder url(int capacity) {
+      url.setLength(0);
+      url.ensureCapacity(capacity);
+      return url;
+    }
+
+    void release() {
+      if (deflated.length > MAX_RETAINED_SIZE) {
+        deflated = new byte[4096];
+      }
+      if (url.capacity() > MAX_RETAINED_SIZE) {
+        url = new StringBuilder(4096);
+      }
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package org.folio.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Checks size and complexity of a Base64 encoded SAMLResponse before pac4j decodes it into memory
+ * and builds a DOM.
+ *
+ * <p>A SAMLResponse whose Base64 length alone exceeds the limit, allowing for line breaks, is rejected
+ * without decoding. Otherwise the Base64 decoding is streamed into a StAX reader, nothing is buffered
+ * beyond the reader's own buffer. Limits: decoded bytes {@code SAML_RESPONSE_MAX_BYTES}, number of elements
+ * {@code SAML_RESPONSE_MAX_ELEMENTS}, element nesting depth {@code SAML_RESPONSE_MAX_DEPTH}.
+ * DTDs are rejected. Exceeding a limit throws {@link UserErrorException}; other XML errors are left
+ * to pac4j that reports them with its own messages.
+ */
+public class SamlResponseGuard {
+
+  public static final long DEFAULT_MAX_BYTES = 1024L * 1024;
+  public static final int DEFAULT_MAX_ELEMENTS = 10000;
+  public static final int DEFAULT_MAX_DEPTH = 50;
+
+  private static final Logger log = LogManager.getLogger(SamlResponseGuard.class);
+  private static final SamlResponseGuard instance = new SamlResponseGuard(
+    EnvUtil.getLong("SAML_RESPONSE_MAX_BYTES", DEFAULT_MAX_BYTES),
+    EnvUtil.getInt("SAML_RESPONSE_MAX_ELEMENTS", DEFAULT_MAX_ELEMENTS),
+    EnvUtil.getInt("SAML_RESPONSE_MAX_DEPTH", DEFAULT_MAX_DEPTH));
+
+  private final long maxBytes;
+  /** Base64 length of maxBytes, with a line break of up to two characters every 64 characters */
+  private final long maxEncodedLength;
+  private final int maxElements;
+  private final int maxDepth;
+  private final XMLInputFactory xmlInputFactory;
+
+  SamlResponseGuard(long maxBytes, int maxElements, int maxDepth) {
+    this.maxBytes = maxBytes;
+    long encodedLength = (maxBytes + 2) / 3 * 4;
+    this.maxEncodedLength = encodedLength + encodedLength / 64 * 2 + 2;
+    this.maxElements = maxElements;
+    this.maxDepth = maxDepth;
+    xmlInputFactory = XMLInputFactory.newFactory();
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+  }
+
+  public static SamlResponseGuard getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param samlResponse Base64 encoded SAMLResponse form parameter, null is left to pac4j
+   * @throws UserErrorException if a limit is exceeded
+   */
+  public void check(String samlResponse) {
+    if (samlResponse == null) {
+      return;
+    }
+    if (samlResponse.length() > maxEncodedLength) {
+      rejectSize();
+    }
+    LimitedInputStream decoded = new LimitedInputStream(
+      Base64.getMimeDecoder().wrap(new AsciiInputStream(samlResponse)), maxBytes);
+    XMLStreamReader reader = null;
+    try {
+      reader = xmlInputFactory.createXMLStreamReader(decoded);
+      int elements = 0;
+      int depth = 0;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            if (++elements > maxElements) {
+              reject("SAMLResponse exceeds " + maxElements + " elements");
+            }
+            if (++depth > maxDepth) {
+              reject("SAMLResponse exceeds nesting depth " + maxDepth);
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            break;
+          case XMLStreamConstants.DTD:
+            reject("SAMLResponse must not contain a DTD");
+            break;
+          default:
+            break;
+        }
+      }
+    } catch (XMLStreamException | IllegalArgumentException e) {
+      if (decoded.isLimitExceeded()) {
+        rejectSize();
+      }
+      // malformed Base64 or XML, pac4j reports it
+      log.debug("SAMLResponse is not well-formed: {}", e.getMessage());
+    } finally {
+      close(reader);
+    }
+  }
+
+  private void rejectSize() {
+    reject("SAMLResponse exceeds " + maxBytes + " bytes");
+  }
+
+  private static void reject(String message) {
+    throw new UserErrorException(message);
+  }
+
+  private static void close(XMLStreamReader reader) {
+    if (reader == null) {
+      return;
+    }
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads the characters of an ASCII string as bytes without copying it.
+   */
+  static class AsciiInputStream extends InputStream {
+    private final String s;
+    private int pos;
+
+    AsciiInputStream(String s) {
+      this.s = s;
+    }
+
+    @Override
+    public int read() {
+      return pos < s.length() ? s.charAt(pos++) & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (pos >= s.length()) {
+        return -1;
+      }
+      int n = Math.min(len, s.length() - pos);
+      for (int i = 0; i < n; i++) {
+        b[off + i] = (byte) s.charAt(pos++);
+      }
+      return n;
+    }
+  }
+
+  /**
+   * Fails with an IOException when more than limit bytes are read.
+   */
+  static class LimitedInputStream extends InputStream {
+    private final InputStream in;
+    private final long limit;
+    private long count;
+    private boolean limitExceeded;
+
+    LimitedInputStream(InputStream in, long limit) {
+      this.in = in;
+      this.limit = limit;
+    }
+
+    boolean isLimitExceeded() {
+      return limitExceeded;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b >= 0) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = in.read(b, off, len);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    private void count(int n) throws IOException {
+      count += n;
+      if (count > limit) {
+        limitExceeded = true;
+        throw new IOException("Limit of " + limit + " bytes exceeded");
+      }
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package org.folio.util;
+
+/**
+ * Bad input of the client or an unknown user, reported with 400.
+ */
+public class UserErrorException extends RuntimeException {
+
+  public UserErrorException(String message) {
+    super(message);
+  }
+}
@@ -11,6 +11,7 @@ public class OkapiHeaders {
   private String token;
   private String tenant;
   private String permissions;
+  private String traceparent;
 
   public String getUrl() {
     return url;
@@ -43,4 +44,28 @@ public class OkapiHeaders {
   public void setPermissions(String permissions) {
     this.permissions = permissions;
   }
+
+  /**
+   * @return W3C trace context of the current operation, null if none
+   */
+  public String getTraceparent() {
+    return traceparent;
+  }
+
+  public void setTraceparent(String traceparent) {
+    this.traceparent = traceparent;
+  }
+
+  /**
+   * @return copy with the trace context replaced
+   */
+  public OkapiHeaders withTraceparent(String traceparent) {
+    OkapiHeaders headers = new OkapiHeaders();
+    headers.setUrl(url);
+    headers.setToken(token);
+    headers.setTenant(tenant);
+    headers.setPermissions(permissions);
+    headers.setTraceparent(traceparent);
+    return headers;
+  }
 }
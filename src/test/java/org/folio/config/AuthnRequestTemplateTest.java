@@ -0,0 +1,44 @@
+package org.folio.config;
+
+import static org.folio.config.AuthnRequestTemplate.ID_PLACEHOLDER;
+import static org.folio.config.AuthnRequestTemplate.ISSUE_INSTANT_PLACEHOLDER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.time.Instant;
+import net.shibboleth.utilities.java.support.xml.DOMTypeSupport;
+import org.junit.Test;
+
+public class AuthnRequestTemplateTest {
+
+  private static final Instant NOW = Instant.parse("2022-04-01T10:11:12.123Z");
+
+  private static String xml(String id, Instant issueInstant, boolean idFirst) {
+    String idAttribute = "ID=\"" + id + "\"";
+    String instantAttribute = "IssueInstant=\"" + DOMTypeSupport.instantToString(issueInstant) + "\"";
+    return "<samlp:AuthnRequest Destination=\"https://idp\" "
+      + (idFirst ? idAttribute + " " + instantAttribute : instantAttribute + " " + idAttribute)
+      + " Version=\"2.0\"><saml:Issuer>sp</saml:Issuer></samlp:AuthnRequest>";
+  }
+
+  @Test
+  public void renderIdFirst() {
+    AuthnRequestTemplate template = AuthnRequestTemplate.of("https://idp",
+      xml(ID_PLACEHOLDER, ISSUE_INSTANT_PLACEHOLDER, true));
+    assertEquals("https://idp", template.getDestination());
+    assertEquals(xml("_abc", NOW, true), template.render("_abc", NOW));
+  }
+
+  @Test
+  public void renderIssueInstantFirst() {
+    AuthnRequestTemplate template = AuthnRequestTemplate.of("https://idp",
+      xml(ID_PLACEHOLDER, ISSUE_INSTANT_PLACEHOLDER, false));
+    assertEquals(xml("_def", NOW, false), template.render("_def", NOW));
+  }
+
+  @Test
+  public void missingPlaceholder() {
+    String xml = xml("_abc", ISSUE_INSTANT_PLACEHOLDER, true);
+    assertThrows(IllegalArgumentException.class, () -> AuthnRequestTemplate.of("https://idp", xml));
+  }
+}
@@ -0,0 +1,78 @@
+package org.folio.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
+import org.folio.config.CachingSignatureTrustEngineProvider.CachingCredentialResolver;
+import org.junit.Test;
+import org.opensaml.core.criterion.EntityIdCriterion;
+import org.opensaml.saml.criterion.EntityRoleCriterion;
+import org.opensaml.saml.metadata.resolver.RefreshableMetadataResolver;
+import org.opensaml.saml.saml2.metadata.IDPSSODescriptor;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.credential.CredentialResolver;
+import org.opensaml.security.credential.UsageType;
+import org.opensaml.security.criteria.KeyNameCriterion;
+import org.opensaml.security.criteria.UsageCriterion;
+import org.opensaml.xmlsec.signature.support.SignatureTrustEngine;
+
+public class CachingSignatureTrustEngineProviderTest {
+
+  private static CriteriaSet criteria(String entityId) {
+    return new CriteriaSet(new EntityIdCriterion(entityId),
+      new EntityRoleCriterion(IDPSSODescriptor.DEFAULT_ELEMENT_NAME),
+      new UsageCriterion(UsageType.SIGNING));
+  }
+
+  @Test
+  public void credentialsAreCachedPerCriteria() throws Exception {
+    CredentialResolver delegate = mock(CredentialResolver.class);
+    Credential credential = mock(Credential.class);
+    when(delegate.resolve(any())).thenReturn(List.of(credential));
+    CachingCredentialResolver resolver = new CachingCredentialResolver(delegate);
+
+    assertSame(credential, resolver.resolveSingle(criteria("idp")));
+    assertEquals(List.of(credential), resolver.resolve(criteria("idp")));
+    verify(delegate, times(1)).resolve(any());
+
+    resolver.resolve(criteria("other-idp"));
+    verify(delegate, times(2)).resolve(any());
+    assertEquals(2, resolver.size());
+  }
+
+  @Test
+  public void otherCriteriaAreNotCached() throws Exception {
+    CredentialResolver delegate = mock(CredentialResolver.class);
+    when(delegate.resolve(any())).thenReturn(List.of());
+    CachingCredentialResolver resolver = new CachingCredentialResolver(delegate);
+
+    CriteriaSet criteria = criteria("idp");
+    criteria.add(new KeyNameCriterion("key"));
+    resolver.resolve(criteria);
+    resolver.resolve(criteria);
+    verify(delegate, times(2)).resolve(any());
+    assertEquals(0, resolver.size());
+  }
+
+  @Test
+  public void engineIsRebuiltOnMetadataUpdate() {
+    RefreshableMetadataResolver metadataResolver = mock(RefreshableMetadataResolver.class);
+    when(metadataResolver.getLastUpdate()).thenReturn(Instant.ofEpochSecond(1));
+    CachingSignatureTrustEngineProvider provider = new CachingSignatureTrustEngineProvider(metadataResolver);
+
+    SignatureTrustEngine engine = provider.build();
+    assertSame(engine, provider.build());
+
+    when(metadataResolver.getLastUpdate()).thenReturn(Instant.ofEpochSecond(2));
+    assertNotSame(engine, provider.build());
+  }
+}
@@ -0,0 +1,42 @@
+package org.folio.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ClientInvalidationLimiterTest {
+
+  @Test
+  public void limitPerWindow() {
+    AtomicLong clock = new AtomicLong();
+    ClientInvalidationLimiter limiter = new ClientInvalidationLimiter(2, 100, clock::get);
+
+    assertTrue(limiter.tryAcquire("a"));
+    assertTrue(limiter.tryAcquire("a"));
+    assertFalse(limiter.tryAcquire("a"));
+    assertTrue(limiter.tryAcquire("b"));
+
+    clock.set(99);
+    assertFalse(limiter.tryAcquire("a"));
+    clock.set(100);
+    assertTrue(limiter.tryAcquire("a"));
+
+    assertEquals(3, limiter.getAllowed("a"));
+    assertEquals(2, limiter.getSuppressed("a"));
+    assertEquals(1, limiter.getAllowed("b"));
+    assertEquals(0, limiter.getSuppressed("c"));
+  }
+
+  @Test
+  public void reset() {
+    ClientInvalidationLimiter limiter = new ClientInvalidationLimiter(1, 100, () -> 0);
+    assertTrue(limiter.tryAcquire("a"));
+    assertFalse(limiter.tryAcquire("a"));
+    limiter.reset("a");
+    assertTrue(limiter.tryAcquire("a"));
+    assertEquals(1, limiter.getAllowed("a"));
+  }
+}
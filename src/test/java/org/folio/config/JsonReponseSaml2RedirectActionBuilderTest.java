@@ -1,14 +1,56 @@
 package org.folio.config;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
 
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.folio.rest.jaxrs.model.SamlLogin;
+import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.saml.metadata.resolver.RefreshableMetadataResolver;
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.context.session.MockSessionStore;
 import org.pac4j.core.exception.http.StatusAction;
 import org.pac4j.saml.client.SAML2Client;
+import org.pac4j.saml.metadata.SAML2MetadataResolver;
+import org.pac4j.saml.store.SAMLMessageStore;
+import org.pac4j.saml.store.SAMLMessageStoreFactory;
 
 public class JsonReponseSaml2RedirectActionBuilderTest {
 
+  private static final String RELAY_STATE = "http://localhost:3000/?csrfToken=1";
+
+  private static Vertx vertx;
+  private static SamlResponseFactory factory;
+
+  @BeforeClass
+  public static void beforeClass() {
+    vertx = Vertx.vertx();
+    factory = SamlResponseFactory.create();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    vertx.close();
+  }
+
+  private static SamlLogin login(JsonReponseSaml2RedirectActionBuilder builder) {
+    MockWebContext webContext = MockWebContext.create();
+    MockSessionStore sessionStore = new MockSessionStore();
+    sessionStore.set(webContext, SAML_RELAY_STATE_ATTRIBUTE, RELAY_STATE);
+    return ((SamlLoginAction) builder.getRedirectionAction(webContext, sessionStore).get()).getSamlLogin();
+  }
+
   @Test
   public void statusAction500() {
     JsonReponseSaml2RedirectActionBuilder builder =
@@ -17,4 +59,61 @@ public class JsonReponseSaml2RedirectActionBuilderTest {
       builder.getRedirectionAction(null, null)).getMessage());
   }
 
+  @Test
+  public void templateDroppedOnMetadataUpdate() {
+    RefreshableMetadataResolver metadataResolver = mock(RefreshableMetadataResolver.class);
+    when(metadataResolver.getLastUpdate()).thenReturn(Instant.ofEpochSecond(1));
+    SAML2MetadataResolver idpMetadataResolver = mock(SAML2MetadataResolver.class);
+    when(idpMetadataResolver.resolve()).thenReturn(metadataResolver);
+    SAML2Client client = spy(factory.client(vertx.getOrCreateContext(), "builder-metadata"));
+    doReturn(idpMetadataResolver).when(client).getIdentityProviderMetadataResolver();
+    JsonReponseSaml2RedirectActionBuilder builder = new JsonReponseSaml2RedirectActionBuilder(client);
+
+    login(builder);
+    AuthnRequestTemplate template = builder.getTemplate();
+    Assert.assertNotNull(template);
+    login(builder);
+    Assert.assertSame(template, builder.getTemplate());
+
+    when(metadataResolver.getLastUpdate()).thenReturn(Instant.ofEpochSecond(2));
+    login(builder);
+    Assert.assertNotNull(builder.getTemplate());
+    Assert.assertNotSame(template, builder.getTemplate());
+  }
+
+  @Test
+  public void signedPostLogin() {
+    SAMLMessageStore messageStore = mock(SAMLMessageStore.class);
+    SAMLMessageStoreFactory messageStoreFactory = mock(SAMLMessageStoreFactory.class);
+    when(messageStoreFactory.getMessageStore(any(), any())).thenReturn(messageStore);
+    SAML2Client client = factory.client(vertx.getOrCreateContext(), "builder-signed");
+    client.getConfiguration().setAuthnRequestSigned(true);
+    client.getConfiguration().setSamlMessageStoreFactory(messageStoreFactory);
+    client.init(true);
+    JsonReponseSaml2RedirectActionBuilder builder = new JsonReponseSaml2RedirectActionBuilder(client);
+
+    SamlLogin samlLogin = login(builder);
+    Assert.assertEquals(SamlLogin.BindingMethod.POST, samlLogin.getBindingMethod());
+    Assert.assertEquals(RELAY_STATE, samlLogin.getRelayState());
+    String xml = new String(Base64.getDecoder().decode(samlLogin.getSamlRequest()), StandardCharsets.UTF_8);
+    assertThat(xml, containsString("SignatureValue>"));
+    Assert.assertNull(builder.getTemplate());
+    verify(messageStore).set(anyString(), any(XMLObject.class));
+  }
+
+  @Test
+  public void noTemplateWithMessageStore() {
+    SAMLMessageStore messageStore = mock(SAMLMessageStore.class);
+    SAMLMessageStoreFactory messageStoreFactory = mock(SAMLMessageStoreFactory.class);
+    when(messageStoreFactory.getMessageStore(any(), any())).thenReturn(messageStore);
+    SAML2Client client = factory.client(vertx.getOrCreateContext(), "builder-store");
+    client.getConfiguration().setSamlMessageStoreFactory(messageStoreFactory);
+    client.init(true);
+    JsonReponseSaml2RedirectActionBuilder builder = new JsonReponseSaml2RedirectActionBuilder(client);
+
+    login(builder);
+    login(builder);
+    Assert.assertNull(builder.getTemplate());
+    verify(messageStore, times(2)).set(anyString(), any(XMLObject.class));
+  }
 }
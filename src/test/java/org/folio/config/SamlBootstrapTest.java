@@ -0,0 +1,52 @@
+package org.folio.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.folio.jfr.BootstrapEvent;
+import org.junit.Test;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.saml.saml2.core.AuthnRequest;
+
+public class SamlBootstrapTest {
+
+  @Test
+  public void runTwice() throws Exception {
+    SamlBootstrap.run();
+    assertThat(SamlBootstrap.isDone(), is(true));
+
+    // the second run does nothing, so it doesn't record a bootstrap
+    Path file = Files.createTempFile("bootstrap", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(BootstrapEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+      SamlBootstrap.run();
+      recording.stop();
+      recording.dump(file);
+      assertThat(RecordingFile.readAllEvents(file), is(empty()));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    SamlBootstrap.run();
+    AuthnRequest authnRequest = (AuthnRequest) XMLObjectProviderRegistrySupport.getBuilderFactory()
+      .getBuilderOrThrow(AuthnRequest.DEFAULT_ELEMENT_NAME).buildObject(AuthnRequest.DEFAULT_ELEMENT_NAME);
+    authnRequest.setID("_request1");
+    authnRequest.setIssueInstant(Instant.now());
+    XMLObject parsed = SamlBootstrap.roundTrip(authnRequest);
+    assertThat(parsed, instanceOf(AuthnRequest.class));
+    assertThat(((AuthnRequest) parsed).getID(), is("_request1"));
+  }
+}
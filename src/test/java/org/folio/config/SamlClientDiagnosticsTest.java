@@ -0,0 +1,70 @@
+package org.folio.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.vertx.core.Future;
+import java.time.Instant;
+import org.folio.config.model.SamlClientComposite;
+import org.folio.config.model.SamlConfiguration;
+import org.folio.rest.jaxrs.model.SamlClient;
+import org.folio.rest.jaxrs.model.SamlClients;
+import org.junit.After;
+import org.junit.Test;
+import org.pac4j.saml.client.SAML2Client;
+
+public class SamlClientDiagnosticsTest {
+
+  private static final String TENANT = "diagnostics-test";
+
+  @After
+  public void tearDown() {
+    SamlConfigHolder.getInstance().removeClient(TENANT);
+  }
+
+  @Test
+  public void cachedClient() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setIdpMetadata("<xml/>");
+    configuration.setKeystore("AAAAAAAA");
+    SamlConfigHolder.getInstance().putClient(TENANT, new SamlClientComposite(mock(SAML2Client.class), configuration));
+
+    SamlClient client = SamlClientDiagnostics.of(TENANT, Instant.now().plusSeconds(5));
+    assertTrue(client.getCached());
+    assertTrue(client.getVersion() > 0);
+    assertTrue(client.getAgeSeconds() >= 4);
+    assertEquals(Integer.valueOf(6), client.getIdpMetadataSize());
+    assertEquals(Integer.valueOf(6), client.getKeystoreSize());
+    assertEquals(Integer.valueOf(2 * 6 + 8 + 6), client.getEstimatedRetainedSize());
+    assertEquals(Integer.valueOf(0), client.getUserCacheSize());
+
+    SamlClients clients = SamlClientDiagnostics.list(TENANT, Instant.now());
+    assertEquals(1, clients.getTotalRecords().intValue());
+    assertEquals(TENANT, clients.getClients().get(0).getTenant());
+    assertEquals(Integer.valueOf(26), clients.getEstimatedRetainedSize());
+    assertEquals(0, SamlClientDiagnostics.list("unknown", Instant.now()).getTotalRecords().intValue());
+  }
+
+  @Test
+  public void failedLoad() {
+    SamlConfigHolder.getInstance().loadClient(TENANT, true, () -> Future.failedFuture("no IdP"));
+
+    SamlClient client = SamlClientDiagnostics.of(TENANT, Instant.now());
+    assertFalse(client.getCached());
+    assertNull(client.getVersion());
+    assertEquals("no IdP", client.getLastError().getMessage());
+    SamlClients clients = SamlClientDiagnostics.list(TENANT, Instant.now());
+    assertEquals(1, clients.getTotalRecords().intValue());
+    assertFalse(clients.getClients().get(0).getCached());
+    assertEquals(Integer.valueOf(0), clients.getEstimatedRetainedSize());
+  }
+
+  @Test
+  public void estimateRetainedSize() {
+    assertEquals(0, SamlClientDiagnostics.estimateRetainedSize(0, 0, 0));
+    assertEquals(2000 + 400 + 300, SamlClientDiagnostics.estimateRetainedSize(1000, 400, 300));
+  }
+}
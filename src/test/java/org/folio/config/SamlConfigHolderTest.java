@@ -0,0 +1,126 @@
+package org.folio.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.config.model.SamlClientComposite;
+import org.folio.config.model.SamlConfiguration;
+import org.junit.After;
+import org.junit.Test;
+import org.pac4j.saml.client.SAML2Client;
+
+public class SamlConfigHolderTest {
+
+  private static final String TENANT = "holder-test";
+
+  private final SamlConfigHolder holder = SamlConfigHolder.getInstance();
+
+  @After
+  public void tearDown() {
+    holder.removeClient(TENANT);
+  }
+
+  private static SamlClientComposite composite() {
+    return new SamlClientComposite(mock(SAML2Client.class), new SamlConfiguration());
+  }
+
+  @Test
+  public void failedReloadKeepsCurrentClient() {
+    SamlClientComposite current = composite();
+    holder.putClient(TENANT, current);
+    SAML2Client client = holder.findClient(TENANT).getClient();
+
+    Future<SamlClientComposite> reload = holder.loadClient(TENANT, true, () -> Future.failedFuture("bad"));
+
+    assertTrue(reload.failed());
+    assertSame(client, holder.findClient(TENANT).getClient());
+  }
+
+  @Test
+  public void currentClientServesUntilReloadCompletes() {
+    holder.putClient(TENANT, composite());
+    SAML2Client oldClient = holder.findClient(TENANT).getClient();
+    Promise<SamlClientComposite> promise = Promise.promise();
+
+    Future<SamlClientComposite> reload = holder.loadClient(TENANT, true, promise::future);
+    assertSame(oldClient, holder.findClient(TENANT).getClient());
+
+    SamlClientComposite replacement = composite();
+    promise.complete(replacement);
+    assertSame(replacement.getClient(), reload.result().getClient());
+    assertSame(replacement.getClient(), holder.findClient(TENANT).getClient());
+  }
+
+  @Test
+  public void olderLoadDoesNotReplaceNewerClient() {
+    Promise<SamlClientComposite> older = Promise.promise();
+    Promise<SamlClientComposite> newer = Promise.promise();
+    holder.loadClient(TENANT, true, older::future);
+    holder.loadClient(TENANT, true, newer::future);
+
+    SamlClientComposite newerComposite = composite();
+    newer.complete(newerComposite);
+    older.complete(composite());
+
+    assertSame(newerComposite.getClient(), holder.findClient(TENANT).getClient());
+  }
+
+  @Test
+  public void concurrentLoadsAreCoalesced() {
+    AtomicInteger loads = new AtomicInteger();
+    Promise<SamlClientComposite> promise = Promise.promise();
+
+    Future<SamlClientComposite> first = holder.loadClient(TENANT, false, () -> {
+      loads.incrementAndGet();
+      return promise.future();
+    });
+    Future<SamlClientComposite> second = holder.loadClient(TENANT, false, () -> {
+      loads.incrementAndGet();
+      return promise.future();
+    });
+
+    assertSame(first, second);
+    promise.complete(composite());
+    assertEquals(1, loads.get());
+    assertTrue(holder.findClient(TENANT).getVersion() > 0);
+  }
+
+  @Test
+  public void loadRecordsInitDurationAndLastError() {
+    holder.loadClient(TENANT, true, () -> Future.failedFuture("no IdP"));
+    assertEquals("no IdP", holder.getLastError(TENANT).getMessage());
+
+    holder.loadClient(TENANT, true, () -> {
+      try {
+        Thread.sleep(2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Future.succeededFuture(composite());
+    });
+    assertTrue(holder.findClient(TENANT).getInitNanos() >= 2_000_000);
+    // the last error stays for diagnostics
+    assertEquals("no IdP", holder.getLastError(TENANT).getMessage());
+    assertTrue(holder.removeClient(TENANT));
+    assertFalse(holder.removeClient(TENANT));
+  }
+
+  @Test
+  public void removeKeepsNewerClient() {
+    holder.putClient(TENANT, composite());
+    SamlClientComposite evicted = holder.findClient(TENANT);
+    holder.putClient(TENANT, composite());
+    SamlClientComposite newer = holder.findClient(TENANT);
+
+    assertFalse(holder.removeClient(TENANT, evicted));
+    assertSame(newer, holder.findClient(TENANT));
+    assertTrue(holder.removeClient(TENANT, newer));
+    assertFalse(holder.removeClient(TENANT));
+  }
+}
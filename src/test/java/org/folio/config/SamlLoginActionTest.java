@@ -0,0 +1,29 @@
+package org.folio.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import io.vertx.core.json.JsonObject;
+import org.folio.rest.jaxrs.model.SamlLogin;
+import org.junit.Test;
+
+public class SamlLoginActionTest {
+
+  @Test
+  public void content() {
+    SamlLogin samlLogin = new SamlLogin()
+      .withBindingMethod(SamlLogin.BindingMethod.POST)
+      .withLocation("https://idp")
+      .withSamlRequest("PHNhbWxwOkF1dGhuUmVxdWVzdC8+")
+      .withRelayState("https://stripes");
+    SamlLoginAction action = new SamlLoginAction(samlLogin);
+
+    assertEquals(200, action.getCode());
+    assertSame(samlLogin, action.getSamlLogin());
+    JsonObject json = new JsonObject(action.getContent());
+    assertEquals("POST", json.getString("bindingMethod"));
+    assertEquals("https://idp", json.getString("location"));
+    assertEquals("PHNhbWxwOkF1dGhuUmVxdWVzdC8+", json.getString("samlRequest"));
+    assertEquals("https://stripes", json.getString("relayState"));
+  }
+}
@@ -0,0 +1,529 @@
+package org.folio.config;
+
+import io.vertx.core.Context;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
+import org.apache.commons.io.IOUtils;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.core.xml.schema.XSString;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.common.SAMLVersion;
+import org.opensaml.saml.common.xml.SAMLConstants;
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Attribute;
+import org.opensaml.saml.saml2.core.AttributeStatement;
+import org.opensaml.saml.saml2.core.AttributeValue;
+import org.opensaml.saml.saml2.core.Audience;
+import org.opensaml.saml.saml2.core.AudienceRestriction;
+import org.opensaml.saml.saml2.core.AuthnContext;
+import org.opensaml.saml.saml2.core.AuthnContextClassRef;
+import org.opensaml.saml.saml2.core.AuthnStatement;
+import org.opensaml.saml.saml2.core.Conditions;
+import org.opensaml.saml.saml2.core.Issuer;
+import org.opensaml.saml.saml2.core.NameID;
+import org.opensaml.saml.saml2.core.NameIDType;
+import org.opensaml.saml.saml2.core.Response;
+import org.opensaml.saml.saml2.core.Status;
+import org.opensaml.saml.saml2.core.StatusCode;
+import org.opensaml.saml.saml2.core.Subject;
+import org.opensaml.saml.saml2.core.SubjectConfirmation;
+import org.opensaml.saml.saml2.core.SubjectConfirmationData;
+import org.opensaml.saml.saml2.encryption.Encrypter;
+import org.opensaml.security.x509.BasicX509Credential;
+import org.opensaml.xmlsec.encryption.support.DataEncryptionParameters;
+import org.opensaml.xmlsec.encryption.support.EncryptionConstants;
+import org.opensaml.xmlsec.encryption.support.KeyEncryptionParameters;
+import org.opensaml.xmlsec.keyinfo.KeyInfoSupport;
+import org.opensaml.xmlsec.signature.KeyInfo;
+import org.opensaml.xmlsec.signature.Signature;
+import org.opensaml.xmlsec.signature.support.SignatureConstants;
+import org.opensaml.xmlsec.signature.support.Signer;
+import org.pac4j.saml.client.SAML2Client;
+import org.pac4j.saml.util.Configuration;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.UrlResource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Synthetic IdP for tests and benchmarks: creates a SAML client that trusts it and signed, optionally
+ * encrypted, SAMLResponses that this client accepts.
+ *
+ * <p>The key pair of the keystore in mock_content.json serves both as IdP signing key and as SP
+ * encryption key. A response answers an AuthnRequest of the SP ({@link #responseTo}) or is unsolicited
+ * for the client of {@link #client} ({@link #response}). Every response gets new IDs and current
+ * timestamps, so that replay detection and lifetime checks pass. Responses can be created concurrently;
+ * {@link #responses} signs a batch in parallel.
+ */
+public class SamlResponseFactory {
+
+  public static final String IDP_ENTITY_ID = "https://idp.example.org/saml";
+  public static final String IDP_SSO_URL = "https://idp.example.org/saml/sso";
+  public static final String OKAPI_URL = "http://localhost:9130";
+  /** SAML attribute with the value that the user mapping of the tests looks up */
+  public static final String USER_ID_ATTRIBUTE = "UserID";
+
+  private static final String MD = SAMLConstants.SAML20MD_NS;
+
+  private final String keystorePassword;
+  private final String privateKeyPassword;
+  private final byte[] keystore;
+  private final BasicX509Credential credential;
+  /** recipient of unsolicited responses, set by {@link #client} */
+  private volatile Target clientTarget;
+
+  private SamlResponseFactory(String keystorePassword, String privateKeyPassword, byte[] keystore,
+    BasicX509Credential credential) {
+    this.keystorePassword = keystorePassword;
+    this.privateKeyPassword = privateKeyPassword;
+    this.keystore = keystore;
+    this.credential = credential;
+  }
+
+  /**
+   * @return factory with the keystore of mock_content.json
+   */
+  public static SamlResponseFactory create() {
+    // bootstraps OpenSAML as pac4j does, also when no client is created
+    Configuration.getBuilderFactory();
+    try {
+      JsonArray configs = new JsonObject(new String(readBytes("mock_content.json"), StandardCharsets.UTF_8))
+        .getJsonArray("mocks").getJsonObject(0).getJsonObject("receivedData").getJsonArray("configs");
+      byte[] keystore = Base64.getDecoder().decode(configValue(configs, "keystore.file"));
+      String password = configValue(configs, "keystore.password");
+      String privateKeyPassword = configValue(configs, "keystore.privatekey.password");
+      KeyStore keyStore = KeyStore.getInstance("JKS");
+      keyStore.load(new ByteArrayInputStream(keystore), password.toCharArray());
+      String alias = keyStore.aliases().nextElement();
+      PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, privateKeyPassword.toCharArray());
+      X509Certificate certificate = (X509Certificate) keyStore.getCertificate(alias);
+      return new SamlResponseFactory(password, privateKeyPassword, keystore,
+        new BasicX509Credential(certificate, privateKey));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return the keystore of the SP as stored in {@code keystore.file}
+   */
+  public String getKeystoreBase64() {
+    return Base64.getEncoder().encodeToString(keystore);
+  }
+
+  public String getKeystorePassword() {
+    return keystorePassword;
+  }
+
+  public String getPrivateKeyPassword() {
+    return privateKeyPassword;
+  }
+
+  /**
+   * @return IdP metadata with the signing certificate and a POST binding SSO endpoint
+   */
+  public String idpMetadata() {
+    return idpMetadata(IDP_SSO_URL);
+  }
+
+  /**
+   * @param ssoUrl location of the POST binding SSO endpoint
+   * @return IdP metadata with the signing certificate
+   */
+  public String idpMetadata(String ssoUrl) {
+    try {
+      String certificate = Base64.getEncoder().encodeToString(credential.getEntityCertificate().getEncoded());
+      return "<md:EntityDescriptor xmlns:md=\"" + MD + "\" xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\""
+        + " entityID=\"" + IDP_ENTITY_ID + "\">"
+        + "<md:IDPSSODescriptor protocolSupportEnumeration=\"" + SAMLConstants.SAML20P_NS + "\">"
+        + "<md:KeyDescriptor use=\"signing\"><ds:KeyInfo><ds:X509Data><ds:X509Certificate>" + certificate
+        + "</ds:X509Certificate></ds:X509Data></ds:KeyInfo></md:KeyDescriptor>"
+        + "<md:SingleSignOnService Binding=\"" + SAMLConstants.SAML2_POST_BINDING_URI + "\" Location=\""
+        + ssoUrl + "\"/>"
+        + "</md:IDPSSODescriptor></md:EntityDescriptor>";
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Create and initialize a POST binding client of the tenant that trusts this IdP. The SP entity id and
+   * the assertion consumer service URL of the responses are taken from its metadata.
+   */
+  public SAML2Client client(Context vertxContext, String tenantId) {
+    try {
+      SAML2Client client = SamlClientLoader.configureSaml2Client(OKAPI_URL, tenantId, keystorePassword,
+        privateKeyPassword, new UrlResource(IDP_SSO_URL), new ByteArrayResource(keystore), "POST",
+        new ByteArrayResource(idpMetadata().getBytes(StandardCharsets.UTF_8)), vertxContext);
+      client.init();
+      readServiceProviderMetadata(client.getServiceProviderMetadataResolver().getMetadata());
+      return client;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void readServiceProviderMetadata(String metadata) throws Exception {
+    Document document = parse(metadata.getBytes(StandardCharsets.UTF_8));
+    String spEntityId = document.getDocumentElement().getAttribute("entityID");
+    NodeList services = document.getElementsByTagNameNS(MD, "AssertionConsumerService");
+    for (int i = 0; i < services.getLength(); i++) {
+      Element service = (Element) services.item(i);
+      if (SAMLConstants.SAML2_POST_BINDING_URI.equals(service.getAttribute("Binding"))) {
+        clientTarget = new Target(spEntityId, service.getAttribute("Location"), null);
+        return;
+      }
+    }
+    throw new IllegalStateException("No POST AssertionConsumerService in SP metadata");
+  }
+
+  private static Document parse(byte[] xml) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+    return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+  }
+
+  /**
+   * Read ID, issuer and assertion consumer service URL of an AuthnRequest.
+   *
+   * @param samlRequest the SAMLRequest parameter, Base64 encoded XML of the POST binding or deflated XML of
+   *   the redirect binding
+   */
+  static Target parseAuthnRequest(String samlRequest) {
+    try {
+      byte[] bytes = Base64.getMimeDecoder().decode(samlRequest);
+      if (bytes.length == 0 || bytes[0] != '<') {
+        bytes = inflate(bytes);
+      }
+      Element request = parse(bytes).getDocumentElement();
+      NodeList issuers = request.getElementsByTagNameNS(SAMLConstants.SAML20_NS, "Issuer");
+      if (issuers.getLength() == 0 || !request.hasAttribute("AssertionConsumerServiceURL")) {
+        throw new IllegalArgumentException("AuthnRequest without Issuer or AssertionConsumerServiceURL");
+      }
+      return new Target(issuers.item(0).getTextContent().trim(), request.getAttribute("AssertionConsumerServiceURL"),
+        request.getAttribute("ID"));
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid SAMLRequest: " + e.getMessage(), e);
+    }
+  }
+
+  private static byte[] inflate(byte[] deflated) throws DataFormatException {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(deflated);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 4);
+      byte[] buffer = new byte[4096];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buffer);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DataFormatException("Truncated deflate data");
+        }
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Unsolicited response for the client of {@link #client}.
+   *
+   * @param userId value of the {@link #USER_ID_ATTRIBUTE} attribute and of the NameID
+   * @param extraAttributes number of additional attributes, each with one value
+   * @param encrypted whether to encrypt the signed assertion for the SP
+   * @return Base64 encoded SAMLResponse as posted to /saml/callback
+   */
+  public String response(String userId, int extraAttributes, boolean encrypted) {
+    return response(new Spec().withUserId(userId).withAttributes(extraAttributes).withEncrypted(encrypted));
+  }
+
+  /**
+   * Unsolicited response for the client of {@link #client}.
+   *
+   * @return Base64 encoded SAMLResponse as posted to /saml/callback
+   */
+  public String response(Spec spec) {
+    Target target = clientTarget;
+    if (target == null) {
+      throw new IllegalStateException("client(...) must be called first");
+    }
+    return response(target, spec);
+  }
+
+  /**
+   * Response to an AuthnRequest: InResponseTo, audience and recipient are taken from the request, so this
+   * works for any tenant without {@link #client}.
+   *
+   * @param samlRequest the SAMLRequest of the POST or redirect binding, as returned by /saml/login
+   * @return Base64 encoded SAMLResponse as posted to /saml/callback
+   * @throws IllegalArgumentException if samlRequest is not an AuthnRequest
+   */
+  public String responseTo(String samlRequest, Spec spec) {
+    return response(parseAuthnRequest(samlRequest), spec);
+  }
+
+  /**
+   * Create unsolicited responses for the client of {@link #client} in parallel, for runs that must not
+   * spend time on signing.
+   *
+   * @param spec specification of the i-th response
+   * @return count Base64 encoded SAMLResponses, valid for 5 minutes
+   */
+  public List<String> responses(int count, IntFunction<Spec> spec) {
+    return IntStream.range(0, count).parallel()
+      .mapToObj(i -> response(spec.apply(i)))
+      .collect(Collectors.toList());
+  }
+
+  String response(Target target, Spec spec) {
+    try {
+      Instant now = Instant.now();
+      Assertion assertion = assertion(target, spec, now);
+      sign(assertion);
+
+      Response response = build(Response.DEFAULT_ELEMENT_NAME);
+      response.setID(id());
+      response.setVersion(SAMLVersion.VERSION_20);
+      response.setIssueInstant(now);
+      response.setDestination(target.assertionConsumerServiceUrl);
+      response.setInResponseTo(target.inResponseTo);
+      response.setIssuer(issuer());
+      Status status = build(Status.DEFAULT_ELEMENT_NAME);
+      StatusCode statusCode = build(StatusCode.DEFAULT_ELEMENT_NAME);
+      statusCode.setValue(StatusCode.SUCCESS);
+      status.setStatusCode(statusCode);
+      response.setStatus(status);
+      if (spec.encrypted) {
+        response.getEncryptedAssertions().add(encrypter().encrypt(assertion));
+      } else {
+        response.getAssertions().add(assertion);
+      }
+      String xml = SerializeSupport.nodeToString(XMLObjectSupport.marshall(response));
+      return Base64.getEncoder().encodeToString(xml.getBytes(StandardCharsets.UTF_8));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Assertion assertion(Target target, Spec spec, Instant now) {
+    Assertion assertion = build(Assertion.DEFAULT_ELEMENT_NAME);
+    assertion.setID(id());
+    assertion.setVersion(SAMLVersion.VERSION_20);
+    assertion.setIssueInstant(now);
+    assertion.setIssuer(issuer());
+
+    Subject subject = build(Subject.DEFAULT_ELEMENT_NAME);
+    NameID nameId = build(NameID.DEFAULT_ELEMENT_NAME);
+    nameId.setFormat(NameIDType.UNSPECIFIED);
+    nameId.setValue(spec.userId);
+    subject.setNameID(nameId);
+    SubjectConfirmation subjectConfirmation = build(SubjectConfirmation.DEFAULT_ELEMENT_NAME);
+    subjectConfirmation.setMethod(SubjectConfirmation.METHOD_BEARER);
+    SubjectConfirmationData subjectConfirmationData = build(SubjectConfirmationData.DEFAULT_ELEMENT_NAME);
+    subjectConfirmationData.setRecipient(target.assertionConsumerServiceUrl);
+    subjectConfirmationData.setInResponseTo(target.inResponseTo);
+    subjectConfirmationData.setNotOnOrAfter(now.plus(Duration.ofMinutes(5)));
+    subjectConfirmation.setSubjectConfirmationData(subjectConfirmationData);
+    subject.getSubjectConfirmations().add(subjectConfirmation);
+    assertion.setSubject(subject);
+
+    Conditions conditions = build(Conditions.DEFAULT_ELEMENT_NAME);
+    conditions.setNotBefore(now.minus(Duration.ofMinutes(1)));
+    conditions.setNotOnOrAfter(now.plus(Duration.ofMinutes(5)));
+    AudienceRestriction audienceRestriction = build(AudienceRestriction.DEFAULT_ELEMENT_NAME);
+    Audience audience = build(Audience.DEFAULT_ELEMENT_NAME);
+    audience.setURI(target.spEntityId);
+    audienceRestriction.getAudiences().add(audience);
+    conditions.getAudienceRestrictions().add(audienceRestriction);
+    assertion.setConditions(conditions);
+
+    AuthnStatement authnStatement = build(AuthnStatement.DEFAULT_ELEMENT_NAME);
+    authnStatement.setAuthnInstant(now);
+    authnStatement.setSessionIndex(id());
+    AuthnContext authnContext = build(AuthnContext.DEFAULT_ELEMENT_NAME);
+    AuthnContextClassRef classRef = build(AuthnContextClassRef.DEFAULT_ELEMENT_NAME);
+    classRef.setURI(AuthnContext.PPT_AUTHN_CTX);
+    authnContext.setAuthnContextClassRef(classRef);
+    authnStatement.setAuthnContext(authnContext);
+    assertion.getAuthnStatements().add(authnStatement);
+
+    AttributeStatement attributeStatement = build(AttributeStatement.DEFAULT_ELEMENT_NAME);
+    attributeStatement.getAttributes().add(attribute(USER_ID_ATTRIBUTE, spec.userId));
+    for (int i = 0; i < spec.attributes; i++) {
+      attributeStatement.getAttributes().add(attribute("attribute" + i, spec.attributeValue(i)));
+    }
+    assertion.getAttributeStatements().add(attributeStatement);
+    return assertion;
+  }
+
+  private static Attribute attribute(String name, String value) {
+    Attribute attribute = build(Attribute.DEFAULT_ELEMENT_NAME);
+    attribute.setName(name);
+    attribute.setNameFormat(Attribute.BASIC);
+    XSString attributeValue = (XSString) XMLObjectProviderRegistrySupport.getBuilderFactory()
+      .getBuilderOrThrow(XSString.TYPE_NAME).buildObject(AttributeValue.DEFAULT_ELEMENT_NAME, XSString.TYPE_NAME);
+    attributeValue.setValue(value);
+    attribute.getAttributeValues().add(attributeValue);
+    return attribute;
+  }
+
+  private void sign(Assertion assertion) throws Exception {
+    Signature signature = build(Signature.DEFAULT_ELEMENT_NAME);
+    signature.setSigningCredential(credential);
+    signature.setSignatureAlgorithm(SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256);
+    signature.setCanonicalizationAlgorithm(SignatureConstants.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+    KeyInfo keyInfo = build(KeyInfo.DEFAULT_ELEMENT_NAME);
+    KeyInfoSupport.addCertificate(keyInfo, credential.getEntityCertificate());
+    signature.setKeyInfo(keyInfo);
+    assertion.setSignature(signature);
+    XMLObjectSupport.marshall(assertion);
+    Signer.signObject(signature);
+  }
+
+  private Encrypter encrypter() {
+    DataEncryptionParameters dataParameters = new DataEncryptionParameters();
+    dataParameters.setAlgorithm(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+    KeyEncryptionParameters keyParameters = new KeyEncryptionParameters();
+    keyParameters.setEncryptionCredential(credential);
+    keyParameters.setAlgorithm(EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSAOAEP);
+    Encrypter encrypter = new Encrypter(dataParameters, keyParameters);
+    encrypter.setKeyPlacement(Encrypter.KeyPlacement.INLINE);
+    return encrypter;
+  }
+
+  private static Issuer issuer() {
+    Issuer issuer = build(Issuer.DEFAULT_ELEMENT_NAME);
+    issuer.setFormat(NameIDType.ENTITY);
+    issuer.setValue(IDP_ENTITY_ID);
+    return issuer;
+  }
+
+  private static String id() {
+    // an xsd:ID must not start with a digit
+    return "_" + UUID.randomUUID();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends XMLObject> T build(QName elementName) {
+    return (T) XMLObjectProviderRegistrySupport.getBuilderFactory().getBuilderOrThrow(elementName)
+      .buildObject(elementName);
+  }
+
+  private static byte[] readBytes(String resource) throws IOException {
+    try (InputStream inputStream = SamlResponseFactory.class.getClassLoader().getResourceAsStream(resource)) {
+      if (inputStream == null) {
+        throw new IOException("Resource not found: " + resource);
+      }
+      return IOUtils.toByteArray(inputStream);
+    }
+  }
+
+  private static String configValue(JsonArray configs, String code) {
+    for (int i = 0; i < configs.size(); i++) {
+      JsonObject config = configs.getJsonObject(i);
+      if (code.equals(config.getString("code"))) {
+        return config.getString("value");
+      }
+    }
+    throw new IllegalArgumentException("Missing config entry " + code);
+  }
+
+  /**
+   * What a response asserts.
+   */
+  public static class Spec {
+    private String userId = "synthetic-user";
+    private int attributes;
+    private int attributeValueLength;
+    private boolean encrypted;
+
+    /**
+     * @param userId value of the {@link #USER_ID_ATTRIBUTE} attribute and of the NameID
+     */
+    public Spec withUserId(String userId) {
+      this.userId = userId;
+      return this;
+    }
+
+    /**
+     * @param attributes number of attributes besides {@link #USER_ID_ATTRIBUTE}, named attribute0, attribute1, ...
+     */
+    public Spec withAttributes(int attributes) {
+      this.attributes = attributes;
+      return this;
+    }
+
+    /**
+     * @param attributeValueLength minimum length of the values of the additional attributes, padded with x;
+     *   0 for values like "value 0 of user"
+     */
+    public Spec withAttributeValueLength(int attributeValueLength) {
+      this.attributeValueLength = attributeValueLength;
+      return this;
+    }
+
+    /**
+     * @param encrypted whether to encrypt the signed assertion for the SP
+     */
+    public Spec withEncrypted(boolean encrypted) {
+      this.encrypted = encrypted;
+      return this;
+    }
+
+    String attributeValue(int i) {
+      StringBuilder value = new StringBuilder("value ").append(i).append(" of ").append(userId);
+      while (value.length() < attributeValueLength) {
+        value.append('x');
+      }
+      return value.toString();
+    }
+  }
+
+  /**
+   * SP the response is for, and the AuthnRequest it answers if any.
+   */
+  static class Target {
+    final String spEntityId;
+    final String assertionConsumerServiceUrl;
+    /** null for an unsolicited response */
+    final String inResponseTo;
+
+    Target(String spEntityId, String assertionConsumerServiceUrl, String inResponseTo) {
+      this.spEntityId = spEntityId;
+      this.assertionConsumerServiceUrl = assertionConsumerServiceUrl;
+      this.inResponseTo = inResponseTo;
+    }
+  }
+}
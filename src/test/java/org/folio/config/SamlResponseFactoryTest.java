@@ -0,0 +1,162 @@
+package org.folio.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.emptyOrNullString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
+
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.folio.config.SamlResponseFactory.Spec;
+import org.folio.config.SamlResponseFactory.Target;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.context.session.MockSessionStore;
+import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.saml.client.SAML2Client;
+import org.pac4j.saml.credentials.SAML2Credentials;
+
+public class SamlResponseFactoryTest {
+
+  private static Vertx vertx;
+  private static SamlResponseFactory factory;
+  private static SAML2Client client;
+
+  @BeforeClass
+  public static void beforeClass() {
+    vertx = Vertx.vertx();
+    factory = SamlResponseFactory.create();
+    client = factory.client(vertx.getOrCreateContext(), "factory-test");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    vertx.close();
+  }
+
+  private static SAML2Credentials validate(String samlResponse) {
+    return validate(samlResponse, new MockSessionStore());
+  }
+
+  private static SAML2Credentials validate(String samlResponse, SessionStore sessionStore) {
+    MockWebContext webContext = MockWebContext.create()
+      .setRequestMethod("POST")
+      .addRequestParameter("SAMLResponse", samlResponse);
+    return (SAML2Credentials) client.getCredentials(webContext, sessionStore).get();
+  }
+
+  private static void assertUser(SAML2Credentials credentials, String userId, int extraAttributes) {
+    assertUser(credentials, userId, extraAttributes, "value " + (extraAttributes - 1) + " of " + userId);
+  }
+
+  private static void assertUser(SAML2Credentials credentials, String userId, int extraAttributes,
+    String lastAttributeValue) {
+
+    assertEquals(List.of(userId),
+      credentials.getUserProfile().getAttribute(SamlResponseFactory.USER_ID_ATTRIBUTE));
+    if (extraAttributes > 0) {
+      assertEquals(List.of(lastAttributeValue),
+        credentials.getUserProfile().getAttribute("attribute" + (extraAttributes - 1)));
+    }
+  }
+
+  @Test
+  public void signed() {
+    assertUser(validate(factory.response("user1", 3, false)), "user1", 3);
+  }
+
+  @Test
+  public void signedAndEncrypted() {
+    assertUser(validate(factory.response("user2", 50, true)), "user2", 50);
+  }
+
+  @Test
+  public void newIdsEachTime() {
+    assertNotEquals(factory.response("user3", 1, false), factory.response("user3", 1, false));
+  }
+
+  @Test
+  public void tamperedResponseIsRejected() {
+    String response = new String(Base64.getDecoder().decode(factory.response("user4", 1, false)),
+      StandardCharsets.UTF_8);
+    String tampered = Base64.getEncoder().encodeToString(
+      response.replace(">user4<", ">admin<").getBytes(StandardCharsets.UTF_8));
+    assertThrows(RuntimeException.class, () -> validate(tampered));
+  }
+
+  @Test
+  public void responseToAuthnRequest() {
+    MockWebContext webContext = MockWebContext.create();
+    MockSessionStore sessionStore = new MockSessionStore();
+    sessionStore.set(webContext, SAML_RELAY_STATE_ATTRIBUTE, "http://localhost:3000/");
+    SamlLoginAction action = (SamlLoginAction) client.getRedirectionAction(webContext, sessionStore).get();
+    String samlRequest = action.getSamlLogin().getSamlRequest();
+
+    Target target = SamlResponseFactory.parseAuthnRequest(samlRequest);
+    assertThat(target.inResponseTo, is(not(emptyOrNullString())));
+    assertThat(target.assertionConsumerServiceUrl, endsWith("/saml/callback"));
+
+    String samlResponse = factory.responseTo(samlRequest, new Spec().withUserId("user6").withAttributes(2));
+    String xml = new String(Base64.getDecoder().decode(samlResponse), StandardCharsets.UTF_8);
+    assertThat(xml, containsString("InResponseTo=\"" + target.inResponseTo + "\""));
+    assertUser(validate(samlResponse, sessionStore), "user6", 2);
+  }
+
+  @Test
+  public void parseRedirectBindingAuthnRequest() {
+    String xml = "<samlp:AuthnRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" ID=\"_r1\""
+      + " AssertionConsumerServiceURL=\"http://sp/callback\">"
+      + "<saml:Issuer xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\"> http://sp </saml:Issuer>"
+      + "</samlp:AuthnRequest>";
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(xml.getBytes(StandardCharsets.UTF_8));
+    deflater.finish();
+    byte[] buffer = new byte[1000];
+    int length = deflater.deflate(buffer);
+    deflater.end();
+
+    Target target = SamlResponseFactory.parseAuthnRequest(
+      Base64.getEncoder().encodeToString(Arrays.copyOf(buffer, length)));
+    assertEquals("_r1", target.inResponseTo);
+    assertEquals("http://sp", target.spEntityId);
+    assertEquals("http://sp/callback", target.assertionConsumerServiceUrl);
+
+    String noIssuer = Base64.getEncoder().encodeToString("<AuthnRequest ID=\"_r2\"/>".getBytes(StandardCharsets.UTF_8));
+    assertThrows(IllegalArgumentException.class, () -> SamlResponseFactory.parseAuthnRequest(noIssuer));
+  }
+
+  @Test
+  public void attributeValueLength() {
+    Spec spec = new Spec().withUserId("u").withAttributes(1).withAttributeValueLength(100);
+    assertEquals(100, spec.attributeValue(0).length());
+    assertEquals("value 0 of u", new Spec().withUserId("u").attributeValue(0));
+    assertUser(validate(factory.response(spec)), "u", 1, spec.attributeValue(0));
+  }
+
+  @Test
+  public void responsesInParallel() {
+    List<String> responses = factory.responses(20, i -> new Spec().withUserId("batch" + i).withEncrypted(i % 2 == 0));
+    assertEquals(20, new HashSet<>(responses).size());
+    assertUser(validate(responses.get(7)), "batch7", 0);
+    assertUser(validate(responses.get(8)), "batch8", 0);
+  }
+
+  @Test
+  public void clientRequired() {
+    SamlResponseFactory withoutClient = SamlResponseFactory.create();
+    assertThrows(IllegalStateException.class, () -> withoutClient.response("user5", 1, false));
+  }
+}
@@ -0,0 +1,93 @@
+package org.folio.config;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * IdP over HTTP backed by {@link SamlResponseFactory}, unlike {@link org.folio.util.IdpMock} its responses
+ * pass validation.
+ *
+ * <ul>
+ * <li>GET /metadata: IdP metadata with the signing certificate and this server's SSO URL</li>
+ * <li>POST or GET /sso with SAMLRequest and RelayState (POST or redirect binding): an HTML form that posts the
+ * signed SAMLResponse and the RelayState to the AssertionConsumerServiceURL of the request. The optional
+ * parameter user sets the user id.</li>
+ * </ul>
+ *
+ * <p>Config: http.port, attributes (number of additional attributes, default 0), attributeValueLength
+ * (default 0), encrypted (default false).
+ */
+public class SyntheticIdp extends AbstractVerticle {
+  private static final Logger log = LogManager.getLogger(SyntheticIdp.class);
+
+  private final SamlResponseFactory factory;
+  private String metadata;
+
+  public SyntheticIdp(SamlResponseFactory factory) {
+    this.factory = factory;
+  }
+
+  @Override
+  public void start(Promise<Void> promise) {
+    JsonObject config = config();
+    int port = config.getInteger("http.port");
+    metadata = factory.idpMetadata("http://localhost:" + port + "/sso");
+
+    Router router = Router.router(vertx);
+    router.route().handler(BodyHandler.create());
+    router.get("/metadata").handler(ctx -> ctx.response()
+      .putHeader("Content-Type", "application/samlmetadata+xml")
+      .end(metadata));
+    router.route("/sso").handler(this::handleSso);
+    log.info("Running SyntheticIdp on port {}", port);
+    vertx.createHttpServer().requestHandler(router).listen(port).<Void>mapEmpty().onComplete(promise);
+  }
+
+  private void handleSso(RoutingContext ctx) {
+    String samlRequest = ctx.request().getParam("SAMLRequest");
+    String relayState = ctx.request().getParam("RelayState");
+    String user = ctx.request().getParam("user");
+    if (samlRequest == null) {
+      ctx.response().setStatusCode(400).end("SAMLRequest is missing");
+      return;
+    }
+    JsonObject config = config();
+    SamlResponseFactory.Spec spec = new SamlResponseFactory.Spec()
+      .withAttributes(config.getInteger("attributes", 0))
+      .withAttributeValueLength(config.getInteger("attributeValueLength", 0))
+      .withEncrypted(config.getBoolean("encrypted", false));
+    if (user != null) {
+      spec.withUserId(user);
+    }
+    // signing is CPU bound
+    vertx.<String>executeBlocking(blocking -> {
+      SamlResponseFactory.Target target = SamlResponseFactory.parseAuthnRequest(samlRequest);
+      blocking.complete(form(target.assertionConsumerServiceUrl, factory.response(target, spec), relayState));
+    }, false)
+      .onSuccess(html -> ctx.response().putHeader("Content-Type", "text/html; charset=UTF-8").end(html))
+      .onFailure(e -> ctx.response().setStatusCode(400).end(e.getMessage()));
+  }
+
+  /**
+   * @return HTML page that posts the SAMLResponse to the assertion consumer service, like the POST binding
+   */
+  static String form(String action, String samlResponse, String relayState) {
+    StringBuilder html = new StringBuilder("<!DOCTYPE html><html><body onload=\"document.forms[0].submit()\">")
+      .append("<form method=\"post\" action=\"").append(escape(action)).append("\">")
+      .append("<input type=\"hidden\" name=\"SAMLResponse\" value=\"").append(escape(samlResponse)).append("\"/>");
+    if (relayState != null) {
+      html.append("<input type=\"hidden\" name=\"RelayState\" value=\"").append(escape(relayState)).append("\"/>");
+    }
+    return html.append("</form></body></html>").toString();
+  }
+
+  private static String escape(String s) {
+    return s.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+}
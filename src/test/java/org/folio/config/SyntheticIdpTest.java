@@ -0,0 +1,86 @@
+package org.folio.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.folio.rest.tools.utils.NetworkUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class SyntheticIdpTest {
+
+  private static final String AUTHN_REQUEST = Base64.getEncoder().encodeToString((
+    "<samlp:AuthnRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" ID=\"_request1\""
+      + " AssertionConsumerServiceURL=\"http://localhost:9130/_/invoke/tenant/diku/saml/callback\">"
+      + "<saml:Issuer xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">http://sp</saml:Issuer>"
+      + "</samlp:AuthnRequest>").getBytes(StandardCharsets.UTF_8));
+
+  private final int port = NetworkUtils.nextFreePort();
+  private Vertx vertx;
+  private WebClient webClient;
+
+  @Before
+  public void setUp(TestContext context) {
+    vertx = Vertx.vertx();
+    webClient = WebClient.create(vertx);
+    vertx.deployVerticle(new SyntheticIdp(SamlResponseFactory.create()), new DeploymentOptions()
+        .setConfig(new JsonObject().put("http.port", port).put("attributes", 3)))
+      .onComplete(context.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void metadata(TestContext context) {
+    webClient.get(port, "localhost", "/metadata").send()
+      .onComplete(context.asyncAssertSuccess(response -> {
+        context.assertEquals(200, response.statusCode());
+        assertThat(response.bodyAsString(), containsString("entityID=\"" + SamlResponseFactory.IDP_ENTITY_ID + "\""));
+        assertThat(response.bodyAsString(), containsString("Location=\"http://localhost:" + port + "/sso\""));
+      }));
+  }
+
+  @Test
+  public void sso(TestContext context) {
+    webClient.post(port, "localhost", "/sso")
+      .sendForm(MultiMap.caseInsensitiveMultiMap()
+        .add("SAMLRequest", AUTHN_REQUEST)
+        .add("RelayState", "http://localhost:3000/?a=1&b=2")
+        .add("user", "sso-user"))
+      .onComplete(context.asyncAssertSuccess(response -> {
+        context.assertEquals(200, response.statusCode());
+        String html = response.bodyAsString();
+        assertThat(html, containsString("action=\"http://localhost:9130/_/invoke/tenant/diku/saml/callback\""));
+        assertThat(html, containsString("name=\"RelayState\" value=\"http://localhost:3000/?a=1&amp;b=2\""));
+        Matcher samlResponse = Pattern.compile("name=\"SAMLResponse\" value=\"([^\"]+)\"").matcher(html);
+        context.assertTrue(samlResponse.find());
+        String xml = new String(Base64.getDecoder().decode(samlResponse.group(1)), StandardCharsets.UTF_8);
+        assertThat(xml, containsString("InResponseTo=\"_request1\""));
+        assertThat(xml, containsString("sso-user"));
+        assertThat(xml, containsString("attribute2"));
+      }));
+  }
+
+  @Test
+  public void ssoWithoutRequest(TestContext context) {
+    webClient.get(port, "localhost", "/sso").send()
+      .onComplete(context.asyncAssertSuccess(response -> context.assertEquals(400, response.statusCode())));
+  }
+}
@@ -0,0 +1,42 @@
+package org.folio.config.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.folio.util.FailureType;
+import org.junit.Test;
+import org.pac4j.saml.client.SAML2Client;
+
+public class SamlClientCompositeTest {
+
+  @Test
+  public void userMappingsParsedOnce() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setUserMappings("[{\"samlAttribute\":\"uid\",\"userProperty\":\"username\"}]");
+    SamlClientComposite composite = new SamlClientComposite(mock(SAML2Client.class), configuration);
+    assertEquals("username", composite.getUserMappings().get(0).getUserProperty());
+    assertSame(composite.getUserMappings(), composite.withVersion(3).withInitNanos(5).getUserMappings());
+  }
+
+  @Test
+  public void invalidUserMappings() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setUserMappings("[{\"samlAttribute\":");
+    SamlClientComposite composite = new SamlClientComposite(mock(SAML2Client.class), configuration);
+    IllegalStateException e = assertThrows(IllegalStateException.class, composite::getUserMappings);
+    assertTrue(e.getMessage().startsWith("Invalid user.mappings configuration: "));
+    assertEquals(FailureType.OTHER, FailureType.of(e));
+  }
+
+  @Test
+  public void unsupportedUserProperty() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setUserMappings("[{\"samlAttribute\":\"mail\",\"userProperty\":\"email\"}]");
+    SamlClientComposite composite = new SamlClientComposite(mock(SAML2Client.class), configuration);
+    IllegalStateException e = assertThrows(IllegalStateException.class, composite::getUserMappings);
+    assertTrue(e.getMessage(), e.getMessage().contains("Unsupported user property: email"));
+  }
+}
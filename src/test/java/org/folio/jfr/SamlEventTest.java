@@ -0,0 +1,96 @@
+package org.folio.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.vertx.core.Future;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+public class SamlEventTest {
+
+  private static List<RecordedEvent> record(Runnable runnable) throws Exception {
+    Path file = Files.createTempFile("saml", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(ClientLoadEvent.class);
+      recording.enable(AuthnRequestEvent.class);
+      recording.start();
+      runnable.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void complete() throws Exception {
+    List<RecordedEvent> events = record(() -> {
+      AuthnRequestEvent event = new AuthnRequestEvent();
+      event.begin();
+      event.setBinding("POST");
+      event.setTemplate(true);
+      event.complete("diku", true, () -> 1234);
+    });
+    assertEquals(1, events.size());
+    RecordedEvent event = events.get(0);
+    assertEquals("org.folio.saml.AuthnRequest", event.getEventType().getName());
+    assertEquals(List.of("FOLIO", "SAML"), event.getEventType().getCategoryNames());
+    assertEquals("diku", event.getString("tenant"));
+    assertEquals(SamlEvent.SUCCESS, event.getString("outcome"));
+    assertEquals(1234, event.getLong("payloadSize"));
+    assertEquals("POST", event.getString("binding"));
+    assertTrue(event.getBoolean("template"));
+    assertFalse(event.getDuration().isNegative());
+  }
+
+  @Test
+  public void completeWith() throws Exception {
+    List<RecordedEvent> events = record(() -> {
+      ClientLoadEvent succeeded = new ClientLoadEvent();
+      succeeded.begin();
+      succeeded.completeWith("diku", Future.succeededFuture("keystore"), String::length);
+      ClientLoadEvent failed = new ClientLoadEvent();
+      failed.begin();
+      failed.completeWith("test", Future.<String>failedFuture("fail"), String::length);
+    });
+    assertEquals(2, events.size());
+    assertEquals("diku", events.get(0).getString("tenant"));
+    assertEquals(SamlEvent.SUCCESS, events.get(0).getString("outcome"));
+    assertEquals(8, events.get(0).getLong("payloadSize"));
+    assertEquals("test", events.get(1).getString("tenant"));
+    assertEquals(SamlEvent.FAILURE, events.get(1).getString("outcome"));
+    assertEquals(0, events.get(1).getLong("payloadSize"));
+  }
+
+  @Test
+  public void notRecording() {
+    AtomicBoolean payloadSizeComputed = new AtomicBoolean();
+    TokenIssueEvent event = new TokenIssueEvent();
+    event.begin();
+    event.complete("diku", true, () -> {
+      payloadSizeComputed.set(true);
+      return 1;
+    });
+    assertFalse(payloadSizeComputed.get());
+    assertNull(event.getTenant());
+  }
+
+  @Test
+  public void utf8Length() {
+    for (String s : List.of("", "abc", "Jos\u00e9", "\u20ac1", "\ud83d\ude00", "a\ud83db", "\ude00")) {
+      assertEquals(s, s.getBytes(StandardCharsets.UTF_8).length, SamlEvent.utf8Length(s));
+    }
+    assertEquals(0, SamlEvent.utf8Length(null));
+  }
+}
@@ -0,0 +1,114 @@
+package org.folio.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.folio.metrics.EventLoopMonitor.Offender;
+import org.folio.metrics.EventLoopMonitor.Phase;
+import org.junit.Test;
+
+public class EventLoopMonitorTest {
+
+  private static final long MS = 1_000_000;
+
+  private final AtomicLong clock = new AtomicLong();
+  private final EventLoopMonitor monitor = new EventLoopMonitor(100 * MS, clock::get, () -> true);
+
+  private String scrape(EventLoopMonitor eventLoopMonitor, String tenantId) {
+    StringBuilder out = new StringBuilder();
+    eventLoopMonitor.scrape(tenantId, out);
+    return out.toString();
+  }
+
+  @Test
+  public void histogram() {
+    monitor.run(Phase.LOGIN, "diku", () -> clock.addAndGet(3 * MS));
+    monitor.run(Phase.LOGIN, "diku", () -> clock.addAndGet(40 * MS));
+    assertEquals("x", monitor.call(Phase.CHECK, "other", () -> "x"));
+
+    String scrape = scrape(monitor, "diku");
+    assertThat(scrape, containsString("# TYPE saml_event_loop_seconds histogram\n"));
+    assertThat(scrape, containsString("saml_event_loop_seconds_bucket{phase=\"login\",tenant=\"diku\",le=\"0.001\"} 0\n"));
+    assertThat(scrape, containsString("saml_event_loop_seconds_bucket{phase=\"login\",tenant=\"diku\",le=\"0.005\"} 1\n"));
+    assertThat(scrape, containsString("saml_event_loop_seconds_bucket{phase=\"login\",tenant=\"diku\",le=\"0.05\"} 2\n"));
+    assertThat(scrape, containsString("saml_event_loop_seconds_bucket{phase=\"login\",tenant=\"diku\",le=\"+Inf\"} 2\n"));
+    assertThat(scrape, containsString("saml_event_loop_seconds_count{phase=\"login\",tenant=\"diku\"} 2\n"));
+    assertThat(scrape, containsString("saml_event_loop_seconds_sum{phase=\"login\",tenant=\"diku\"} 0.043\n"));
+    assertThat(scrape, not(containsString("check")));
+    assertThat(scrape, not(containsString("saml_event_loop_blocked_seconds{")));
+  }
+
+  @Test
+  public void notOnEventLoop() {
+    EventLoopMonitor worker = new EventLoopMonitor(100 * MS, clock::get, () -> false);
+    worker.run(Phase.LOGIN, "diku", () -> clock.addAndGet(3 * MS));
+    assertThat(scrape(worker, "diku"), not(containsString("saml_event_loop_seconds_count")));
+  }
+
+  @Test
+  public void exception() {
+    assertThrows(IllegalStateException.class, () -> monitor.run(Phase.CALLBACK, null, () -> {
+      throw new IllegalStateException();
+    }));
+    assertThat(scrape(monitor, null),
+      containsString("saml_event_loop_seconds_count{phase=\"callback\",tenant=\"unknown\"} 1\n"));
+  }
+
+  @Test
+  public void belowThreshold() {
+    monitor.run(Phase.LOGIN, "diku", () -> {
+      clock.addAndGet(99 * MS);
+      monitor.sampleBlocked();
+    });
+    assertTrue(monitor.getWorstOffenders("diku").isEmpty());
+  }
+
+  private void block(Phase phase, long ms) {
+    monitor.run(phase, "diku", () -> {
+      clock.addAndGet(100 * MS);
+      monitor.sampleBlocked();
+      clock.addAndGet((ms - 100) * MS);
+    });
+  }
+
+  @Test
+  public void worstOffenders() {
+    block(Phase.LOGIN, 150);
+    block(Phase.USER_MAPPING, 300);
+    for (int i = 0; i < EventLoopMonitor.WORST_OFFENDERS; i++) {
+      block(Phase.TOKEN_RESPONSE, 200);
+    }
+    List<Offender> offenders = monitor.getWorstOffenders("diku");
+    assertEquals(EventLoopMonitor.WORST_OFFENDERS, offenders.size());
+    assertEquals(Phase.USER_MAPPING, offenders.get(0).getPhase());
+    assertEquals(300 * MS, offenders.get(0).getNanos());
+    assertEquals(Phase.TOKEN_RESPONSE, offenders.get(4).getPhase());
+    assertThat(offenders.get(0).getTopFrame(), containsString("getStackTrace"));
+
+    String scrape = scrape(monitor, "diku");
+    assertThat(scrape, containsString(
+      "saml_event_loop_blocked_seconds{phase=\"user_mapping\",tenant=\"diku\",rank=\"1\",frame=\""));
+    assertThat(scrape, containsString("rank=\"5\""));
+    assertThat(scrape, not(containsString("rank=\"6\"")));
+    assertThat(scrape, not(containsString("phase=\"login\",tenant=\"diku\",rank")));
+  }
+
+  @Test
+  public void nested() {
+    monitor.run(Phase.LOGIN, "diku", () -> monitor.run(Phase.AUTHN_REQUEST, "diku", () -> {
+      clock.addAndGet(200 * MS);
+      monitor.sampleBlocked();
+    }));
+    List<Offender> offenders = monitor.getWorstOffenders("diku");
+    assertEquals(1, offenders.size());
+    assertEquals(Phase.LOGIN, offenders.get(0).getPhase());
+    assertThat(scrape(monitor, "diku"),
+      containsString("saml_event_loop_seconds_count{phase=\"authn_request\",tenant=\"diku\"} 1\n"));
+  }
+}
@@ -0,0 +1,89 @@
+package org.folio.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.vertx.core.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.folio.metrics.LatencyHistograms.Endpoint;
+import org.folio.rest.jaxrs.model.SamlLatency;
+import org.folio.rest.jaxrs.model.SamlLatencyEndpoint;
+import org.folio.rest.jaxrs.model.SamlLatencySummary;
+import org.junit.Test;
+
+public class LatencyHistogramsTest {
+
+  private static final long INTERVAL = TimeUnit.SECONDS.toNanos(60);
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final AtomicLong clock = new AtomicLong(1000);
+  private final LatencyHistograms histograms = new LatencyHistograms(INTERVAL, clock::get);
+
+  private void record(Endpoint endpoint, int... millis) {
+    for (int m : millis) {
+      histograms.record(endpoint, "diku", m * MS);
+    }
+  }
+
+  @Test
+  public void nothingBeforeFirstInterval() {
+    record(Endpoint.CALLBACK, 1, 2, 3);
+    SamlLatency latency = histograms.summary("diku");
+    assertEquals(Integer.valueOf(60), latency.getIntervalSeconds());
+    assertTrue(latency.getEndpoints().isEmpty());
+    assertTrue(histograms.summary("other").getEndpoints().isEmpty());
+  }
+
+  @Test
+  public void intervals() {
+    for (int i = 1; i <= 1000; i++) {
+      record(Endpoint.CALLBACK, i);
+    }
+    clock.addAndGet(INTERVAL);
+    SamlLatency latency = histograms.summary("diku");
+    assertEquals(1, latency.getEndpoints().size());
+    SamlLatencyEndpoint endpoint = latency.getEndpoints().get(0);
+    assertEquals("/saml/callback", endpoint.getEndpoint());
+    SamlLatencySummary last = endpoint.getLastInterval();
+    assertEquals(Integer.valueOf(1000), last.getCount());
+    assertEquals(500, last.getP50(), 1);
+    assertEquals(900, last.getP90(), 1);
+    assertEquals(990, last.getP99(), 1);
+    assertEquals(999, last.getP999(), 1);
+    assertEquals(1000, last.getMax(), 1);
+    assertEquals(INTERVAL / MS, last.getEnd().getTime() - last.getStart().getTime());
+
+    // second interval
+    record(Endpoint.CALLBACK, 5000);
+    clock.addAndGet(INTERVAL);
+    endpoint = histograms.summary("diku").getEndpoints().get(0);
+    assertEquals(Integer.valueOf(1), endpoint.getLastInterval().getCount());
+    assertEquals(5000, endpoint.getLastInterval().getP50(), 5);
+    assertEquals(Integer.valueOf(1001), endpoint.getTotal().getCount());
+    assertEquals(5000, endpoint.getTotal().getMax(), 5);
+  }
+
+  @Test
+  public void idleIntervalsAreEmpty() {
+    record(Endpoint.LOGIN, 10);
+    clock.addAndGet(3 * INTERVAL + 1);
+    // rolled over by a record: the last complete interval had no requests
+    record(Endpoint.LOGIN, 20);
+    SamlLatencyEndpoint endpoint = histograms.summary("diku").getEndpoints().get(0);
+    assertEquals("/saml/login", endpoint.getEndpoint());
+    assertEquals(Integer.valueOf(0), endpoint.getLastInterval().getCount());
+    assertEquals(Integer.valueOf(1), endpoint.getTotal().getCount());
+  }
+
+  @Test
+  public void timed() {
+    AtomicReference<String> result = new AtomicReference<>();
+    histograms.<String>timed(Endpoint.CHECK, "diku", ar -> result.set(ar.result()))
+      .handle(Future.succeededFuture("ok"));
+    assertEquals("ok", result.get());
+    clock.addAndGet(INTERVAL);
+    assertEquals(Integer.valueOf(1), histograms.summary("diku").getEndpoints().get(0).getTotal().getCount());
+  }
+}
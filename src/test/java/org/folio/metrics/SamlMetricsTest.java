@@ -0,0 +1,100 @@
+package org.folio.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.vertx.core.Future;
+import org.folio.config.ClientInvalidationLimiter;
+import org.folio.metrics.SamlMetrics.Cache;
+import org.folio.metrics.SamlMetrics.CacheResult;
+import org.folio.metrics.SamlMetrics.Outcome;
+import org.folio.metrics.SamlMetrics.Phase;
+import org.junit.Test;
+
+public class SamlMetricsTest {
+
+  @Test
+  public void record() {
+    SamlMetrics metrics = new SamlMetrics();
+    metrics.record(Phase.USER_LOOKUP, "diku", Outcome.SUCCESS, 1_000_000);
+    metrics.record(Phase.USER_LOOKUP, "diku", Outcome.SUCCESS, 3_000_000);
+    metrics.record(Phase.TOKEN_ISSUE, "other", Outcome.FAILURE, 5_000_000);
+
+    String scrape = metrics.scrape("diku");
+    assertThat(scrape, containsString("# TYPE saml_phase_seconds summary\n"));
+    assertThat(scrape, containsString(
+      "saml_phase_seconds_count{phase=\"user_lookup\",tenant=\"diku\",outcome=\"success\"} 2\n"));
+    assertThat(scrape, containsString(
+      "saml_phase_seconds_sum{phase=\"user_lookup\",tenant=\"diku\",outcome=\"success\"} 0.004\n"));
+    assertThat(scrape, containsString(
+      "saml_phase_seconds_max{phase=\"user_lookup\",tenant=\"diku\",outcome=\"success\"} 0.003\n"));
+    assertThat(scrape, not(containsString("outcome=\"failure\"")));
+    assertThat(scrape, not(containsString("other")));
+  }
+
+  @Test
+  public void count() {
+    SamlMetrics metrics = new SamlMetrics();
+    metrics.count(Cache.CLIENT, "diku", CacheResult.HIT);
+    metrics.count(Cache.CLIENT, "diku", CacheResult.HIT);
+    metrics.count(Cache.USER, "diku", CacheResult.MISS);
+
+    String scrape = metrics.scrape("diku");
+    assertThat(scrape, containsString("saml_cache_total{cache=\"client\",tenant=\"diku\",result=\"hit\"} 2\n"));
+    assertThat(scrape, containsString("saml_cache_total{cache=\"user\",tenant=\"diku\",result=\"miss\"} 1\n"));
+    assertThat(scrape, not(containsString("result=\"eviction\"")));
+  }
+
+  @Test
+  public void time() {
+    SamlMetrics metrics = new SamlMetrics();
+    assertEquals("x", metrics.time(Phase.CONFIG_FETCH, null, () -> Future.succeededFuture("x")).result());
+    metrics.time(Phase.CONFIG_FETCH, null, () -> Future.failedFuture("fail"));
+    assertThrows(IllegalStateException.class, () -> metrics.time(Phase.CONFIG_FETCH, null, () -> {
+      throw new IllegalStateException();
+    }));
+
+    String scrape = metrics.scrape(null);
+    assertThat(scrape, containsString(
+      "saml_phase_seconds_count{phase=\"config_fetch\",tenant=\"unknown\",outcome=\"success\"} 1\n"));
+    assertThat(scrape, containsString(
+      "saml_phase_seconds_count{phase=\"config_fetch\",tenant=\"unknown\",outcome=\"failure\"} 2\n"));
+  }
+
+  @Test
+  public void clientInvalidations() {
+    String tenant = "metrics-invalidation";
+    ClientInvalidationLimiter limiter = ClientInvalidationLimiter.getInstance();
+    limiter.reset(tenant);
+    try {
+      for (int i = 0; i < ClientInvalidationLimiter.DEFAULT_LIMIT + 2; i++) {
+        limiter.tryAcquire(tenant);
+      }
+      long allowed = limiter.getAllowed(tenant);
+      String scrape = new SamlMetrics().scrape(tenant);
+      assertThat(scrape, containsString("# TYPE saml_client_invalidation_total counter\n"));
+      assertThat(scrape, containsString("saml_client_invalidation_total{tenant=\"" + tenant + "\",result=\"allowed\"} "
+        + allowed + "\n"));
+      assertThat(scrape, containsString("saml_client_invalidation_total{tenant=\"" + tenant + "\",result=\"suppressed\"} "
+        + (ClientInvalidationLimiter.DEFAULT_LIMIT + 2 - allowed) + "\n"));
+    } finally {
+      limiter.reset(tenant);
+    }
+  }
+
+  @Test
+  public void gauges() {
+    String scrape = new SamlMetrics().scrape("diku");
+    assertThat(scrape, containsString("# TYPE saml_crypto_pending gauge\nsaml_crypto_pending{scope=\"module\"} "));
+    assertThat(scrape, containsString(
+      "# TYPE saml_crypto_rejected_total counter\nsaml_crypto_rejected_total{scope=\"module\"} "));
+  }
+
+  @Test
+  public void escape() {
+    assertEquals("a\\\\b\\\"c\\nd", SamlMetrics.escape("a\\b\"c\nd"));
+  }
+}
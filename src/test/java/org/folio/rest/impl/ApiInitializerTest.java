@@ -0,0 +1,56 @@
+package org.folio.rest.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class ApiInitializerTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void eagerBootstrap(TestContext context) {
+    AtomicInteger runs = new AtomicInteger();
+    new ApiInitializer(true, () -> {
+      context.assertTrue(Context.isOnWorkerThread());
+      runs.incrementAndGet();
+    }).init(vertx, vertx.getOrCreateContext(), context.asyncAssertSuccess(ready -> {
+      context.assertTrue(ready);
+      context.assertEquals(1, runs.get());
+    }));
+  }
+
+  @Test
+  public void lazyBootstrap(TestContext context) {
+    AtomicInteger runs = new AtomicInteger();
+    new ApiInitializer(false, runs::incrementAndGet)
+      .init(vertx, vertx.getOrCreateContext(), context.asyncAssertSuccess(ready -> {
+        context.assertTrue(ready);
+        context.assertEquals(0, runs.get());
+      }));
+  }
+
+  @Test
+  public void bootstrapFails(TestContext context) {
+    new ApiInitializer(true, () -> {
+      throw new IllegalStateException("SAML bootstrap round trip failed");
+    }).init(vertx, vertx.getOrCreateContext(), context.asyncAssertSuccess(context::assertTrue));
+  }
+}
@@ -3,28 +3,46 @@ package org.folio.rest.impl;
 import static io.restassured.RestAssured.given;
 import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchemaInClasspath;
 import static org.folio.util.Base64AwareXsdMatcher.matchesBase64XsdInClasspath;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.net.URI;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Objects;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Optional;
+import org.folio.config.ClientInvalidationLimiter;
 import org.folio.config.SamlConfigHolder;
+import org.folio.config.model.SamlClientComposite;
+import org.folio.config.model.SamlConfiguration;
+import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.RestVerticle;
 import org.folio.rest.jaxrs.model.SamlConfigRequest;
+import org.folio.rest.jaxrs.model.SamlUserMapping;
 import org.folio.rest.tools.utils.NetworkUtils;
+import org.folio.users.UserMapping;
+import org.folio.util.DownstreamException;
 import org.folio.util.IdpMock;
 import org.folio.util.MockJson;
 import org.folio.util.PercentCodec;
@@ -52,10 +70,13 @@ import io.restassured.response.ExtractableResponse;
 import io.restassured.response.Response;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 
 /**
@@ -134,6 +155,7 @@ public class SamlAPITest {
   public void tearDown(TestContext context) {
     // Need to clear singleton to maintain test/order independence
     SamlConfigHolder.getInstance().removeClient(TENANT);
+    ClientInvalidationLimiter.getInstance().reset(TENANT);
     vertx.close(context.asyncAssertSuccess());
   }
 
@@ -174,6 +196,150 @@ public class SamlAPITest {
 
   }
 
+  @Test
+  public void metricsEndpoint() {
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .get("/saml/check")
+      .then()
+      .statusCode(200);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .get("/saml/metrics")
+      .then()
+      .statusCode(200)
+      .contentType(ContentType.TEXT)
+      .body(containsString("# TYPE saml_phase_seconds summary"))
+      .body(containsString("saml_cache_total{cache=\"client\",tenant=\"" + TENANT + "\""));
+  }
+
+  @Test
+  public void latencyEndpoint() {
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .get("/saml/latency")
+      .then()
+      .statusCode(200)
+      .contentType(ContentType.JSON)
+      .body(matchesJsonSchemaInClasspath("ramls/schemas/SamlLatency.json"))
+      .body("intervalSeconds", is(60));
+  }
+
+  @Test
+  public void clientsEndpoint() {
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .get("/saml/check")
+      .then()
+      .statusCode(200);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .get("/saml/clients")
+      .then()
+      .statusCode(200)
+      .contentType(ContentType.JSON)
+      .body(matchesJsonSchemaInClasspath("ramls/schemas/SamlClients.json"))
+      .body("clients.find { it.tenant == '" + TENANT + "' }.cached", is(true))
+      .body("clients.tenant", everyItem(is(TENANT)));
+
+    SAML2Client saml2client = SamlConfigHolder.getInstance().findClient(TENANT).getClient();
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .post("/saml/clients/refresh")
+      .then()
+      .statusCode(200)
+      .contentType(ContentType.JSON)
+      .body(matchesJsonSchemaInClasspath("ramls/schemas/SamlClient.json"))
+      .body("tenant", is(TENANT))
+      .body("cached", is(true));
+    assertNotEquals(saml2client, SamlConfigHolder.getInstance().findClient(TENANT).getClient());
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .delete("/saml/clients")
+      .then()
+      .statusCode(204);
+    assertNull(SamlConfigHolder.getInstance().findClient(TENANT));
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .delete("/saml/clients")
+      .then()
+      .statusCode(404);
+  }
+
+  @Test
+  public void userMirrorSync() {
+    mock.setMockContent("mock_content.json", s -> s.replaceFirst("\"configs\": \\[",
+      "\"configs\": [ { \"code\": \"user.mirror\", \"value\": \"true\" },"));
+    mock.takeRequests();
+    // /users is not mocked, the sync fails
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .post("/saml/user-mirror/sync")
+      .then()
+      .statusCode(500);
+    assertThat(mock.takeRequests().toString(), containsString("GET /users?query=cql.allRecords"));
+
+    mock.setMockContent("mock_content.json");
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .post("/saml/user-mirror/sync")
+      .then()
+      .statusCode(204);
+    assertThat(mock.takeRequests().toString(), not(containsString("GET /users")));
+  }
+
+  @Test
+  public void clientsEndpointOtherTenant() {
+    SamlConfigHolder configHolder = SamlConfigHolder.getInstance();
+    SamlClientComposite other = new SamlClientComposite(mock(SAML2Client.class), new SamlConfiguration());
+    configHolder.putClient("other-tenant", other);
+    try {
+      given()
+        .header(TENANT_HEADER)
+        .header(TOKEN_HEADER)
+        .header(OKAPI_URL_HEADER)
+        .get("/saml/clients")
+        .then()
+        .statusCode(200)
+        .body("clients.tenant", not(hasItem("other-tenant")));
+
+      given()
+        .header(TENANT_HEADER)
+        .header(TOKEN_HEADER)
+        .header(OKAPI_URL_HEADER)
+        .delete("/saml/clients")
+        .then()
+        .statusCode(anyOf(is(204), is(404)));
+      assertEquals(other, configHolder.findClient("other-tenant"));
+    } finally {
+      configHolder.removeClient("other-tenant");
+    }
+  }
+
   @Test
   public void loginEndpointTestsBad() {
     // empty body
@@ -652,6 +818,114 @@ public class SamlAPITest {
       .body(matchesJsonSchemaInClasspath("ramls/schemas/SamlConfig.json"));
   }
 
+  @Test
+  public void putConfigurationKeepsUserMappings() {
+    SamlConfigRequest samlConfigRequest = new SamlConfigRequest()
+      .withIdpUrl(URI.create("http://localhost:" + IDP_MOCK_PORT + "/xml"))
+      .withSamlAttribute("UserID")
+      .withSamlBinding(SamlConfigRequest.SamlBinding.POST)
+      .withUserProperty("externalSystemId")
+      .withOkapiUrl(URI.create("http://localhost:9130"));
+    JsonObject withoutUserMappings = JsonObject.mapFrom(samlConfigRequest);
+    withoutUserMappings.remove("userMappings");
+
+    mock.takeRequests();
+    putConfiguration(withoutUserMappings.encode());
+    assertThat(mock.takeRequests().toString(), not(containsString(SamlConfiguration.USER_MAPPINGS_CODE)));
+
+    samlConfigRequest.getUserMappings().add(new SamlUserMapping().withSamlAttribute("mail").withUserProperty("personal.email"));
+    putConfiguration(Json.encode(samlConfigRequest));
+    assertThat(mock.takeRequests().toString(), containsString(SamlConfiguration.USER_MAPPINGS_CODE));
+  }
+
+  @Test
+  public void putConfigurationRejectsUserMappings() {
+    SamlConfigRequest samlConfigRequest = new SamlConfigRequest()
+      .withIdpUrl(URI.create("http://localhost:" + IDP_MOCK_PORT + "/xml"))
+      .withSamlAttribute("UserID")
+      .withSamlBinding(SamlConfigRequest.SamlBinding.POST)
+      .withUserProperty("externalSystemId")
+      .withOkapiUrl(URI.create("http://localhost:9130"));
+    samlConfigRequest.getUserMappings().add(new SamlUserMapping().withSamlAttribute("mail").withUserProperty("email"));
+
+    mock.takeRequests();
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(Json.encode(samlConfigRequest))
+      .put("/saml/configuration")
+      .then()
+      .statusCode(400)
+      .body("error", is("Unsupported user property: email"));
+    assertThat(mock.takeRequests().toString(), not(containsString(SamlConfiguration.USER_MAPPINGS_CODE)));
+  }
+
+  @Test
+  public void checkUserMappings() {
+    SamlConfigRequest request = new SamlConfigRequest().withUserProperty("barcode");
+    SamlAPI.checkUserMappings(request);
+
+    request.setUserProperty("personal");
+    assertEquals("Unsupported user property: personal",
+      assertThrows(IllegalArgumentException.class, () -> SamlAPI.checkUserMappings(request)).getMessage());
+
+    // userMappings replace userProperty
+    request.getUserMappings().add(new SamlUserMapping().withSamlAttribute("uid").withUserProperty("username"));
+    SamlAPI.checkUserMappings(request);
+
+    request.getUserMappings().add(new SamlUserMapping().withSamlAttribute(" ").withUserProperty("username"));
+    assertThrows(IllegalArgumentException.class, () -> SamlAPI.checkUserMappings(request));
+  }
+
+  @Test
+  public void getUpdateEntriesUserMappings() {
+    SamlConfiguration config = new SamlConfiguration();
+    config.setUserMappings("[{\"samlAttribute\":\"mail\",\"userProperty\":\"personal.email\"}]");
+    SamlConfigRequest request = new SamlConfigRequest()
+      .withIdpUrl(URI.create("http://localhost"))
+      .withSamlBinding(SamlConfigRequest.SamlBinding.POST)
+      .withOkapiUrl(URI.create("http://localhost:9130"));
+
+    assertFalse(SamlAPI.getUpdateEntries(config, request, false).containsKey(SamlConfiguration.USER_MAPPINGS_CODE));
+    assertEquals("", SamlAPI.getUpdateEntries(config, request, true).get(SamlConfiguration.USER_MAPPINGS_CODE));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getAuthToken() {
+    HttpResponse<Buffer> headerToken = mock(HttpResponse.class);
+    when(headerToken.statusCode()).thenReturn(200);
+    when(headerToken.getHeader(XOkapiHeaders.TOKEN)).thenReturn("t1");
+    assertEquals("t1", SamlAPI.getAuthToken(headerToken));
+
+    HttpResponse<Buffer> bodyToken = mock(HttpResponse.class);
+    when(bodyToken.statusCode()).thenReturn(201);
+    when(bodyToken.bodyAsJsonObject()).thenReturn(new JsonObject().put("token", "t2"));
+    assertEquals("t2", SamlAPI.getAuthToken(bodyToken));
+
+    HttpResponse<Buffer> noToken = mock(HttpResponse.class);
+    when(noToken.statusCode()).thenReturn(200);
+    assertThrows(DownstreamException.class, () -> SamlAPI.getAuthToken(noToken));
+
+    HttpResponse<Buffer> error = mock(HttpResponse.class);
+    when(error.statusCode()).thenReturn(500);
+    assertThrows(DownstreamException.class, () -> SamlAPI.getAuthToken(error));
+  }
+
+  private void putConfiguration(String body) {
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(body)
+      .put("/saml/configuration")
+      .then()
+      .statusCode(200);
+  }
+
   @Test
   public void putConfigurationWithIdpMetadata(TestContext context) throws IOException {
     SamlConfigRequest samlConfigRequest = new SamlConfigRequest()
@@ -844,4 +1118,47 @@ public class SamlAPITest {
       SamlAPI.getCqlUserQuery("externalsystemid", "user@saml.com"))
       .getMessage());
   }
+
+  @Test
+  public void getCqlUserQueryMappings() {
+    List<UserMapping> mappings = List.of(new UserMapping("UserID", "externalSystemId"),
+      new UserMapping("mail", "personal.email"));
+    assertEquals("externalSystemId==\"abc\" or personal.email==\"user@saml.com\"",
+      SamlAPI.getCqlUserQuery(mappings, List.of("abc", "user@saml.com")));
+  }
+
+  @Test
+  public void getUserQuery() {
+    UserMapping userId = new UserMapping("UserID", "externalSystemId");
+    String single = SamlAPI.getUserQuery(List.of(userId), List.of("abc"));
+    assertThat(single, startsWith("/users?query=externalSystemId"));
+    assertThat(single, not(containsString("limit=")));
+
+    String multiple = SamlAPI.getUserQuery(List.of(userId, new UserMapping("mail", "personal.email")),
+      List.of("abc", "user@saml.com"));
+    assertThat(multiple, startsWith("/users?query=externalSystemId"));
+    assertThat(multiple, containsString("personal.email"));
+    assertThat(multiple, endsWith("&limit=" + SamlAPI.MAX_MATCHING_USERS));
+  }
+
+  @Test
+  public void rankUsers() {
+    List<UserMapping> mappings = List.of(new UserMapping("UserID", "externalSystemId"),
+      new UserMapping("mail", "personal.email"));
+    List<String> values = List.of("abc", "user@saml.com");
+    JsonObject byEmail = new JsonObject().put("id", "1")
+      .put("personal", new JsonObject().put("email", "user@saml.com"));
+    JsonObject byExternalIdIgnoringCase = new JsonObject().put("id", "2").put("externalSystemId", "ABC");
+    JsonObject byExternalId = new JsonObject().put("id", "3").put("externalSystemId", "abc");
+
+    assertEquals("1", SamlAPI.rankUsers(new JsonArray().add(byEmail), mappings, values).getString("id"));
+    assertEquals("3", SamlAPI.rankUsers(new JsonArray().add(byEmail).add(byExternalIdIgnoringCase).add(byExternalId),
+      mappings, values).getString("id"));
+    assertEquals("2", SamlAPI.rankUsers(new JsonArray().add(byEmail).add(byExternalIdIgnoringCase),
+      mappings, values).getString("id"));
+    assertEquals("1", SamlAPI.rankUsers(new JsonArray().add(new JsonObject().put("id", "4")).add(byEmail),
+      mappings, values).getString("id"));
+    assertEquals("4", SamlAPI.rankUsers(new JsonArray().add(new JsonObject().put("id", "4")).add(new JsonObject()),
+      mappings, values).getString("id"));
+  }
 }
@@ -0,0 +1,40 @@
+package org.folio.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.pac4j.saml.state.SAML2StateGenerator.SAML_RELAY_STATE_ATTRIBUTE;
+
+import io.vertx.ext.web.Session;
+import org.junit.Test;
+
+public class RelayStateSessionTest {
+
+  @Test
+  public void relayState() {
+    Session session = new RelayStateSession("https://stripes");
+    assertEquals("https://stripes", session.get(SAML_RELAY_STATE_ATTRIBUTE));
+    assertFalse(session.isEmpty());
+    session.put(SAML_RELAY_STATE_ATTRIBUTE, "");
+    assertEquals("", session.get(SAML_RELAY_STATE_ATTRIBUTE));
+    assertEquals("", session.remove(SAML_RELAY_STATE_ATTRIBUTE));
+    assertTrue(session.isEmpty());
+  }
+
+  @Test
+  public void otherAttributes() {
+    Session session = new RelayStateSession(null);
+    assertNull(session.get("a"));
+    session.put("a", 1).putIfAbsent("a", 2).computeIfAbsent("b", key -> 3);
+    assertEquals(Integer.valueOf(1), session.get("a"));
+    assertEquals(Integer.valueOf(3), session.get("b"));
+    assertEquals(2, session.data().size());
+    session.put("a", null);
+    assertNull(session.get("a"));
+    assertFalse(session.isDestroyed());
+    session.destroy();
+    assertTrue(session.isEmpty());
+    assertTrue(session.isDestroyed());
+  }
+}
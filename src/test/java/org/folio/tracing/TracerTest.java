@@ -0,0 +1,116 @@
+package org.folio.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.vertx.core.Future;
+import java.util.List;
+import org.folio.util.model.OkapiHeaders;
+import org.junit.Test;
+
+public class TracerTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+  private static final String PARENT = "00-" + TRACE_ID + "-00f067aa0ba902b7-01";
+
+  private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+  private final Tracer tracer = new Tracer(OpenTelemetrySdk.builder()
+    .setTracerProvider(SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(exporter)).build())
+    .build());
+
+  @Test
+  public void newTrace() {
+    Span span = tracer.startSpan("a", null);
+    assertTrue(span.isRecording());
+    String traceparent = Tracer.getTraceparent(span);
+    assertTrue(traceparent, traceparent.matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01"));
+    span.end();
+    List<SpanData> spans = exporter.getFinishedSpanItems();
+    assertEquals(1, spans.size());
+    assertFalse(spans.get(0).getParentSpanContext().isValid());
+    assertEquals(StatusCode.UNSET, spans.get(0).getStatus().getStatusCode());
+  }
+
+  @Test
+  public void childOfParent() {
+    Span span = tracer.startSpan("a", PARENT);
+    assertEquals(TRACE_ID, span.getSpanContext().getTraceId());
+    assertNotEquals("00f067aa0ba902b7", span.getSpanContext().getSpanId());
+    assertEquals("00-" + TRACE_ID + "-" + span.getSpanContext().getSpanId() + "-01", Tracer.getTraceparent(span));
+    span.end();
+    assertEquals("00f067aa0ba902b7", exporter.getFinishedSpanItems().get(0).getParentSpanId());
+  }
+
+  @Test
+  public void invalidParentStartsNewTrace() {
+    Span span = tracer.startSpan("a", "00-xyz");
+    assertTrue(span.isRecording());
+    assertNotEquals(TRACE_ID, span.getSpanContext().getTraceId());
+    span.end();
+    assertFalse(exporter.getFinishedSpanItems().get(0).getParentSpanContext().isValid());
+  }
+
+  @Test
+  public void notSampledParentIsPropagated() {
+    Span span = tracer.startSpan("a", "00-" + TRACE_ID + "-00f067aa0ba902b7-00");
+    assertFalse(span.isRecording());
+    assertTrue(Tracer.getTraceparent(span).startsWith("00-" + TRACE_ID + "-"));
+    assertTrue(Tracer.getTraceparent(span).endsWith("-00"));
+    span.end();
+    assertTrue(exporter.getFinishedSpanItems().isEmpty());
+  }
+
+  @Test
+  public void noop() {
+    Tracer noop = new Tracer(OpenTelemetry.noop());
+    assertNull(Tracer.getTraceparent(noop.startSpan("a", null)));
+    // without SDK the incoming trace context is passed on unchanged
+    Span span = noop.startSpan("a", PARENT);
+    assertFalse(span.isRecording());
+    assertEquals(PARENT, Tracer.getTraceparent(span));
+  }
+
+  @Test
+  public void trace() {
+    OkapiHeaders okapiHeaders = new OkapiHeaders();
+    okapiHeaders.setTenant("diku");
+    okapiHeaders.setTraceparent(PARENT);
+
+    Future<String> future = tracer.trace("outer", okapiHeaders, outer ->
+      tracer.trace("inner", outer, inner -> Future.succeededFuture(inner.getTraceparent())));
+    Future<Void> failed = tracer.trace("failed", okapiHeaders, headers -> Future.failedFuture("boom"));
+    assertThrows(IllegalStateException.class, () -> tracer.trace("thrown", okapiHeaders, headers -> {
+      throw new IllegalStateException("bang");
+    }));
+
+    List<SpanData> spans = exporter.getFinishedSpanItems();
+    assertEquals(4, spans.size());
+    SpanData inner = spans.get(0);
+    SpanData outer = spans.get(1);
+    assertEquals("inner", inner.getName());
+    assertEquals("00-" + TRACE_ID + "-" + inner.getSpanId() + "-01", future.result());
+    assertEquals(outer.getSpanId(), inner.getParentSpanId());
+    assertEquals("00f067aa0ba902b7", outer.getParentSpanId());
+    assertEquals("diku", outer.getAttributes().get(AttributeKey.stringKey("tenant")));
+    assertEquals(PARENT, okapiHeaders.getTraceparent());
+
+    assertTrue(failed.failed());
+    assertEquals(StatusCode.ERROR, spans.get(2).getStatus().getStatusCode());
+    assertEquals("boom", spans.get(2).getStatus().getDescription());
+    assertEquals("bang", spans.get(3).getStatus().getDescription());
+    assertEquals("exception", spans.get(3).getEvents().get(0).getName());
+  }
+}
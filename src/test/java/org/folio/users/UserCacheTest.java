@@ -0,0 +1,72 @@
+package org.folio.users;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.folio.config.model.SamlConfiguration;
+import org.junit.Test;
+
+public class UserCacheTest {
+
+  private static final UserIdentity ACTIVE = new UserIdentity("id1", "user1", true);
+
+  @Test
+  public void disabledByDefault() {
+    UserCache userCache = UserCache.of(new SamlConfiguration());
+    assertFalse(userCache.isEnabled());
+    userCache.put("externalSystemId", "a", ACTIVE);
+    assertNull(userCache.get("externalSystemId", "a"));
+  }
+
+  @Test
+  public void enabledByConfiguration() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setUserCacheTtl("60");
+    assertTrue(UserCache.of(configuration).isEnabled());
+    configuration.setUserCacheTtl("foo");
+    assertFalse(UserCache.of(configuration).isEnabled());
+  }
+
+  @Test
+  public void expiry() {
+    AtomicLong clock = new AtomicLong();
+    UserCache userCache = new UserCache(100, 10, clock::get);
+    userCache.put("externalSystemId", "a", ACTIVE);
+    assertSame(ACTIVE, userCache.get("externalSystemId", "a"));
+    assertNull(userCache.get("username", "a"));
+    clock.set(99);
+    assertSame(ACTIVE, userCache.get("externalSystemId", "a"));
+    clock.set(100);
+    assertNull(userCache.get("externalSystemId", "a"));
+    assertEquals(0, userCache.size());
+  }
+
+  @Test
+  public void inactiveUserRemovesEntry() {
+    UserCache userCache = new UserCache(100, 10, () -> 0);
+    userCache.put("externalSystemId", "a", ACTIVE);
+    userCache.put("externalSystemId", "a", new UserIdentity("id1", "user1", false));
+    assertNull(userCache.get("externalSystemId", "a"));
+    userCache.put("externalSystemId", "a", ACTIVE);
+    userCache.invalidate("externalSystemId", "a");
+    assertNull(userCache.get("externalSystemId", "a"));
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    UserCache userCache = new UserCache(100, 2, () -> 0);
+    userCache.put("p", "a", ACTIVE);
+    userCache.put("p", "b", ACTIVE);
+    userCache.get("p", "a");
+    assertEquals(0, userCache.getEvictions());
+    userCache.put("p", "c", ACTIVE);
+    assertEquals(2, userCache.size());
+    assertEquals(1, userCache.getEvictions());
+    assertSame(ACTIVE, userCache.get("p", "a"));
+    assertNull(userCache.get("p", "b"));
+  }
+}
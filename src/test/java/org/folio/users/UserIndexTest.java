@@ -0,0 +1,79 @@
+package org.folio.users;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import org.junit.Test;
+
+public class UserIndexTest {
+
+  private static UserIdentity user(int i, boolean active) {
+    return new UserIdentity("id" + i, "user" + i, active);
+  }
+
+  @Test
+  public void empty() {
+    UserIndex index = UserIndex.build(new UserIdentity[0], new String[0], 0);
+    assertNull(index.get("a"));
+    assertNull(index.get(null));
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void build() {
+    int n = 1000;
+    UserIdentity[] users = new UserIdentity[n];
+    String[] keys = new String[n];
+    for (int i = 0; i < n; i++) {
+      users[i] = user(i, true);
+      keys[i] = i % 100 == 0 ? null : "key" + i;
+    }
+    UserIndex index = UserIndex.build(users, keys, n);
+    assertEquals(n, index.size());
+    for (int i = 0; i < n; i++) {
+      assertSame(keys[i] == null ? null : users[i], index.get("key" + i));
+    }
+    assertNull(index.get("unknown"));
+  }
+
+  @Test
+  public void firstDuplicateKeyWins() {
+    UserIndex index = UserIndex.build(new UserIdentity[] { user(1, true), user(2, true) },
+      new String[] { "same", "same" }, 2);
+    assertEquals("id1", index.get("same").getId());
+  }
+
+  @Test
+  public void caseInsensitive() {
+    UserIndex index = UserIndex.build(new UserIdentity[] { user(1, true), user(2, true), user(3, true) },
+      new String[] { "Jane@Example.com", "JANE@EXAMPLE.COM", "jane@example.com" }, 3);
+    assertEquals("id1", index.get("Jane@Example.com").getId());
+    assertEquals("id2", index.get("JANE@EXAMPLE.COM").getId());
+    assertEquals("id3", index.get("jane@example.com").getId());
+    // no exact match: the first one that differs in case only
+    assertEquals("id1", index.get("jane@EXAMPLE.com").getId());
+    assertNull(index.get("jane@example.org"));
+  }
+
+  @Test
+  public void withUpdates() {
+    UserIndex index = UserIndex.build(new UserIdentity[] { user(1, true), user(2, true) },
+      new String[] { "a", "b" }, 2);
+
+    UserIndex updated = index.withUpdates(
+      List.of(user(2, false), user(3, true), user(3, true)),
+      List.of("c", "d", "e"));
+
+    assertEquals(3, updated.size());
+    assertEquals("id1", updated.get("a").getId());
+    assertNull(updated.get("b"));
+    assertFalse(updated.get("c").isActive());
+    assertNull(updated.get("d"));
+    assertEquals("id3", updated.get("e").getId());
+    // the old index is unchanged
+    assertEquals("id2", index.get("b").getId());
+  }
+}
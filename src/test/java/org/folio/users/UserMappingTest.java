@@ -0,0 +1,80 @@
+package org.folio.users;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import java.util.List;
+import org.folio.config.model.SamlConfiguration;
+import org.junit.Test;
+
+public class UserMappingTest {
+
+  private static void assertMapping(String samlAttribute, String userProperty, UserMapping mapping) {
+    assertEquals(samlAttribute, mapping.getSamlAttribute());
+    assertEquals(userProperty, mapping.getUserProperty());
+  }
+
+  @Test
+  public void ofDefaults() {
+    List<UserMapping> mappings = UserMapping.of(new SamlConfiguration());
+    assertEquals(1, mappings.size());
+    assertMapping("UserID", "externalSystemId", mappings.get(0));
+  }
+
+  @Test
+  public void ofSingle() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setSamlAttribute("mail");
+    configuration.setUserProperty("personal.email");
+    configuration.setUserMappings(" ");
+    List<UserMapping> mappings = UserMapping.of(configuration);
+    assertEquals(1, mappings.size());
+    assertMapping("mail", "personal.email", mappings.get(0));
+  }
+
+  @Test
+  public void ofMappings() {
+    SamlConfiguration configuration = new SamlConfiguration();
+    configuration.setSamlAttribute("mail");
+    configuration.setUserProperty("personal.email");
+    configuration.setUserMappings("[{\"samlAttribute\":\"UserID\",\"userProperty\":\"externalSystemId\"},"
+      + "{\"samlAttribute\":\"uid\",\"userProperty\":\"username\"}]");
+    List<UserMapping> mappings = UserMapping.of(configuration);
+    assertEquals(2, mappings.size());
+    assertMapping("UserID", "externalSystemId", mappings.get(0));
+    assertMapping("uid", "username", mappings.get(1));
+  }
+
+  @Test
+  public void parse() {
+    assertTrue(UserMapping.parse(null).isEmpty());
+    assertTrue(UserMapping.parse("[]").isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> UserMapping.parse("[{\"samlAttribute\":\"uid\"}]"));
+    assertEquals("Unsupported user property: email: {\"samlAttribute\":\"mail\",\"userProperty\":\"email\"}",
+      assertThrows(IllegalArgumentException.class, () ->
+        UserMapping.parse("[{\"samlAttribute\":\"mail\",\"userProperty\":\"email\"}]")).getMessage());
+  }
+
+  @Test
+  public void validate() {
+    for (String userProperty : UserMapping.SUPPORTED_USER_PROPERTIES) {
+      UserMapping.validate("a", userProperty);
+    }
+    assertThrows(IllegalArgumentException.class, () -> UserMapping.validate("", "username"));
+    assertThrows(IllegalArgumentException.class, () -> UserMapping.validate("a", null));
+    assertThrows(IllegalArgumentException.class, () -> UserMapping.validate("a", "Username"));
+  }
+
+  @Test
+  public void valueOf() {
+    JsonObject user = new JsonObject().put("barcode", 123)
+      .put("personal", new JsonObject().put("email", "a@example.com"));
+    assertEquals("123", new UserMapping("a", "barcode").valueOf(user));
+    assertEquals("a@example.com", new UserMapping("a", "personal.email").valueOf(user));
+    assertNull(new UserMapping("a", "username").valueOf(user));
+    assertNull(new UserMapping("a", "foo.email").valueOf(user));
+  }
+}
@@ -0,0 +1,131 @@
+package org.folio.users;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.folio.util.model.OkapiHeaders;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class UserMirrorTest {
+
+  private static final Pattern AFTER_ID = Pattern.compile("id>\"([^\"]*)\"");
+
+  private Vertx vertx;
+  private HttpServer server;
+  private final List<JsonObject> users = new ArrayList<>();
+  private final List<String> queries = new ArrayList<>();
+  private OkapiHeaders okapiHeaders;
+
+  private static JsonObject user(int i, boolean active) {
+    return new JsonObject().put("id", "id" + i).put("username", "user" + i).put("active", active)
+      .put("personal", new JsonObject().put("email", "user" + i + "@example.com"));
+  }
+
+  @Before
+  public void setUp(TestContext context) {
+    vertx = Vertx.vertx();
+    for (int i = 1; i <= 5; i++) {
+      users.add(user(i, i != 3));
+    }
+    server = vertx.createHttpServer().requestHandler(request -> {
+      String query = request.getParam("query");
+      int limit = Integer.parseInt(request.getParam("limit"));
+      queries.add(query);
+      Matcher matcher = AFTER_ID.matcher(query);
+      String afterId = matcher.find() ? matcher.group(1) : "";
+      JsonArray page = new JsonArray();
+      for (JsonObject user : users) {
+        if (user.getString("id").compareTo(afterId) > 0 && page.size() < limit) {
+          page.add(user);
+        }
+      }
+      request.response().putHeader("Content-Type", "application/json")
+        .end(new JsonObject().put("users", page).encode());
+    });
+    server.listen(0, context.asyncAssertSuccess(s -> {
+      okapiHeaders = new OkapiHeaders();
+      okapiHeaders.setUrl("http://localhost:" + s.actualPort());
+      okapiHeaders.setTenant("diku");
+      okapiHeaders.setToken("token");
+    }));
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void fullAndDeltaSync(TestContext context) {
+    AtomicLong clock = new AtomicLong();
+    UserMirror mirror = new UserMirror("diku", "personal.email", 100, 1000, 2, clock::get);
+    WebClient webClient = WebClient.create(vertx);
+    context.assertFalse(mirror.isLoaded());
+
+    mirror.syncIfDue(vertx, webClient, okapiHeaders)
+      .compose(x -> {
+        context.assertEquals(5, mirror.size());
+        context.assertEquals("id1", mirror.get("user1@example.com").getId());
+        context.assertEquals("id1", mirror.get("User1@Example.COM").getId());
+        context.assertFalse(mirror.get("user3@example.com").isActive());
+        context.assertEquals(3, queries.size());
+        context.assertEquals("cql.allRecords=1 sortBy id", queries.get(0));
+        // not due yet
+        clock.set(99);
+        return mirror.syncIfDue(vertx, webClient, okapiHeaders);
+      })
+      .compose(x -> {
+        context.assertEquals(3, queries.size());
+        users.set(2, user(3, true));
+        clock.set(100);
+        return mirror.syncIfDue(vertx, webClient, okapiHeaders);
+      })
+      .onComplete(context.asyncAssertSuccess(x -> {
+        context.assertTrue(queries.get(3).startsWith("metadata.updatedDate>\""), queries.get(3));
+        context.assertTrue(mirror.get("user3@example.com").isActive());
+        context.assertEquals(5, mirror.size());
+      }));
+  }
+
+  @Test
+  public void failedSyncIsRetriedLater(TestContext context) {
+    AtomicLong clock = new AtomicLong();
+    UserMirror mirror = new UserMirror("diku", "username", 100, 1000, 2, clock::get);
+    WebClient webClient = WebClient.create(vertx);
+    OkapiHeaders badHeaders = new OkapiHeaders();
+    badHeaders.setUrl("http://localhost:1");
+    badHeaders.setTenant("diku");
+    badHeaders.setToken("token");
+
+    mirror.syncIfDue(vertx, webClient, badHeaders)
+      .recover(e -> mirror.syncIfDue(vertx, webClient, okapiHeaders))
+      .compose(x -> {
+        context.assertFalse(mirror.isLoaded());
+        clock.set(UserMirror.RETRY_NANOS);
+        return mirror.syncIfDue(vertx, webClient, okapiHeaders);
+      })
+      .onComplete(context.asyncAssertSuccess(x -> context.assertEquals("id2", mirror.get("user2").getId())));
+  }
+
+  @Test
+  public void userPropertyValue() {
+    UserMirror mirror = new UserMirror("diku", "personal.email", 1, 1, 1, () -> 0);
+    JsonObject user = user(1, true);
+    Assert.assertEquals("user1@example.com", mirror.userPropertyValue(user));
+    Assert.assertNull(mirror.userPropertyValue(new JsonObject()));
+  }
+}
@@ -0,0 +1,88 @@
+package org.folio.util;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import java.util.concurrent.CountDownLatch;
+import org.folio.util.CryptoWorkerPool.OverloadedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class CryptoWorkerPoolTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void rejectWhenPendingLimitReached(TestContext context) {
+    CryptoWorkerPool pool = new CryptoWorkerPool(1, 2);
+    CountDownLatch latch = new CountDownLatch(1);
+    Async async = context.async();
+
+    pool.execute(vertx, () -> {
+      latch.await();
+      return "first";
+    }).onComplete(context.asyncAssertSuccess(result -> context.assertEquals("first", result)));
+    pool.execute(vertx, () -> "second")
+      .onComplete(context.asyncAssertSuccess(result -> context.assertEquals("second", result)));
+    context.assertEquals(2, pool.getPending());
+
+    pool.execute(vertx, () -> "third").onComplete(context.asyncAssertFailure(e -> {
+      context.assertTrue(e instanceof OverloadedException);
+      context.assertEquals(1L, pool.getRejected());
+      latch.countDown();
+      async.complete();
+    }));
+  }
+
+  @Test
+  public void failure(TestContext context) {
+    CryptoWorkerPool pool = new CryptoWorkerPool(1, 1);
+    pool.execute(vertx, () -> {
+      throw new IllegalStateException("bad");
+    }).onComplete(context.asyncAssertFailure(e -> {
+      context.assertEquals("bad", e.getMessage());
+      context.assertEquals(0, pool.getPending());
+    }));
+  }
+
+  @Test
+  public void otherVertx(TestContext context) {
+    CryptoWorkerPool pool = new CryptoWorkerPool(1, 1);
+    Vertx other = Vertx.vertx();
+    pool.execute(other, () -> "other")
+      .compose(x -> other.close())
+      .compose(x -> pool.execute(vertx, () -> "current"))
+      .onComplete(context.asyncAssertSuccess(result -> context.assertEquals("current", result)));
+  }
+
+  @Test
+  public void previousExecutorClosed(TestContext context) {
+    CryptoWorkerPool pool = new CryptoWorkerPool(1, 1);
+    Vertx other = Vertx.vertx();
+    Async async = context.async();
+    pool.execute(other, Thread::currentThread)
+      .compose(otherThread -> pool.execute(vertx, () -> "current").map(otherThread))
+      .onComplete(context.asyncAssertSuccess(otherThread ->
+        vertx.setPeriodic(10, timer -> {
+          // other is still open, its executor's thread ends because the pool closed it
+          if (!otherThread.isAlive()) {
+            vertx.cancelTimer(timer);
+            other.close(context.asyncAssertSuccess(x -> async.complete()));
+          }
+        })));
+  }
+}
@@ -0,0 +1,24 @@
+package org.folio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.UUID;
+import org.junit.Test;
+
+public class CsrfTokenGeneratorTest {
+
+  @Test
+  public void uuidFormat() {
+    String token = CsrfTokenGenerator.generate();
+    UUID uuid = UUID.fromString(token);
+    assertEquals(token, uuid.toString());
+    assertEquals(4, uuid.version());
+    assertEquals(2, uuid.variant());
+  }
+
+  @Test
+  public void unique() {
+    assertNotEquals(CsrfTokenGenerator.generate(), CsrfTokenGenerator.generate());
+  }
+}
@@ -0,0 +1,32 @@
+package org.folio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class EnvUtilTest {
+
+  @Test
+  public void parseLong() {
+    assertEquals(7, EnvUtil.parseLong("X", null, 7));
+    assertEquals(7, EnvUtil.parseLong("X", " ", 7));
+    assertEquals(7, EnvUtil.parseLong("X", "seven", 7));
+    assertEquals(42, EnvUtil.parseLong("X", " 42 ", 7));
+  }
+
+  @Test
+  public void parseBoolean() {
+    assertTrue(EnvUtil.parseBoolean(null, true));
+    assertFalse(EnvUtil.parseBoolean("yes", false));
+    assertTrue(EnvUtil.parseBoolean("TRUE", false));
+    assertFalse(EnvUtil.parseBoolean(" false", true));
+  }
+
+  @Test
+  public void unsetVariable() {
+    assertEquals(3, EnvUtil.getInt("MOD_LOGIN_SAML_UNSET_TEST_VARIABLE", 3));
+    assertTrue(EnvUtil.getBoolean("MOD_LOGIN_SAML_UNSET_TEST_VARIABLE", true));
+  }
+}
@@ -0,0 +1,41 @@
+package org.folio.util;
+
+import static org.junit.Assert.assertEquals;
+
+import io.vertx.core.json.DecodeException;
+import java.security.SignatureException;
+import net.shibboleth.utilities.java.support.resolver.ResolverException;
+import org.folio.util.CryptoWorkerPool.OverloadedException;
+import org.junit.Test;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.saml.exceptions.SAMLException;
+
+public class FailureTypeTest {
+
+  @Test
+  public void user() {
+    assertEquals(FailureType.USER, FailureType.of(new UserErrorException("no user")));
+    assertEquals(FailureType.USER, FailureType.of(new ForbiddenException("inactive")));
+  }
+
+  @Test
+  public void downstreamAndOverload() {
+    assertEquals(FailureType.DOWNSTREAM, FailureType.of(new DownstreamException(new SAMLException("x"))));
+    assertEquals(FailureType.OVERLOAD, FailureType.of(new OverloadedException("busy")));
+  }
+
+  @Test
+  public void saml() {
+    assertEquals(FailureType.SAML, FailureType.of(new SAMLException("bad signature")));
+    assertEquals(FailureType.SAML, FailureType.of(new TechnicalException("pac4j")));
+    assertEquals(FailureType.SAML, FailureType.of(new RuntimeException(new ResolverException("metadata"))));
+    assertEquals(FailureType.SAML, FailureType.of(new IllegalStateException(new SignatureException("crypto"))));
+  }
+
+  @Test
+  public void other() {
+    assertEquals(FailureType.OTHER, FailureType.of(new NullPointerException()));
+    assertEquals(FailureType.OTHER, FailureType.of(new DecodeException("bad JSON")));
+    assertEquals(FailureType.OTHER, FailureType.of(new IllegalArgumentException("unsupported user property")));
+  }
+}
@@ -8,6 +8,7 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,6 +16,8 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 public class MockJson extends AbstractVerticle {
@@ -22,6 +25,16 @@ public class MockJson extends AbstractVerticle {
 
   JsonArray mocks;
   String resource;
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+
+  /**
+   * @return the requests received since the last call, each as method, URI and body separated by space
+   */
+  public List<String> takeRequests() {
+    List<String> result = List.copyOf(requests);
+    requests.clear();
+    return result;
+  }
 
   public void setMockContent(String resource, Function<String,String> function) {
     try {
@@ -43,6 +56,7 @@ public class MockJson extends AbstractVerticle {
     HttpServerResponse response = context.response();
     String method = request.method().name();
     String uri = request.uri();
+    requests.add(method + " " + uri + " " + context.getBodyAsString());
 
     for (int i = 0; i < mocks.size(); i++) {
       JsonObject entry = mocks.getJsonObject(i);
@@ -82,6 +96,7 @@ public class MockJson extends AbstractVerticle {
     log.info("Running Mock JSON on port {}", port);
 
     Router router = Router.router(vertx);
+    router.route().handler(BodyHandler.create());
     router.routeWithRegex("/.*").handler(this::handle);
     vertx.createHttpServer().requestHandler(router).listen(port).<Void>mapEmpty().onComplete(promise);
   }
@@ -0,0 +1,92 @@
+package org.folio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.junit.Test;
+
+public class RedirectBindingEncoderTest {
+
+  private static final String AUTHN_REQUEST = "<samlp:AuthnRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\""
+    + " ID=\"_abc\" Version=\"2.0\"><saml:Issuer xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">"
+    + "http://localhost:9130/_/invoke/tenant/diku/saml/callback</saml:Issuer></samlp:AuthnRequest>";
+
+  private static Map<String, String> query(String url) {
+    Map<String, String> map = new HashMap<>();
+    for (String parameter : url.substring(url.indexOf('?') + 1).split("&")) {
+      int equals = parameter.indexOf('=');
+      map.put(parameter.substring(0, equals),
+        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+    }
+    return map;
+  }
+
+  private static String inflate(String base64) throws DataFormatException {
+    Inflater inflater = new Inflater(true);
+    inflater.setInput(Base64.getDecoder().decode(base64));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    while (!inflater.finished()) {
+      out.write(buffer, 0, inflater.inflate(buffer));
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void encode() throws DataFormatException {
+    String url = RedirectBindingEncoder.encode("https://idp/sso", "SAMLRequest", AUTHN_REQUEST,
+      "http://localhost:3000/?csrfToken=123&x=a b");
+    assertTrue(url.startsWith("https://idp/sso?SAMLRequest="));
+    Map<String, String> query = query(url);
+    assertEquals(AUTHN_REQUEST, inflate(query.get("SAMLRequest")));
+    assertEquals("http://localhost:3000/?csrfToken=123&x=a b", query.get("RelayState"));
+  }
+
+  @Test
+  public void destinationWithQuery() throws DataFormatException {
+    String url = RedirectBindingEncoder.encode("https://idp/sso?tenant=a", "SAMLRequest", AUTHN_REQUEST, "");
+    assertTrue(url.startsWith("https://idp/sso?tenant=a&SAMLRequest="));
+    assertFalse(url.contains("RelayState"));
+    assertEquals(AUTHN_REQUEST, inflate(query(url).get("SAMLRequest")));
+  }
+
+  @Test
+  public void largeMessage() throws DataFormatException {
+    // random content doesn't compress, the buffers must grow beyond MAX_RETAINED_SIZE
+    StringBuilder large = new StringBuilder();
+    Random random = new Random(1);
+    while (large.length() < 2 * RedirectBindingEncoder.MAX_RETAINED_SIZE) {
+      large.append(Long.toString(random.nextLong(), 36));
+    }
+    String message = "<a>" + large + "</a>";
+    assertEquals(message, inflate(query(RedirectBindingEncoder.encode("https://idp", "SAMLRequest", message, null))
+      .get("SAMLRequest")));
+    // buffers reused after the large message
+    assertEquals(AUTHN_REQUEST, inflate(query(RedirectBindingEncoder.encode("https://idp", "SAMLRequest",
+      AUTHN_REQUEST, null)).get("SAMLRequest")));
+  }
+
+  @Test
+  public void base64Padding() {
+    for (int length = 0; length < 8; length++) {
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+        bytes[i] = (byte) (0xfb + i * 37);
+      }
+      StringBuilder out = new StringBuilder();
+      RedirectBindingEncoder.appendBase64UrlEncoded(out, bytes, length);
+      assertEquals(Base64.getEncoder().encodeToString(bytes),
+        URLDecoder.decode(out.toString(), StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.folio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.Test;
+
+public class SamlResponseGuardTest {
+
+  private final SamlResponseGuard guard = new SamlResponseGuard(1000, 5, 3);
+
+  private static String encode(String xml) {
+    return Base64.getMimeEncoder().encodeToString(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void assertRejected(String message, String xml) {
+    String samlResponse = encode(xml);
+    UserErrorException e = assertThrows(UserErrorException.class, () -> guard.check(samlResponse));
+    assertEquals(message, e.getMessage());
+  }
+
+  @Test
+  public void withinLimits() {
+    guard.check(encode("<a><b><c/></b><b/><b/></a>"));
+    guard.check(null);
+  }
+
+  @Test
+  public void malformedIsLeftToPac4j() {
+    guard.check(encode("<a><b></a>"));
+    guard.check("!!!");
+  }
+
+  @Test
+  public void tooManyBytes() {
+    assertRejected("SAMLResponse exceeds 1000 bytes", "<a>" + "x".repeat(2000) + "</a>");
+  }
+
+  @Test
+  public void encodedLength() {
+    // 1000 bytes with MIME line breaks pass the length check
+    guard.check(encode("<a>" + "x".repeat(993) + "</a>"));
+    // too long to hold 1000 bytes, rejected without decoding although it isn't Base64
+    UserErrorException e = assertThrows(UserErrorException.class, () -> guard.check("!".repeat(1500)));
+    assertEquals("SAMLResponse exceeds 1000 bytes", e.getMessage());
+    guard.check("!".repeat(1300));
+  }
+
+  @Test
+  public void tooManyElements() {
+    assertRejected("SAMLResponse exceeds 5 elements", "<a><b/><b/><b/><b/><b/></a>");
+  }
+
+  @Test
+  public void tooDeep() {
+    assertRejected("SAMLResponse exceeds nesting depth 3", "<a><b><c><d/></c></b></a>");
+  }
+
+  @Test
+  public void dtd() {
+    assertRejected("SAMLResponse must not contain a DTD", "<!DOCTYPE a [<!ENTITY e 'x'>]><a>&e;</a>");
+  }
+}